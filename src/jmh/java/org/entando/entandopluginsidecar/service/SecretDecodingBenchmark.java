@@ -0,0 +1,67 @@
+package org.entando.entandopluginsidecar.service;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.BenchmarkConfigs;
+import org.entando.entandopluginsidecar.util.YamlUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures turning a Secret into a connection config for Secrets written with stringData, as the sidecar creates
+ * them, and with base64 data, as they are returned by the API server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecretDecodingBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int propertyCount;
+
+    @Param({"16", "1024", "1048576"})
+    private int valueSize;
+
+    private Secret stringDataSecret;
+    private Secret dataSecret;
+
+    @Setup
+    public void setUp() {
+        String yaml = YamlUtils.toYaml(BenchmarkConfigs.newConnectionConfig(propertyCount, valueSize));
+        stringDataSecret = new SecretBuilder()
+                .withNewMetadata().withName("benchmark").endMetadata()
+                .addToStringData(ConnectionConfigService.CONFIG_YAML, yaml)
+                .build();
+        dataSecret = new SecretBuilder()
+                .withNewMetadata().withName("benchmark").endMetadata()
+                .addToData(ConnectionConfigService.CONFIG_YAML,
+                        Base64.getEncoder().encodeToString(yaml.getBytes(StandardCharsets.UTF_8)))
+                .build();
+    }
+
+    @Benchmark
+    public ConnectionConfigDto parseStringData() {
+        return ConnectionConfigService.parseSecret(stringDataSecret);
+    }
+
+    @Benchmark
+    public ConnectionConfigDto parseData() {
+        return ConnectionConfigService.parseSecret(dataSecret);
+    }
+}
@@ -0,0 +1,28 @@
+package org.entando.entandopluginsidecar.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import lombok.experimental.UtilityClass;
+import org.apache.commons.lang3.StringUtils;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+
+@UtilityClass
+public class BenchmarkConfigs {
+
+    // Secrets are limited to 1 MiB, which base64 encoded data must also fit in
+    public static final int MAX_CONFIG_BYTES = 1024 * 1024 / 4 * 3;
+
+    private static final int KEY_OVERHEAD = 32;
+
+    /**
+     * Values are shortened when needed so that the serialized config fits in a single Secret.
+     */
+    public static ConnectionConfigDto newConnectionConfig(int propertyCount, int valueSize) {
+        int actualValueSize = Math.max(1, Math.min(valueSize, MAX_CONFIG_BYTES / propertyCount - KEY_OVERHEAD));
+        Map<String, String> properties = new HashMap<>();
+        for (int i = 0; i < propertyCount; i++) {
+            properties.put("property" + i, StringUtils.repeat('x', actualValueSize));
+        }
+        return new ConnectionConfigDto("benchmark", properties);
+    }
+}
@@ -0,0 +1,62 @@
+package org.entando.entandopluginsidecar.util;
+
+import java.util.concurrent.TimeUnit;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares building a new Yaml per call, as YamlUtils used to do, with the reused per-thread instances.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class YamlUtilsBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int propertyCount;
+
+    @Param({"16", "1024", "1048576"})
+    private int valueSize;
+
+    private ConnectionConfigDto configDto;
+    private String yaml;
+
+    @Setup
+    public void setUp() {
+        configDto = BenchmarkConfigs.newConnectionConfig(propertyCount, valueSize);
+        yaml = YamlUtils.toYaml(configDto);
+    }
+
+    @Benchmark
+    public String toYamlNewInstancePerCall() {
+        return YamlUtils.newDumper().dump(configDto);
+    }
+
+    @Benchmark
+    public String toYamlReusedInstance() {
+        return YamlUtils.toYaml(configDto);
+    }
+
+    @Benchmark
+    public ConnectionConfigDto fromYamlNewInstancePerCall() {
+        return YamlUtils.newLoader().load(yaml);
+    }
+
+    @Benchmark
+    public ConnectionConfigDto fromYamlReusedInstance() {
+        return YamlUtils.fromYaml(yaml);
+    }
+}
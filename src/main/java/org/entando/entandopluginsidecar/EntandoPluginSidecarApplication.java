@@ -4,8 +4,9 @@ import io.fabric8.kubernetes.client.Config;
 import io.fabric8.kubernetes.client.ConfigBuilder;
 import io.fabric8.kubernetes.client.DefaultKubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.utils.HttpClientUtils;
+import io.micrometer.core.instrument.MeterRegistry;
 import okhttp3.OkHttpClient;
+import org.entando.entandopluginsidecar.kubernetes.KubernetesHttpClientFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
@@ -20,9 +21,10 @@ public class EntandoPluginSidecarApplication {
     }
 
     @Bean
-    public KubernetesClient kubernetesClient() {
+    public KubernetesClient kubernetesClient(KubernetesHttpClientFactory httpClientFactory,
+            MeterRegistry meterRegistry) {
         Config config = new ConfigBuilder().withTrustCerts(true).build();
-        OkHttpClient httpClient = HttpClientUtils.createHttpClient(config);
+        OkHttpClient httpClient = httpClientFactory.create(config, meterRegistry);
         return new DefaultKubernetesClient(httpClient, config);
     }
 }
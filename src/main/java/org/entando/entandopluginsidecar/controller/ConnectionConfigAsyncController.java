@@ -0,0 +1,129 @@
+package org.entando.entandopluginsidecar.controller;
+
+import static org.entando.entandopluginsidecar.controller.AuthPermissions.CONNECTION_CONFIG;
+import static org.entando.entandopluginsidecar.controller.ConnectionConfigController.APPLICATION_NDJSON_VALUE;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javax.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchOperationDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchResultDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigPageDto;
+import org.entando.entandopluginsidecar.service.ConnectionConfigAsyncService;
+import org.entando.entandopluginsidecar.service.ConnectionConfigStore;
+import org.entando.entandopluginsidecar.service.Versioned;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Same endpoints as {@link ConnectionConfigController}, answered asynchronously so that request threads are released
+ * while the Kubernetes API calls are in flight. Enabled with {@value ConnectionConfigAsyncService#ENABLED}.
+ */
+@RestController
+@Api(tags = "Connection Config")
+@RequestMapping("/config")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = ConnectionConfigAsyncService.ENABLED, havingValue = "true")
+public class ConnectionConfigAsyncController {
+
+    private final ConnectionConfigAsyncService connectionConfigAsyncService;
+    private final ConnectionConfigStore connectionConfigStore;
+    private final ObjectMapper objectMapper;
+
+    @Secured(CONNECTION_CONFIG)
+    @ApiOperation(notes = "Add Config", nickname = "addConnectionConfig", value = "ADD Connection Config")
+    @PostMapping
+    public CompletableFuture<ResponseEntity<Void>> addConnectionConfig(
+            @RequestBody ConnectionConfigDto connectionConfigDto) {
+        return connectionConfigAsyncService.addConnectionConfig(connectionConfigDto)
+                .thenApply(added -> ResponseEntity.status(HttpStatus.CREATED).build());
+    }
+
+    @Secured(CONNECTION_CONFIG)
+    @ApiOperation(notes = "Get Config", nickname = "getConnectionConfig", value = "GET Connection Config")
+    @GetMapping("/{configName}")
+    public CompletableFuture<ResponseEntity<ConnectionConfigDto>> getConnectionConfig(@PathVariable String configName,
+            WebRequest request, HttpServletResponse response) {
+        return connectionConfigAsyncService.getVersionedConnectionConfig(configName)
+                .thenApply(config -> respond(config, request, response));
+    }
+
+    @Secured(CONNECTION_CONFIG)
+    @ApiOperation(notes = "List Config, only the name and the properties listed in fields when given, as in "
+            + "fields=name,properties.url", nickname = "listConnectionConfig", value = "LIST Connection Config")
+    @GetMapping
+    public CompletableFuture<ResponseEntity<List<ConnectionConfigDto>>> getAllConnectionConfig(
+            @RequestParam(required = false) List<String> fields, WebRequest request, HttpServletResponse response) {
+        return connectionConfigAsyncService.getAllVersionedConnectionConfig(fields)
+                .thenApply(configs -> respond(configs, request, response));
+    }
+
+    @Secured(CONNECTION_CONFIG)
+    @ApiOperation(notes = "List a page of Configs in name order, continuing after the previous page",
+            nickname = "listConnectionConfigPage", value = "LIST Connection Config page")
+    @GetMapping(params = {"limit", "!watch", "!since"})
+    public CompletableFuture<ConnectionConfigPageDto> getConnectionConfigPage(@RequestParam int limit,
+            @RequestParam(name = "continue", required = false) String continueToken) {
+        return connectionConfigAsyncService.getConnectionConfigPage(limit, continueToken);
+    }
+
+    @Secured(CONNECTION_CONFIG)
+    @ApiOperation(notes = "Stream all Configs as newline delimited JSON, each one as soon as it is read",
+            nickname = "streamConnectionConfig", value = "STREAM Connection Config")
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamAllConnectionConfig() {
+        return ConnectionConfigController.ndjson(connectionConfigStore, objectMapper);
+    }
+
+    @Secured(CONNECTION_CONFIG)
+    @ApiOperation(notes = "Delete Config", nickname = "deleteConnectionConfig", value = "DELETE Connection Config")
+    @DeleteMapping("/{configName}")
+    public CompletableFuture<Void> deleteConnectionConfig(@PathVariable String configName) {
+        return connectionConfigAsyncService.removeConnectionConfig(configName);
+    }
+
+    @Secured(CONNECTION_CONFIG)
+    @ApiOperation(notes = "Edit Config", nickname = "editConnectionConfig", value = "EDIT Connection Config")
+    @PutMapping
+    public CompletableFuture<ConnectionConfigDto> editConnectionConfig(
+            @RequestBody ConnectionConfigDto connectionConfigDto) {
+        return connectionConfigAsyncService.editConnectionConfig(connectionConfigDto);
+    }
+
+    @Secured(CONNECTION_CONFIG)
+    @ApiOperation(notes = "Create, edit and delete Configs, reporting a result for each of them",
+            nickname = "batchConnectionConfig", value = "BATCH Connection Config")
+    @PostMapping("/batch")
+    public CompletableFuture<List<ConnectionConfigBatchResultDto>> batchConnectionConfig(
+            @RequestBody List<ConnectionConfigBatchOperationDto> operations) {
+        return connectionConfigAsyncService.applyBatch(operations);
+    }
+
+    // the ETag is set on the response by checkNotModified, the async dispatch doesn't know the request was not modified
+    private static <T> ResponseEntity<T> respond(Versioned<T> versioned, WebRequest request,
+            HttpServletResponse response) {
+        ConnectionConfigController.warnIfStale(versioned, response);
+        if (request.checkNotModified(versioned.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return ResponseEntity.ok(versioned.getValue());
+    }
+}
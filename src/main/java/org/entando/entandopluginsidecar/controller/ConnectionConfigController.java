@@ -2,12 +2,24 @@ package org.entando.entandopluginsidecar.controller;
 
 import static org.entando.entandopluginsidecar.controller.AuthPermissions.CONNECTION_CONFIG;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import javax.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchOperationDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchResultDto;
 import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
-import org.entando.entandopluginsidecar.service.ConnectionConfigService;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigPageDto;
+import org.entando.entandopluginsidecar.service.ConnectionConfigAsyncService;
+import org.entando.entandopluginsidecar.service.ConnectionConfigProjection;
+import org.entando.entandopluginsidecar.service.ConnectionConfigStore;
+import org.entando.entandopluginsidecar.service.Versioned;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
@@ -18,49 +30,111 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @Api(tags = "Connection Config")
 @RequestMapping("/config")
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = ConnectionConfigAsyncService.ENABLED, havingValue = "false", matchIfMissing = true)
 public class ConnectionConfigController {
 
-    private final ConnectionConfigService connectionConfigService;
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    private final ConnectionConfigStore connectionConfigStore;
+    private final ObjectMapper objectMapper;
 
     @Secured(CONNECTION_CONFIG)
     @ApiOperation(notes = "Add Config", nickname = "addConnectionConfig", value = "ADD Connection Config")
     @PostMapping
     public ResponseEntity<Void> addConnectionConfig(@RequestBody ConnectionConfigDto connectionConfigDto) {
-        connectionConfigService.addConnectionConfig(connectionConfigDto);
+        connectionConfigStore.addConnectionConfig(connectionConfigDto);
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
     @Secured(CONNECTION_CONFIG)
     @ApiOperation(notes = "Get Config", nickname = "getConnectionConfig", value = "GET Connection Config")
     @GetMapping("/{configName}")
-    public ConnectionConfigDto getConnectionConfig(@PathVariable String configName) {
-        return connectionConfigService.getConnectionConfig(configName);
+    public ConnectionConfigDto getConnectionConfig(@PathVariable String configName, WebRequest request,
+            HttpServletResponse response) {
+        Versioned<ConnectionConfigDto> config = connectionConfigStore.getVersionedConnectionConfig(configName);
+        warnIfStale(config, response);
+        return request.checkNotModified(config.getEtag()) ? null : config.getValue();
     }
 
     @Secured(CONNECTION_CONFIG)
-    @ApiOperation(notes = "List Config", nickname = "listConnectionConfig", value = "LIST Connection Config")
+    @ApiOperation(notes = "List Config, only the name and the properties listed in fields when given, as in "
+            + "fields=name,properties.url", nickname = "listConnectionConfig", value = "LIST Connection Config")
     @GetMapping
-    public List<ConnectionConfigDto> getAllConnectionConfig() {
-        return connectionConfigService.getAllConnectionConfig();
+    public List<ConnectionConfigDto> getAllConnectionConfig(@RequestParam(required = false) List<String> fields,
+            WebRequest request, HttpServletResponse response) {
+        Versioned<List<ConnectionConfigDto>> configs = fields == null
+                ? connectionConfigStore.getAllVersionedConnectionConfig()
+                : connectionConfigStore.getAllVersionedConnectionConfig(ConnectionConfigProjection.of(fields));
+        warnIfStale(configs, response);
+        return request.checkNotModified(configs.getEtag()) ? null : configs.getValue();
+    }
+
+    @Secured(CONNECTION_CONFIG)
+    @ApiOperation(notes = "List a page of Configs in name order, continuing after the previous page",
+            nickname = "listConnectionConfigPage", value = "LIST Connection Config page")
+    @GetMapping(params = {"limit", "!watch", "!since"})
+    public ConnectionConfigPageDto getConnectionConfigPage(@RequestParam int limit,
+            @RequestParam(name = "continue", required = false) String continueToken) {
+        return connectionConfigStore.getConnectionConfigPage(limit, continueToken);
+    }
+
+    @Secured(CONNECTION_CONFIG)
+    @ApiOperation(notes = "Stream all Configs as newline delimited JSON, each one as soon as it is read",
+            nickname = "streamConnectionConfig", value = "STREAM Connection Config")
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamAllConnectionConfig() {
+        return ndjson(connectionConfigStore, objectMapper);
     }
 
     @Secured(CONNECTION_CONFIG)
     @ApiOperation(notes = "Delete Config", nickname = "deleteConnectionConfig", value = "DELETE Connection Config")
     @DeleteMapping("/{configName}")
     public void deleteConnectionConfig(@PathVariable String configName) {
-        connectionConfigService.removeConnectionConfig(configName);
+        connectionConfigStore.removeConnectionConfig(configName);
     }
 
     @Secured(CONNECTION_CONFIG)
     @ApiOperation(notes = "Edit Config", nickname = "editConnectionConfig", value = "EDIT Connection Config")
     @PutMapping
     public ConnectionConfigDto editConnectionConfig(@RequestBody ConnectionConfigDto connectionConfigDto) {
-        return connectionConfigService.editConnectionConfig(connectionConfigDto);
+        return connectionConfigStore.editConnectionConfig(connectionConfigDto);
+    }
+
+    @Secured(CONNECTION_CONFIG)
+    @ApiOperation(notes = "Create, edit and delete Configs, reporting a result for each of them",
+            nickname = "batchConnectionConfig", value = "BATCH Connection Config")
+    @PostMapping("/batch")
+    public List<ConnectionConfigBatchResultDto> batchConnectionConfig(
+            @RequestBody List<ConnectionConfigBatchOperationDto> operations) {
+        return connectionConfigStore.applyBatch(operations);
+    }
+
+    static StreamingResponseBody ndjson(ConnectionConfigStore connectionConfigStore, ObjectMapper objectMapper) {
+        return outputStream -> connectionConfigStore.forEachConnectionConfig(config -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(config));
+                outputStream.write('\n');
+                outputStream.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // values served while the API server is unavailable, see ConnectionConfigService
+    static void warnIfStale(Versioned<?> versioned, HttpServletResponse response) {
+        if (versioned.isStale()) {
+            response.setHeader(HttpHeaders.WARNING, STALE_WARNING);
+        }
     }
 }
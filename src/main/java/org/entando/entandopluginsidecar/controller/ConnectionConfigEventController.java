@@ -0,0 +1,95 @@
+package org.entando.entandopluginsidecar.controller;
+
+import static org.entando.entandopluginsidecar.controller.AuthPermissions.CONNECTION_CONFIG;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigChangesDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigEventDto;
+import org.entando.entandopluginsidecar.exception.NotImplementedException;
+import org.entando.entandopluginsidecar.service.ConnectionConfigChanges;
+import org.entando.entandopluginsidecar.service.ConnectionConfigEvents;
+import org.entando.entandopluginsidecar.service.ConnectionConfigStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+@RestController
+@Api(tags = "Connection Config")
+@RequestMapping("/config")
+public class ConnectionConfigEventController {
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private final ConnectionConfigEvents connectionConfigEvents;
+    private final ConnectionConfigChanges connectionConfigChanges;
+    private final long timeoutMillis;
+    // events come from the watches of the Kubernetes store, other stores have none to send
+    private final boolean supported;
+
+    public ConnectionConfigEventController(ConnectionConfigEvents connectionConfigEvents,
+            ConnectionConfigChanges connectionConfigChanges,
+            @Value("${entando.sidecar.events.timeout-ms:600000}") long timeoutMillis,
+            @Value("${entando.sidecar.store.type:kubernetes}") String storeType) {
+        this.connectionConfigEvents = connectionConfigEvents;
+        this.connectionConfigChanges = connectionConfigChanges;
+        this.timeoutMillis = timeoutMillis;
+        this.supported = ConnectionConfigStore.KUBERNETES.equals(storeType);
+    }
+
+    @Secured(CONNECTION_CONFIG)
+    @ApiOperation(notes = "Get Configs added, edited and deleted since the sequence returned by the previous call, or "
+            + "all of them when those changes are no longer known", nickname = "getConnectionConfigChanges",
+            value = "GET Connection Config changes")
+    @GetMapping(params = {"since", "!watch"})
+    public ConnectionConfigChangesDto getConnectionConfigChanges(@RequestParam long since) {
+        checkSupported();
+        return connectionConfigChanges.getChangesSince(since);
+    }
+
+    @Secured(CONNECTION_CONFIG)
+    @ApiOperation(notes = "Stream Config changes as Server-Sent Events, resuming after the resourceVersion given in "
+            + "Last-Event-ID or resourceVersion", nickname = "watchConnectionConfig", value = "WATCH Connection Config")
+    @GetMapping(params = "watch=true", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter watchConnectionConfig(@RequestParam(required = false) String resourceVersion,
+            @RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+        checkSupported();
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Runnable unsubscribe = connectionConfigEvents.subscribe(lastEventId != null ? lastEventId : resourceVersion,
+                event -> send(emitter, event));
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        return emitter;
+    }
+
+    private void checkSupported() {
+        if (!supported) {
+            throw new NotImplementedException(ConnectionConfigEvents.ERROR_EVENTS_UNSUPPORTED);
+        }
+    }
+
+    private static void send(SseEmitter emitter, ConnectionConfigEventDto event) {
+        SseEventBuilder sseEvent = SseEmitter.event()
+                .name(event.getType().name())
+                .data(event, MediaType.APPLICATION_JSON);
+        if (event.getResourceVersion() != null) {
+            sseEvent.id(event.getResourceVersion());
+        }
+        try {
+            emitter.send(sseEvent);
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.entando.entandopluginsidecar.dto;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ConnectionConfigBatchOperationDto {
+
+    private Operation operation;
+    private String name;
+    private Map<String, String> properties;
+
+    public ConnectionConfigDto toConnectionConfigDto() {
+        return new ConnectionConfigDto(name, properties);
+    }
+
+    public enum Operation {
+        CREATE, EDIT, DELETE
+    }
+}
@@ -0,0 +1,19 @@
+package org.entando.entandopluginsidecar.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchOperationDto.Operation;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ConnectionConfigBatchResultDto {
+
+    private Operation operation;
+    private String name;
+    private int status;
+    private String error;
+}
@@ -0,0 +1,25 @@
+package org.entando.entandopluginsidecar.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ConnectionConfigChangesDto {
+
+    /**
+     * To be sent as {@code since} on the next request.
+     */
+    private long sequence;
+    /**
+     * True when {@link #configs} holds every config and replaces what the client has.
+     */
+    private boolean snapshot;
+    private List<ConnectionConfigDto> configs;
+    private List<String> deleted;
+}
@@ -1,5 +1,7 @@
 package org.entando.entandopluginsidecar.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import java.util.Map;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,5 +15,6 @@ import lombok.NoArgsConstructor;
 public class ConnectionConfigDto {
 
     private String name;
+    @JsonInclude(Include.NON_NULL)
     private Map<String, String> properties;
 }
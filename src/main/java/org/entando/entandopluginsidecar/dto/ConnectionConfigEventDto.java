@@ -0,0 +1,25 @@
+package org.entando.entandopluginsidecar.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ConnectionConfigEventDto {
+
+    private Type type;
+    private String name;
+    private String resourceVersion;
+
+    public enum Type {
+        ADDED, EDITED, DELETED,
+        /**
+         * The changes since the requested resourceVersion are no longer known, configs have to be listed again.
+         */
+        RESYNC
+    }
+}
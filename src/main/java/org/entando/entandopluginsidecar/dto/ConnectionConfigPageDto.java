@@ -0,0 +1,22 @@
+package org.entando.entandopluginsidecar.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ConnectionConfigPageDto {
+
+    private List<ConnectionConfigDto> items;
+    /**
+     * To be sent as {@code continue} to get the next page, null on the last one.
+     */
+    @JsonProperty("continue")
+    private String continueToken;
+}
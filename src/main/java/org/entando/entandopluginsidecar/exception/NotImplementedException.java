@@ -0,0 +1,12 @@
+package org.entando.entandopluginsidecar.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_IMPLEMENTED)
+public class NotImplementedException extends RuntimeException {
+
+    public NotImplementedException(String message) {
+        super(message);
+    }
+}
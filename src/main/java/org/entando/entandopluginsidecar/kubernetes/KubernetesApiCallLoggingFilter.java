@@ -0,0 +1,37 @@
+package org.entando.entandopluginsidecar.kubernetes;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Logs at debug level the Kubernetes API calls made while serving each HTTP request.
+ *
+ * <p>Calls made after an asynchronous response is started, such as event streams and streamed lists, are not
+ * included.
+ */
+@Slf4j
+@Component
+public class KubernetesApiCallLoggingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!log.isDebugEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        KubernetesApiCalls calls = KubernetesApiCalls.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            KubernetesApiCalls.stop();
+            log.debug("{} {} {}: {}", request.getMethod(), request.getRequestURI(), response.getStatus(), calls);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.entando.entandopluginsidecar.kubernetes;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Tally of the Kubernetes API calls made while serving one HTTP request, by verb and resource.
+ *
+ * <p>Calls are added to the tally of the thread making them. Work handed to other threads is only counted when
+ * wrapped with {@link #propagate(Callable)}.
+ */
+public class KubernetesApiCalls {
+
+    private static final ThreadLocal<KubernetesApiCalls> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Integer> counts = new TreeMap<>();
+    private int total;
+    private long nanos;
+
+    /**
+     * Starts a new tally for the current thread, replacing any previous one.
+     */
+    public static KubernetesApiCalls start() {
+        KubernetesApiCalls calls = new KubernetesApiCalls();
+        CURRENT.set(calls);
+        return calls;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Wraps {@code task} so that the calls it makes are added to the tally of the current thread.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        KubernetesApiCalls calls = CURRENT.get();
+        if (calls == null) {
+            return task;
+        }
+        return () -> {
+            KubernetesApiCalls previous = CURRENT.get();
+            CURRENT.set(calls);
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    static void record(String verb, String resource, long nanos) {
+        KubernetesApiCalls calls = CURRENT.get();
+        if (calls != null) {
+            calls.add(verb + " " + resource, nanos);
+        }
+    }
+
+    private synchronized void add(String call, long elapsed) {
+        counts.merge(call, 1, Integer::sum);
+        total++;
+        nanos += elapsed;
+    }
+
+    public synchronized int getTotal() {
+        return total;
+    }
+
+    public synchronized long getTotalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * Returns the number of calls made by verb and resource, such as {@code get secrets}.
+     */
+    public synchronized Map<String, Integer> getCounts() {
+        return new TreeMap<>(counts);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return total + " Kubernetes API calls in " + getTotalMillis() + " ms" + (counts.isEmpty() ? ""
+                : counts.entrySet().stream()
+                        .map(entry -> entry.getKey() + " x" + entry.getValue())
+                        .collect(Collectors.joining(", ", " (", ")")));
+    }
+}
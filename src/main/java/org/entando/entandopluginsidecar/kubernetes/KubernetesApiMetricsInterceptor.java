@@ -0,0 +1,155 @@
+package org.entando.entandopluginsidecar.kubernetes;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Measures every Kubernetes API request made through the client, tagged by verb and resource, and adds it to the
+ * {@link KubernetesApiCalls} of the current thread.
+ *
+ * <p>Latency is measured until the response headers are received, response sizes as the body is read.
+ */
+public class KubernetesApiMetricsInterceptor implements Interceptor {
+
+    public static final String REQUESTS_METRIC = "entando.sidecar.kubernetes.requests";
+    public static final String RESPONSE_SIZE_METRIC = "entando.sidecar.kubernetes.response.size";
+
+    private static final String OTHER = "other";
+    private static final String NAMESPACES = "namespaces";
+
+    private final MeterRegistry meterRegistry;
+
+    public KubernetesApiMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        List<String> segments = request.url().pathSegments();
+        int resourceIndex = resourceIndex(segments);
+        String resource = resourceIndex < 0 ? OTHER : segments.get(resourceIndex);
+        String verb = verbOf(request, resourceIndex >= 0 && segments.size() > resourceIndex + 1);
+
+        long start = System.nanoTime();
+        String status = "IO_ERROR";
+        try {
+            Response response = chain.proceed(request);
+            status = String.valueOf(response.code());
+            return response.code() == 101 ? response : countingBody(response, verb, resource);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Timer.builder(REQUESTS_METRIC)
+                    .description("Kubernetes API requests, until the response headers are received")
+                    .tag("verb", verb)
+                    .tag("resource", resource)
+                    .tag("status", status)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            KubernetesApiCalls.record(verb, resource, elapsed);
+        }
+    }
+
+    // api/v1[/namespaces/ns]/resource[/name] or apis/group/version[/namespaces/ns]/resource[/name]
+    private static int resourceIndex(List<String> segments) {
+        int index;
+        if (segments.size() > 2 && "api".equals(segments.get(0))) {
+            index = 2;
+        } else if (segments.size() > 3 && "apis".equals(segments.get(0))) {
+            index = 3;
+        } else {
+            return -1;
+        }
+        if (NAMESPACES.equals(segments.get(index)) && segments.size() > index + 2) {
+            index += 2;
+        }
+        return index;
+    }
+
+    private static String verbOf(Request request, boolean named) {
+        switch (request.method()) {
+            case "GET":
+                if ("true".equals(request.url().queryParameter("watch"))) {
+                    return "watch";
+                }
+                return named ? "get" : "list";
+            case "POST":
+                return "create";
+            case "PUT":
+                return "update";
+            case "PATCH":
+                return "patch";
+            case "DELETE":
+                return named ? "delete" : "deletecollection";
+            default:
+                return request.method().toLowerCase();
+        }
+    }
+
+    private Response countingBody(Response response, String verb, String resource) {
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        DistributionSummary size = DistributionSummary.builder(RESPONSE_SIZE_METRIC)
+                .description("Size of Kubernetes API response bodies")
+                .baseUnit("bytes")
+                .tag("verb", verb)
+                .tag("resource", resource)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        CountingSource source = new CountingSource(body, size);
+        return response.newBuilder()
+                .body(ResponseBody.create(body.contentType(), body.contentLength(), Okio.buffer(source)))
+                .build();
+    }
+
+    private static class CountingSource extends ForwardingSource {
+
+        private final DistributionSummary size;
+        private long bytes;
+        private boolean recorded;
+
+        CountingSource(ResponseBody body, DistributionSummary size) {
+            super(body.source());
+            this.size = size;
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) throws IOException {
+            long read = super.read(sink, byteCount);
+            if (read < 0) {
+                record();
+            } else {
+                bytes += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            record();
+            super.close();
+        }
+
+        private void record() {
+            if (!recorded) {
+                recorded = true;
+                size.record(bytes);
+            }
+        }
+    }
+}
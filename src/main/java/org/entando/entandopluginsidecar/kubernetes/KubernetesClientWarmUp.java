@@ -0,0 +1,66 @@
+package org.entando.entandopluginsidecar.kubernetes;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.entandopluginsidecar.service.ConnectionConfigStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes requests to the API server on startup so that the first requests to the sidecar don't pay for the TCP and TLS
+ * handshakes. Over HTTP/1.1 each concurrent request opens a connection of its own, so {@code connections} requests are
+ * made at once. With HTTP/2 offered a single request is made, the connection it opens is shared by concurrent requests;
+ * when HTTP/2 is not negotiated after all, the other connections are opened by the first requests that need them.
+ *
+ * <p>It runs while the application context starts, so the web server doesn't accept requests, readiness probes
+ * included, until it is done. It is not a readiness check though: failures are logged and don't prevent the startup,
+ * requests will open connections as needed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = ConnectionConfigStore.TYPE, havingValue = ConnectionConfigStore.KUBERNETES,
+        matchIfMissing = true)
+public class KubernetesClientWarmUp {
+
+    private final KubernetesClient client;
+    private final int connections;
+    private final boolean http2Enabled;
+
+    public KubernetesClientWarmUp(KubernetesClient client,
+            @Value("${entando.sidecar.kubernetes.warm-up-connections:4}") int connections,
+            @Value("${entando.sidecar.kubernetes.http2.enabled:true}") boolean http2Enabled) {
+        this.client = client;
+        this.connections = connections;
+        this.http2Enabled = http2Enabled;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        if (connections <= 0) {
+            return;
+        }
+        int concurrency = http2Enabled ? 1 : connections;
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<CompletableFuture<Void>> requests = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                requests.add(CompletableFuture.runAsync(client::getVersion, executor));
+            }
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).join();
+            log.debug("Warmed up the API server client with {} concurrent requests in {} ms", concurrency,
+                    System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.warn("Unable to warm up connections to the API server", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
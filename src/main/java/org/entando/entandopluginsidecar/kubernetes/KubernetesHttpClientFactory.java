@@ -0,0 +1,75 @@
+package org.entando.entandopluginsidecar.kubernetes;
+
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.utils.HttpClientUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the HTTP client used to talk to the API server, with configurable concurrency, pooling and timeouts.
+ *
+ * <p>The dispatcher limits only apply to asynchronous calls such as watches. Other requests are made on the calling
+ * thread, so their concurrency is bounded by their callers, and the pool decides how many of their connections are
+ * kept for reuse instead of being opened again.
+ */
+@Component
+public class KubernetesHttpClientFactory {
+
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+    private final int maxIdleConnections;
+    private final long keepAliveMillis;
+    private final int connectTimeoutMillis;
+    private final int requestTimeoutMillis;
+    private final boolean http2Enabled;
+
+    public KubernetesHttpClientFactory(
+            @Value("${entando.sidecar.kubernetes.max-requests:64}") int maxRequests,
+            @Value("${entando.sidecar.kubernetes.max-requests-per-host:32}") int maxRequestsPerHost,
+            @Value("${entando.sidecar.kubernetes.pool.max-idle-connections:16}") int maxIdleConnections,
+            @Value("${entando.sidecar.kubernetes.pool.keep-alive-ms:300000}") long keepAliveMillis,
+            @Value("${entando.sidecar.kubernetes.connect-timeout-ms:10000}") int connectTimeoutMillis,
+            @Value("${entando.sidecar.kubernetes.request-timeout-ms:10000}") int requestTimeoutMillis,
+            @Value("${entando.sidecar.kubernetes.http2.enabled:true}") boolean http2Enabled) {
+        this.maxRequests = maxRequests;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.maxIdleConnections = maxIdleConnections;
+        this.keepAliveMillis = keepAliveMillis;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.requestTimeoutMillis = requestTimeoutMillis;
+        this.http2Enabled = http2Enabled;
+    }
+
+    /**
+     * Applies the limits and timeouts to {@code config}, which is then expected to be used with the returned client.
+     */
+    public OkHttpClient create(Config config, MeterRegistry meterRegistry) {
+        config.setMaxConcurrentRequests(maxRequests);
+        config.setMaxConcurrentRequestsPerHost(maxRequestsPerHost);
+        config.setConnectionTimeout(connectTimeoutMillis);
+        config.setRequestTimeout(requestTimeoutMillis);
+        // fabric8 only exposes a built client, whose dispatcher is kept so that no other one is left behind
+        OkHttpClient configured = HttpClientUtils.createHttpClient(config);
+        Dispatcher dispatcher = configured.dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        // its pool is replaced and has never been used, this only makes sure it holds nothing
+        configured.connectionPool().evictAll();
+        // HTTP/2 is only used when negotiated over TLS, which needs a JVM with ALPN support
+        return configured.newBuilder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMillis, TimeUnit.MILLISECONDS))
+                .writeTimeout(requestTimeoutMillis, TimeUnit.MILLISECONDS)
+                .protocols(http2Enabled ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                        : Collections.singletonList(Protocol.HTTP_1_1))
+                .addInterceptor(new KubernetesApiMetricsInterceptor(meterRegistry))
+                .build();
+    }
+}
@@ -0,0 +1,127 @@
+package org.entando.entandopluginsidecar.migration;
+
+import static org.entando.entandopluginsidecar.service.ConnectionConfigService.PLUGIN_LABEL;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.entandopluginsidecar.service.ConfigYamlCompression;
+import org.entando.entandopluginsidecar.service.ConnectionConfigShards;
+import org.entando.entandopluginsidecar.service.ConnectionConfigStore;
+import org.entando.kubernetes.model.plugin.EntandoPlugin;
+import org.entando.kubernetes.model.plugin.EntandoPluginOperationFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the connection configs stored in a Secret each into {@link ConnectionConfigShards shards}, when they are
+ * enabled. Configs are added to the shards before their Secrets are deleted, so a migration that is interrupted is
+ * completed on the next start.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = ConnectionConfigStore.TYPE, havingValue = ConnectionConfigStore.KUBERNETES,
+        matchIfMissing = true)
+public class SecretConsolidationMigration {
+
+    private final KubernetesClient client;
+    private final String entandoPluginName;
+    private final ConnectionConfigShards shards;
+    private final boolean enabled;
+
+    public SecretConsolidationMigration(KubernetesClient client,
+            @Value("${entando.plugin.name}") String entandoPluginName, ConnectionConfigShards shards,
+            @Value("${entando.sidecar.migration.consolidate-secrets.enabled:true}") boolean enabled) {
+        this.client = client;
+        this.entandoPluginName = entandoPluginName;
+        this.shards = shards;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled || !shards.isEnabled()) {
+            return;
+        }
+        try {
+            int migrated = migrate();
+            if (migrated > 0) {
+                log.info("Moved {} connection configs of EntandoPlugin {} to shards", migrated, entandoPluginName);
+            }
+        } catch (KubernetesClientException e) {
+            log.warn("Unable to move connection configs of EntandoPlugin {} to shards", entandoPluginName, e);
+        }
+    }
+
+    public int migrate() {
+        EntandoPlugin entandoPlugin = EntandoPluginOperationFactory.produceAllEntandoPlugins(client)
+                .inNamespace(namespace()).withName(entandoPluginName).get();
+        if (entandoPlugin == null || entandoPlugin.getSpec().getConnectionConfigNames() == null) {
+            return 0;
+        }
+        Map<String, Secret> secrets = new LinkedHashMap<>();
+        client.secrets().inNamespace(namespace())
+                .withLabel(PLUGIN_LABEL, entandoPluginName)
+                .list()
+                .getItems().stream()
+                .filter(secret -> !ConnectionConfigShards.isShard(secret))
+                .forEach(secret -> secrets.put(secret.getMetadata().getName(), secret));
+        // Secrets that were not labeled
+        for (String name : entandoPlugin.getSpec().getConnectionConfigNames()) {
+            if (!secrets.containsKey(name)) {
+                Secret secret = client.secrets().inNamespace(namespace()).withName(name).get();
+                if (secret != null) {
+                    secrets.put(name, secret);
+                }
+            }
+        }
+        Map<String, String> configYamls = new LinkedHashMap<>();
+        secrets.forEach((name, secret) -> {
+            String configYaml = ConfigYamlCompression.configYaml(secret);
+            if (configYaml != null) {
+                configYamls.put(name, configYaml);
+            }
+        });
+        if (configYamls.isEmpty()) {
+            return 0;
+        }
+        shards.addAll(configYamls);
+
+        Map<String, String> stored = new HashMap<>();
+        shards.listShards().forEach(shard -> {
+            if (shard.getData() != null) {
+                stored.putAll(shard.getData());
+            }
+        });
+        int migrated = 0;
+        for (String name : configYamls.keySet()) {
+            if (stored.containsKey(name)) {
+                moved(name, ConfigYamlCompression.decode(stored.get(name),
+                        ConfigYamlCompression.isCompressed(stored.get(name))));
+                migrated++;
+            }
+        }
+        return migrated;
+    }
+
+    // a change made to the Secret after it was copied, or before an interrupted migration, is carried over
+    private void moved(String name, String storedYaml) {
+        Secret secret = client.secrets().inNamespace(namespace()).withName(name).get();
+        String configYaml = secret == null ? null : ConfigYamlCompression.configYaml(secret);
+        if (configYaml != null && !configYaml.equals(storedYaml)) {
+            shards.replace(name, configYaml);
+        }
+        client.secrets().inNamespace(namespace()).withName(name).delete();
+    }
+
+    private String namespace() {
+        return client.getConfiguration().getNamespace();
+    }
+}
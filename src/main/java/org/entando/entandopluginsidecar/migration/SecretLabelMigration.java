@@ -0,0 +1,92 @@
+package org.entando.entandopluginsidecar.migration;
+
+import static org.entando.entandopluginsidecar.service.ConnectionConfigService.PLUGIN_LABEL;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.entandopluginsidecar.service.ConnectionConfigStore;
+import org.entando.kubernetes.model.plugin.EntandoPlugin;
+import org.entando.kubernetes.model.plugin.EntandoPluginOperationFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Labels the connection config Secrets created before {@link
+ * org.entando.entandopluginsidecar.service.ConnectionConfigService#PLUGIN_LABEL} was introduced, so they can be
+ * listed with a single label selector call.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = ConnectionConfigStore.TYPE, havingValue = ConnectionConfigStore.KUBERNETES,
+        matchIfMissing = true)
+public class SecretLabelMigration {
+
+    private final KubernetesClient client;
+    private final String entandoPluginName;
+    private final boolean enabled;
+
+    public SecretLabelMigration(KubernetesClient client,
+            @Value("${entando.plugin.name}") String entandoPluginName,
+            @Value("${entando.sidecar.migration.label-secrets.enabled:true}") boolean enabled) {
+        this.client = client;
+        this.entandoPluginName = entandoPluginName;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int migrated = migrate();
+            if (migrated > 0) {
+                log.info("Labeled {} connection config Secrets of EntandoPlugin {}", migrated, entandoPluginName);
+            }
+        } catch (KubernetesClientException e) {
+            log.warn("Unable to label connection config Secrets of EntandoPlugin {}", entandoPluginName, e);
+        }
+    }
+
+    public int migrate() {
+        EntandoPlugin entandoPlugin = EntandoPluginOperationFactory.produceAllEntandoPlugins(client)
+                .inNamespace(namespace()).withName(entandoPluginName).get();
+        if (entandoPlugin == null || entandoPlugin.getSpec().getConnectionConfigNames() == null) {
+            return 0;
+        }
+        Set<String> labeled = client.secrets().inNamespace(namespace())
+                .withLabel(PLUGIN_LABEL, entandoPluginName)
+                .list()
+                .getItems().stream()
+                .map(secret -> secret.getMetadata().getName())
+                .collect(Collectors.toSet());
+        List<String> unlabeled = entandoPlugin.getSpec().getConnectionConfigNames().stream()
+                .filter(name -> !labeled.contains(name))
+                .collect(Collectors.toList());
+
+        int migrated = 0;
+        for (String name : unlabeled) {
+            Secret secret = client.secrets().inNamespace(namespace()).withName(name).get();
+            if (secret != null) {
+                client.secrets().inNamespace(namespace()).withName(name).replace(new SecretBuilder(secret)
+                        .editMetadata().addToLabels(PLUGIN_LABEL, entandoPluginName).endMetadata()
+                        .build());
+                migrated++;
+            }
+        }
+        return migrated;
+    }
+
+    private String namespace() {
+        return client.getConfiguration().getNamespace();
+    }
+}
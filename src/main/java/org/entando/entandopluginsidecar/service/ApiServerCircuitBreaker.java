@@ -0,0 +1,156 @@
+package org.entando.entandopluginsidecar.service;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.entandopluginsidecar.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stops calling the API server after {@code failureThreshold} consecutive failed or slow calls, failing calls
+ * immediately with 503 for {@code openMillis}. A single call is then let through, closing the breaker again when it
+ * succeeds in time.
+ *
+ * <p>Server errors, throttling, connection failures and timeouts are failures. Other errors, such as a missing
+ * resource or a conflict, are answers from a working API server.
+ */
+@Slf4j
+@Component
+public class ApiServerCircuitBreaker {
+
+    public static final String ERROR_API_SERVER_UNAVAILABLE = "org.entando.error.apiServer.unavailable";
+    public static final String STATE_METRIC = "entando.sidecar.kubernetes.circuit.state";
+    public static final String REJECTED_METRIC = "entando.sidecar.kubernetes.circuit.rejected";
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVER_ERROR = 500;
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final long slowCallNanos;
+    private final LongSupplier clock;
+    private final Counter rejected;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean probing;
+
+    @Autowired
+    public ApiServerCircuitBreaker(MeterRegistry meterRegistry,
+            @Value("${entando.sidecar.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${entando.sidecar.circuit-breaker.open-ms:30000}") long openMillis,
+            @Value("${entando.sidecar.circuit-breaker.slow-call-ms:5000}") long slowCallMillis) {
+        this(meterRegistry, failureThreshold, openMillis, slowCallMillis, System::currentTimeMillis);
+    }
+
+    ApiServerCircuitBreaker(MeterRegistry meterRegistry, int failureThreshold, long openMillis, long slowCallMillis,
+            LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+        this.clock = clock;
+        Gauge.builder(STATE_METRIC, this, breaker -> breaker.getState().ordinal())
+                .description("State of the API server circuit breaker: 0 closed, 1 open, 2 half open")
+                .register(meterRegistry);
+        this.rejected = Counter.builder(REJECTED_METRIC)
+                .description("Kubernetes API calls failed without being made while the circuit breaker was open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Never opens.
+     */
+    public static ApiServerCircuitBreaker disabled() {
+        return new ApiServerCircuitBreaker(new SimpleMeterRegistry(), 0, 0, 0);
+    }
+
+    /**
+     * Tells whether {@code e} means that the API server could not answer, as opposed to an answer such as not found.
+     */
+    public static boolean isFailure(RuntimeException e) {
+        if (e instanceof ServiceUnavailableException) {
+            return true;
+        }
+        if (e instanceof KubernetesClientException) {
+            int code = ((KubernetesClientException) e).getCode();
+            return code == 0 || code == TOO_MANY_REQUESTS || code >= SERVER_ERROR;
+        }
+        return false;
+    }
+
+    public <T> T call(Supplier<T> call) {
+        if (failureThreshold <= 0) {
+            return call.get();
+        }
+        boolean probe = acquire();
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            completed(probe, System.nanoTime() - start <= slowCallNanos);
+            return result;
+        } catch (RuntimeException e) {
+            completed(probe, !isFailure(e));
+            throw e;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private synchronized boolean acquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            probing = false;
+        }
+        if (state == State.CLOSED) {
+            return false;
+        }
+        if (state == State.HALF_OPEN && !probing) {
+            probing = true;
+            return true;
+        }
+        rejected.increment();
+        throw new ServiceUnavailableException(ERROR_API_SERVER_UNAVAILABLE);
+    }
+
+    // outcomes of calls made before the breaker opened don't close it
+    private synchronized void completed(boolean probe, boolean succeeded) {
+        if (probe) {
+            probing = false;
+            if (succeeded) {
+                log.info("Kubernetes API server is available again, closing the circuit breaker");
+                state = State.CLOSED;
+                failures = 0;
+            } else {
+                open();
+            }
+        } else if (state == State.CLOSED) {
+            failures = succeeded ? 0 : failures + 1;
+            if (failures >= failureThreshold) {
+                log.warn("{} consecutive Kubernetes API calls failed, opening the circuit breaker for {} ms",
+                        failures, openMillis);
+                open();
+            }
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+        failures = 0;
+    }
+}
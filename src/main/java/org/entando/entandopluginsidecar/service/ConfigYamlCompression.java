@@ -0,0 +1,133 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.entando.entandopluginsidecar.service.ConnectionConfigService.CONFIG_YAML;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.Secret;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Gzips the config YAML stored in a Secret when it is larger than {@code thresholdBytes}, and marks the Secret with
+ * the {@link #ENCODING_ANNOTATION} annotation so that it is decompressed when read. Within a {@link
+ * ConnectionConfigShards shard}, which holds several configs, compressed values are recognized by their gzip header
+ * instead, and the Secrets it is expanded to carry the annotation.
+ */
+@Component
+public class ConfigYamlCompression {
+
+    public static final String ENCODING_ANNOTATION = "entando.org/config-encoding";
+    public static final String GZIP = "gzip";
+
+    // how Base64 starts the gzip header, which YAML text never does
+    private static final String GZIP_BASE64_PREFIX = "H4sI";
+
+    private final int thresholdBytes;
+
+    public ConfigYamlCompression(@Value("${entando.sidecar.compression.threshold-bytes:0}") int thresholdBytes) {
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    public static ConfigYamlCompression disabled() {
+        return new ConfigYamlCompression(0);
+    }
+
+    /**
+     * Returns the Base64 {@code data} value storing {@code configYaml}, compressed when above the threshold.
+     */
+    public String encode(String configYaml) {
+        byte[] bytes = configYaml.getBytes(StandardCharsets.UTF_8);
+        return Base64.getEncoder().encodeToString(shouldCompress(bytes) ? gzip(bytes) : bytes);
+    }
+
+    /**
+     * Stores {@code configYaml} in {@code secret}, as compressed {@code data} when above the threshold, as plain
+     * {@code stringData} otherwise.
+     */
+    public void store(Secret secret, String configYaml) {
+        if (secret.getMetadata() == null) {
+            secret.setMetadata(new ObjectMeta());
+        }
+        Map<String, String> annotations = secret.getMetadata().getAnnotations() == null ? new HashMap<>()
+                : new HashMap<>(secret.getMetadata().getAnnotations());
+        byte[] bytes = configYaml.getBytes(StandardCharsets.UTF_8);
+        if (shouldCompress(bytes)) {
+            Map<String, String> data = secret.getData() == null ? new HashMap<>() : new HashMap<>(secret.getData());
+            data.put(CONFIG_YAML, Base64.getEncoder().encodeToString(gzip(bytes)));
+            secret.setData(data);
+            secret.setStringData(null);
+            annotations.put(ENCODING_ANNOTATION, GZIP);
+        } else {
+            secret.setStringData(Collections.singletonMap(CONFIG_YAML, configYaml));
+            annotations.remove(ENCODING_ANNOTATION);
+        }
+        secret.getMetadata().setAnnotations(annotations.isEmpty() ? null : annotations);
+    }
+
+    /**
+     * Returns the config YAML of a Secret, decompressed when marked as such, or null when it has none.
+     */
+    public static String configYaml(Secret secret) {
+        if (secret.getStringData() != null && secret.getStringData().get(CONFIG_YAML) != null) {
+            return secret.getStringData().get(CONFIG_YAML);
+        }
+        if (secret.getData() != null && secret.getData().get(CONFIG_YAML) != null) {
+            return decode(secret.getData().get(CONFIG_YAML), isCompressed(secret));
+        }
+        return null;
+    }
+
+    /**
+     * Decodes a Base64 {@code data} value, decompressing it when {@code compressed}.
+     */
+    public static String decode(String encoded, boolean compressed) {
+        byte[] bytes = Base64.getDecoder().decode(encoded);
+        return new String(compressed ? gunzip(bytes) : bytes, StandardCharsets.UTF_8);
+    }
+
+    public static boolean isCompressed(Secret secret) {
+        Map<String, String> annotations = secret.getMetadata().getAnnotations();
+        return annotations != null && GZIP.equals(annotations.get(ENCODING_ANNOTATION));
+    }
+
+    /**
+     * Tells whether a Base64 {@code data} value of a shard is compressed.
+     */
+    public static boolean isCompressed(String encoded) {
+        return encoded != null && encoded.startsWith(GZIP_BASE64_PREFIX);
+    }
+
+    private boolean shouldCompress(byte[] bytes) {
+        return thresholdBytes > 0 && bytes.length > thresholdBytes;
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] bytes) {
+        try (GZIPInputStream gunzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return StreamUtils.copyToByteArray(gunzip);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.entando.entandopluginsidecar.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchOperationDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchResultDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigPageDto;
+import org.entando.entandopluginsidecar.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs {@link ConnectionConfigStore} operations on a bounded pool of I/O threads, so that request threads are
+ * released while the calls to the store, such as Kubernetes API calls, are in flight.
+ *
+ * <p>Reads answered by a synced cache complete on the calling thread. Concurrent reads of the same config, or of the
+ * same list, share the one in flight without holding a thread each. When the pool and its queue are full, operations
+ * fail with 503.
+ */
+@Service
+@ConditionalOnProperty(name = ConnectionConfigAsyncService.ENABLED, havingValue = "true")
+public class ConnectionConfigAsyncService {
+
+    public static final String ENABLED = "entando.sidecar.async.enabled";
+    public static final String ERROR_BUSY = "org.entando.error.async.busy";
+
+    private static final String ALL_FIELDS = "*";
+
+    private final ConnectionConfigStore connectionConfigStore;
+    private final ConnectionConfigCache cache;
+    private final ExecutorService executor;
+    private final SingleFlight<String, Versioned<ConnectionConfigDto>> gets = new SingleFlight<>();
+    private final SingleFlight<String, Versioned<List<ConnectionConfigDto>>> lists = new SingleFlight<>();
+
+    public ConnectionConfigAsyncService(ConnectionConfigStore connectionConfigStore, ConnectionConfigCache cache,
+            MeterRegistry meterRegistry,
+            @Value("${entando.sidecar.async.io-threads:32}") int ioThreads,
+            @Value("${entando.sidecar.async.queue-capacity:1000}") int queueCapacity) {
+        this.connectionConfigStore = connectionConfigStore;
+        this.cache = cache;
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(ioThreads, ioThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), daemonThreadFactory());
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "connectionConfigIo",
+                Collections.emptyList());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public CompletableFuture<Void> addConnectionConfig(ConnectionConfigDto connectionConfigDto) {
+        return write(connectionConfigDto.getName(), () -> {
+            connectionConfigStore.addConnectionConfig(connectionConfigDto);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Versioned<ConnectionConfigDto>> getVersionedConnectionConfig(String name) {
+        if (cache.isSynced()) {
+            return inline(() -> connectionConfigStore.getVersionedConnectionConfig(name));
+        }
+        return coalesced(gets, name, () -> connectionConfigStore.getVersionedConnectionConfig(name));
+    }
+
+    /**
+     * Lists the configs with the given fields, all of them when {@code fields} is null.
+     */
+    public CompletableFuture<Versioned<List<ConnectionConfigDto>>> getAllVersionedConnectionConfig(
+            List<String> fields) {
+        ConnectionConfigProjection projection = fields == null ? ConnectionConfigProjection.ALL
+                : ConnectionConfigProjection.of(fields);
+        Supplier<Versioned<List<ConnectionConfigDto>>> read =
+                () -> connectionConfigStore.getAllVersionedConnectionConfig(projection);
+        if (cache.isSynced()) {
+            return inline(read);
+        }
+        return coalesced(lists, fields == null ? ALL_FIELDS : String.join(",", fields), read);
+    }
+
+    public CompletableFuture<ConnectionConfigPageDto> getConnectionConfigPage(int limit, String continueToken) {
+        if (cache.isSynced()) {
+            return inline(() -> connectionConfigStore.getConnectionConfigPage(limit, continueToken));
+        }
+        return async(() -> connectionConfigStore.getConnectionConfigPage(limit, continueToken));
+    }
+
+    public CompletableFuture<ConnectionConfigDto> editConnectionConfig(ConnectionConfigDto configDto) {
+        return write(configDto.getName(), () -> connectionConfigStore.editConnectionConfig(configDto));
+    }
+
+    public CompletableFuture<Void> removeConnectionConfig(String configName) {
+        return write(configName, () -> {
+            connectionConfigStore.removeConnectionConfig(configName);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<ConnectionConfigBatchResultDto>> applyBatch(
+            List<ConnectionConfigBatchOperationDto> operations) {
+        return async(() -> {
+            try {
+                return connectionConfigStore.applyBatch(operations);
+            } finally {
+                operations.forEach(operation -> gets.forget(operation.getName()));
+                lists.clear();
+            }
+        });
+    }
+
+    // reads starting after a write don't share the ones started before it
+    private <T> CompletableFuture<T> write(String configName, Supplier<T> operation) {
+        return async(() -> {
+            try {
+                return operation.get();
+            } finally {
+                gets.forget(configName);
+                lists.clear();
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> coalesced(SingleFlight<String, T> reads, String key, Supplier<T> read) {
+        try {
+            return reads.executeAsync(key, read, executor);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException(ERROR_BUSY, e);
+        }
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<T> operation) {
+        try {
+            return CompletableFuture.supplyAsync(operation, executor);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException(ERROR_BUSY, e);
+        }
+    }
+
+    private static <T> CompletableFuture<T> inline(Supplier<T> read) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            result.complete(read.get());
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "connection-config-io-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
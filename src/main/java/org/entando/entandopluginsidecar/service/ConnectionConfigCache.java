@@ -0,0 +1,457 @@
+package org.entando.entandopluginsidecar.service;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.api.model.SecretList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.entando.kubernetes.model.plugin.EntandoPlugin;
+import org.entando.kubernetes.model.plugin.EntandoPluginList;
+import org.entando.kubernetes.model.plugin.EntandoPluginOperationFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps a local copy of the EntandoPlugin and of the Secrets labeled as its connection configs, fed by list + watch.
+ *
+ * <p>Reads are only served from memory while both watches are established. Until then, and after a watch
+ * is lost, {@link #isSynced()} returns false and callers are expected to go to the API server.
+ *
+ * <p>{@link Listener Listeners} see what the API server lists and sends through the watches, not the local
+ * {@code update} calls.
+ *
+ * <p>Watch events come in the order of the writes that caused them, from the resourceVersion of the list on, and are
+ * applied as they come. Only the writes made through {@code update} may be newer than them: until the watch catches up
+ * with such a write, events are applied when their resourceVersion is not older than its, which is a hint only as
+ * resourceVersions are opaque, so events are applied when either isn't a number.
+ *
+ * <p>{@link ConnectionConfigShards Shards} are kept as the Secrets of the configs they store, and a config keeps its
+ * Secret while its data is unchanged, so that writing a config of a shard doesn't look like a change of the others.
+ */
+@Slf4j
+@Component
+public class ConnectionConfigCache {
+
+    private static final String METADATA_NAME = "metadata.name";
+
+    private final KubernetesClient client;
+    private final String entandoPluginName;
+    private final boolean enabled;
+    private final long resyncDelayMillis;
+
+    private final AtomicReference<EntandoPlugin> entandoPlugin = new AtomicReference<>();
+    private final Map<String, Secret> secrets = new ConcurrentHashMap<>();
+    // the resourceVersions of the writes made through update, until the watches catch up with them
+    private final Map<String, String> secretUpdates = new ConcurrentHashMap<>();
+    private volatile String pluginUpdate;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+    private Watch pluginWatch;
+    private Watch secretWatch;
+    private volatile boolean pluginSynced;
+    private volatile boolean secretsSynced;
+    private volatile boolean stopped;
+
+    public ConnectionConfigCache(KubernetesClient client,
+            @Value("${entando.plugin.name}") String entandoPluginName,
+            // only the Kubernetes store reads from the cache
+            @Value("#{'${entando.sidecar.store.type:kubernetes}' == 'kubernetes'"
+                    + " and ${entando.sidecar.cache.enabled:true}}") boolean enabled,
+            @Value("${entando.sidecar.cache.resync-delay-ms:5000}") long resyncDelayMillis) {
+        this.client = client;
+        this.entandoPluginName = entandoPluginName;
+        this.enabled = enabled;
+        this.resyncDelayMillis = resyncDelayMillis;
+    }
+
+    public static ConnectionConfigCache disabled() {
+        return new ConnectionConfigCache(null, null, false, 0);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        stopped = false;
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-config-cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::syncEntandoPlugin);
+        scheduler.execute(this::syncSecrets);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        stopped = true;
+        pluginSynced = false;
+        secretsSynced = false;
+        closeQuietly(pluginWatch);
+        closeQuietly(secretWatch);
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Registers a listener, first giving it the current state when already synced.
+     */
+    public synchronized void addListener(Listener listener) {
+        listeners.add(listener);
+        if (pluginSynced) {
+            EntandoPlugin current = entandoPlugin.get();
+            listener.entandoPluginChanged(current, current == null ? null : current.getMetadata().getResourceVersion());
+        }
+        if (secretsSynced) {
+            listener.secretsListed(new ArrayList<>(secrets.values()), null);
+        }
+    }
+
+    public boolean isSynced() {
+        return pluginSynced && secretsSynced;
+    }
+
+    public EntandoPlugin getEntandoPlugin() {
+        return entandoPlugin.get();
+    }
+
+    public Secret getSecret(String name) {
+        return secrets.get(name);
+    }
+
+    public void update(EntandoPlugin plugin) {
+        if (enabled && plugin != null) {
+            synchronized (this) {
+                if (isNewer(plugin, entandoPlugin.get())) {
+                    entandoPlugin.set(plugin);
+                    pluginUpdate = plugin.getMetadata().getResourceVersion();
+                }
+            }
+        }
+    }
+
+    public void update(Secret secret) {
+        if (enabled && secret != null && ConnectionConfigShards.isShard(secret)) {
+            synchronized (this) {
+                if (configsOf(secret).values().stream().allMatch(config -> isNewer(secret, config))) {
+                    secretUpdates.put(secret.getMetadata().getName(), secret.getMetadata().getResourceVersion());
+                    shardChanged(secret, false);
+                }
+            }
+        } else if (enabled && secret != null) {
+            synchronized (this) {
+                String name = secret.getMetadata().getName();
+                if (isNewer(secret, secrets.get(name))) {
+                    secretUpdates.put(name, secret.getMetadata().getResourceVersion());
+                    secrets.put(name, secret);
+                }
+            }
+        }
+    }
+
+    public void remove(String secretName) {
+        if (enabled) {
+            secrets.remove(secretName);
+        }
+    }
+
+    private synchronized void syncEntandoPlugin() {
+        if (stopped) {
+            return;
+        }
+        pluginSynced = false;
+        closeQuietly(pluginWatch);
+        try {
+            EntandoPluginList list = EntandoPluginOperationFactory.produceAllEntandoPlugins(client)
+                    .inNamespace(namespace())
+                    .withField(METADATA_NAME, entandoPluginName)
+                    .list();
+            entandoPlugin.set(list.getItems().isEmpty() ? null : list.getItems().get(0));
+            pluginUpdate = null;
+            notifyListeners(listener -> listener.entandoPluginChanged(entandoPlugin.get(),
+                    list.getMetadata().getResourceVersion()));
+            // field selectors are not honoured by the client on custom resource watches, events are filtered instead
+            pluginWatch = EntandoPluginOperationFactory.produceAllEntandoPlugins(client)
+                    .inNamespace(namespace())
+                    .watch(list.getMetadata().getResourceVersion(), new EntandoPluginWatcher());
+            pluginSynced = true;
+            log.debug("EntandoPlugin {} cache synced", entandoPluginName);
+        } catch (KubernetesClientException e) {
+            log.warn("Unable to sync EntandoPlugin {} cache, retrying in {} ms", entandoPluginName,
+                    resyncDelayMillis, e);
+            scheduleResync(this::syncEntandoPlugin);
+        }
+    }
+
+    private synchronized void syncSecrets() {
+        if (stopped) {
+            return;
+        }
+        secretsSynced = false;
+        closeQuietly(secretWatch);
+        try {
+            SecretList list = client.secrets().inNamespace(namespace())
+                    .withLabel(ConnectionConfigService.PLUGIN_LABEL, entandoPluginName)
+                    .list();
+            Map<String, Secret> listed = new HashMap<>();
+            list.getItems().forEach(secret -> ConnectionConfigShards.expand(secret).forEach(config -> {
+                Secret current = secrets.get(config.getMetadata().getName());
+                listed.merge(config.getMetadata().getName(), isUnchanged(current, config) ? current : config,
+                        ConnectionConfigCache::preferShard);
+            }));
+            secrets.clear();
+            secrets.putAll(listed);
+            secretUpdates.clear();
+            notifyListeners(listener -> listener.secretsListed(new ArrayList<>(listed.values()),
+                    list.getMetadata().getResourceVersion()));
+            secretWatch = client.secrets().inNamespace(namespace())
+                    .withLabel(ConnectionConfigService.PLUGIN_LABEL, entandoPluginName)
+                    .watch(list.getMetadata().getResourceVersion(), new SecretWatcher());
+            secretsSynced = true;
+            log.debug("Secret cache synced with {} entries", secrets.size());
+        } catch (KubernetesClientException e) {
+            log.warn("Unable to sync Secret cache, retrying in {} ms", resyncDelayMillis, e);
+            scheduleResync(this::syncSecrets);
+        }
+    }
+
+    private synchronized void pluginEventReceived(EntandoPlugin plugin, boolean deleted) {
+        if (pluginUpdate == null || isNewer(plugin.getMetadata().getResourceVersion(), pluginUpdate)) {
+            pluginUpdate = null;
+            entandoPlugin.set(deleted ? null : plugin);
+        }
+    }
+
+    private synchronized void secretEventReceived(Secret secret) {
+        if (isAfterUpdate(secret)) {
+            secrets.put(secret.getMetadata().getName(), secret);
+        }
+    }
+
+    // a Secret deleted once its config was moved to a shard, or written again since, is kept
+    private synchronized boolean secretDeleted(Secret secret) {
+        Secret current = secrets.get(secret.getMetadata().getName());
+        if (current != null && (ConnectionConfigShards.shardOf(current) != null || !isAfterUpdate(secret))) {
+            return false;
+        }
+        secrets.remove(secret.getMetadata().getName());
+        return true;
+    }
+
+    // an event older than a shard written since through update is left to the events that follow it
+    private synchronized void shardEventReceived(Secret shard) {
+        if (isAfterUpdate(shard)) {
+            shardChanged(shard, true);
+        }
+    }
+
+    private boolean isAfterUpdate(Secret secret) {
+        String name = secret.getMetadata().getName();
+        String update = secretUpdates.get(name);
+        if (update != null && !isNewer(secret.getMetadata().getResourceVersion(), update)) {
+            return false;
+        }
+        secretUpdates.remove(name);
+        return true;
+    }
+
+    // the configs no longer in the shard are removed, as if their Secrets had been deleted
+    private synchronized void shardChanged(Secret shard, boolean notify) {
+        Map<String, Secret> removed = configsOf(shard);
+        for (Secret config : ConnectionConfigShards.expand(shard)) {
+            String name = config.getMetadata().getName();
+            if (!isUnchanged(removed.remove(name), config)) {
+                secrets.put(name, config);
+                if (notify) {
+                    notifyListeners(listener -> listener.secretChanged(config));
+                }
+            }
+        }
+        removed.forEach((name, config) -> {
+            secrets.remove(name);
+            if (notify) {
+                Secret deleted = new SecretBuilder(config).editMetadata()
+                        .withResourceVersion(shard.getMetadata().getResourceVersion())
+                        .endMetadata()
+                        .build();
+                notifyListeners(listener -> listener.secretDeleted(deleted));
+            }
+        });
+    }
+
+    private Map<String, Secret> configsOf(Secret shard) {
+        Map<String, Secret> configs = new HashMap<>();
+        secrets.forEach((name, config) -> {
+            if (shard.getMetadata().getName().equals(ConnectionConfigShards.shardOf(config))) {
+                configs.put(name, config);
+            }
+        });
+        return configs;
+    }
+
+    // a config is moved to a shard before its Secret is deleted
+    private static Secret preferShard(Secret listed, Secret other) {
+        return ConnectionConfigShards.shardOf(listed) != null ? listed : other;
+    }
+
+    // only configs of a shard, a Secret of its own has a resourceVersion of its own
+    private static boolean isUnchanged(Secret current, Secret config) {
+        String shard = ConnectionConfigShards.shardOf(config);
+        return current != null && shard != null && shard.equals(ConnectionConfigShards.shardOf(current))
+                && Objects.equals(current.getData(), config.getData());
+    }
+
+    private void scheduleResync(Runnable sync) {
+        if (!stopped && !scheduler.isShutdown()) {
+            scheduler.schedule(sync, resyncDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private String namespace() {
+        return client.getConfiguration().getNamespace();
+    }
+
+    private static boolean isNewer(HasMetadata candidate, HasMetadata current) {
+        return current == null
+                || isNewer(candidate.getMetadata().getResourceVersion(), current.getMetadata().getResourceVersion());
+    }
+
+    // resourceVersions are opaque, they are only compared when both are numbers
+    private static boolean isNewer(String candidateVersion, String currentVersion) {
+        if (NumberUtils.isDigits(candidateVersion) && NumberUtils.isDigits(currentVersion)) {
+            return Long.parseLong(candidateVersion) >= Long.parseLong(currentVersion);
+        }
+        return true;
+    }
+
+    private void notifyListeners(Consumer<Listener> notification) {
+        for (Listener listener : listeners) {
+            try {
+                notification.accept(listener);
+            } catch (RuntimeException e) {
+                log.warn("Connection config cache listener failed", e);
+            }
+        }
+    }
+
+    private static void closeQuietly(Watch watch) {
+        if (watch != null) {
+            watch.close();
+        }
+    }
+
+    private class EntandoPluginWatcher implements Watcher<EntandoPlugin> {
+
+        @Override
+        public void eventReceived(Action action, EntandoPlugin resource) {
+            if (action != Action.ERROR && !entandoPluginName.equals(resource.getMetadata().getName())) {
+                return;
+            }
+            if (action == Action.DELETED) {
+                pluginEventReceived(resource, true);
+                notifyListeners(listener -> listener.entandoPluginChanged(null,
+                        resource.getMetadata().getResourceVersion()));
+            } else if (action == Action.ERROR) {
+                pluginSynced = false;
+                scheduleResync(ConnectionConfigCache.this::syncEntandoPlugin);
+            } else {
+                pluginEventReceived(resource, false);
+                notifyListeners(listener -> listener.entandoPluginChanged(resource,
+                        resource.getMetadata().getResourceVersion()));
+            }
+        }
+
+        @Override
+        public void onClose(KubernetesClientException cause) {
+            if (cause != null) {
+                log.warn("EntandoPlugin watch closed, resyncing", cause);
+                pluginSynced = false;
+                scheduleResync(ConnectionConfigCache.this::syncEntandoPlugin);
+            }
+        }
+    }
+
+    private class SecretWatcher implements Watcher<Secret> {
+
+        @Override
+        public void eventReceived(Action action, Secret resource) {
+            if (ConnectionConfigShards.isShard(resource) && action != Action.ERROR) {
+                if (action == Action.DELETED) {
+                    resource.setData(null);
+                }
+                shardEventReceived(resource);
+            } else if (action == Action.DELETED) {
+                if (secretDeleted(resource)) {
+                    notifyListeners(listener -> listener.secretDeleted(resource));
+                }
+            } else if (action == Action.ERROR) {
+                secretsSynced = false;
+                scheduleResync(ConnectionConfigCache.this::syncSecrets);
+            } else {
+                secretEventReceived(resource);
+                notifyListeners(listener -> listener.secretChanged(resource));
+            }
+        }
+
+        @Override
+        public void onClose(KubernetesClientException cause) {
+            if (cause != null) {
+                log.warn("Secret watch closed, resyncing", cause);
+                secretsSynced = false;
+                scheduleResync(ConnectionConfigCache.this::syncSecrets);
+            }
+        }
+    }
+
+    /**
+     * Notified from the cache and watch threads, so implementations must be thread safe and return quickly.
+     */
+    public interface Listener {
+
+        /**
+         * Called on every list and watch event of the EntandoPlugin.
+         *
+         * @param entandoPlugin the listed or watched EntandoPlugin, null when it doesn't exist
+         * @param resourceVersion the resourceVersion of the list or of the watch event
+         */
+        void entandoPluginChanged(EntandoPlugin entandoPlugin, String resourceVersion);
+
+        /**
+         * Called on every list, which replaces all the Secrets seen so far.
+         *
+         * @param resourceVersion the resourceVersion of the list, null when unknown
+         */
+        void secretsListed(Collection<Secret> secrets, String resourceVersion);
+
+        void secretChanged(Secret secret);
+
+        void secretDeleted(Secret secret);
+    }
+}
@@ -0,0 +1,74 @@
+package org.entando.entandopluginsidecar.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigChangesDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigEventDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigEventDto.Type;
+import org.entando.web.exception.NotFoundException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers delta syncs from the events kept by {@link ConnectionConfigEvents}, reading only the configs changed since
+ * the client's last sync. Falls back to a snapshot of every config when those changes are not all known.
+ */
+@Service
+@RequiredArgsConstructor
+public class ConnectionConfigChanges {
+
+    private final ConnectionConfigEvents connectionConfigEvents;
+    private final ConnectionConfigStore connectionConfigStore;
+
+    public ConnectionConfigChangesDto getChangesSince(long since) {
+        List<ConnectionConfigEventDto> events = connectionConfigEvents.getEventsSince(since);
+        if (events == null) {
+            return getSnapshot();
+        }
+
+        // only the latest state of each config matters
+        Map<String, Type> changes = new LinkedHashMap<>();
+        events.forEach(event -> {
+            changes.remove(event.getName());
+            changes.put(event.getName(), event.getType());
+        });
+        List<ConnectionConfigDto> configs = new ArrayList<>();
+        List<String> deleted = new ArrayList<>();
+        changes.forEach((name, type) -> {
+            ConnectionConfigDto config = type == Type.DELETED ? null : readConnectionConfig(name);
+            if (config == null) {
+                deleted.add(name);
+            } else {
+                configs.add(config);
+            }
+        });
+        return ConnectionConfigChangesDto.builder()
+                .sequence(since + events.size())
+                .configs(configs)
+                .deleted(deleted)
+                .build();
+    }
+
+    private ConnectionConfigChangesDto getSnapshot() {
+        // read first, changes made while listing are then sent again on the next sync
+        long sequence = connectionConfigEvents.getSequence();
+        return ConnectionConfigChangesDto.builder()
+                .sequence(sequence)
+                .snapshot(true)
+                .configs(connectionConfigStore.getAllConnectionConfig())
+                .deleted(new ArrayList<>())
+                .build();
+    }
+
+    // deleted after the event, its DELETED event comes next
+    private ConnectionConfigDto readConnectionConfig(String name) {
+        try {
+            return connectionConfigStore.getConnectionConfig(name);
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+}
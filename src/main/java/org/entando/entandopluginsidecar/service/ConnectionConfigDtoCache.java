@@ -0,0 +1,51 @@
+package org.entando.entandopluginsidecar.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.HashMap;
+import java.util.function.Function;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Parsed connection configs keyed by Secret name and {@link ConnectionConfigShards#versionOf version}, so unchanged
+ * Secrets, and unchanged configs of a shard written since, are not decoded again.
+ */
+@Component
+public class ConnectionConfigDtoCache {
+
+    public static final String CACHE_NAME = "connectionConfigDto";
+
+    private final Cache<String, ConnectionConfigDto> cache;
+
+    public ConnectionConfigDtoCache(@Value("${entando.sidecar.dto-cache.max-size:1000}") long maxSize,
+            MeterRegistry meterRegistry) {
+        this.cache = maxSize > 0 ? Caffeine.newBuilder().maximumSize(maxSize).recordStats().build() : null;
+        if (cache != null && meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        }
+    }
+
+    public static ConnectionConfigDtoCache disabled() {
+        return new ConnectionConfigDtoCache(0, null);
+    }
+
+    public ConnectionConfigDto get(Secret secret, Function<Secret, ConnectionConfigDto> parser) {
+        String resourceVersion = secret.getMetadata() == null ? null
+                : ConnectionConfigShards.versionOf(secret.getMetadata());
+        if (cache == null || resourceVersion == null) {
+            return parser.apply(secret);
+        }
+        String key = secret.getMetadata().getName() + "@" + resourceVersion;
+        return copyOf(cache.get(key, k -> parser.apply(secret)));
+    }
+
+    private static ConnectionConfigDto copyOf(ConnectionConfigDto configDto) {
+        return new ConnectionConfigDto(configDto.getName(),
+                configDto.getProperties() == null ? null : new HashMap<>(configDto.getProperties()));
+    }
+}
@@ -0,0 +1,353 @@
+package org.entando.entandopluginsidecar.service;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigEventDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigEventDto.Type;
+import org.entando.entandopluginsidecar.exception.ServiceUnavailableException;
+import org.entando.entandopluginsidecar.exception.TooManyRequestsException;
+import org.entando.kubernetes.model.plugin.EntandoPlugin;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns what {@link ConnectionConfigCache} lists and watches into connection config events for subscribers.
+ *
+ * <p>A config exists for subscribers while its name is in the EntandoPlugin and its Secret exists, so changes on
+ * either side are reported. Changes missed while a watch was down are reported when it lists again.
+ *
+ * <p>Events are identified by the resourceVersion that caused them and the latest ones are kept, so that a subscriber
+ * can resume after the last event it saw. When that event is no longer kept it gets a {@link Type#RESYNC} event
+ * instead, and is expected to list the configs again.
+ *
+ * <p>Each subscriber has a queue of its own, sent from a pooled thread, so that a slow client doesn't hold back the
+ * others. A subscriber with {@code queueSize} events still to send has them replaced by a {@link Type#RESYNC} event.
+ *
+ * <p>Kept events are also numbered with a sequence, for clients that poll {@link #getEventsSince(long)} instead of
+ * keeping a stream open. Sequences start from the startup time in milliseconds, so that the ones handed out by a
+ * previous instance are not mistaken for current ones.
+ */
+@Slf4j
+@Component
+public class ConnectionConfigEvents implements ConnectionConfigCache.Listener {
+
+    public static final String ERROR_EVENTS_UNAVAILABLE = "org.entando.error.events.unavailable";
+    public static final String ERROR_EVENTS_UNSUPPORTED = "org.entando.error.events.unsupported";
+    public static final String ERROR_TOO_MANY_SUBSCRIBERS = "org.entando.error.events.tooManySubscribers";
+
+    private final boolean enabled;
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final int queueSize;
+    private final ExecutorService dispatcher;
+
+    private final Set<String> names = new HashSet<>();
+    private final Map<String, String> secretVersions = new HashMap<>();
+    private final Deque<SequencedEvent> buffer = new ArrayDeque<>();
+    private final List<Subscription> subscribers = new ArrayList<>();
+    private boolean pluginKnown;
+    private boolean secretsKnown;
+    private String latestResourceVersion;
+    private long sequence = System.currentTimeMillis();
+    private long firstSequence = Long.MAX_VALUE;
+
+    public ConnectionConfigEvents(ConnectionConfigCache cache,
+            @Value("${entando.sidecar.events.max-subscribers:100}") int maxSubscribers,
+            @Value("${entando.sidecar.events.buffer-size:1000}") int bufferSize,
+            @Value("${entando.sidecar.events.subscriber-queue-size:100}") int queueSize) {
+        this.enabled = cache.isEnabled();
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = Math.max(0, bufferSize);
+        this.queueSize = Math.max(1, queueSize);
+        // a thread at most per subscriber, each one is sent to by a single task at a time
+        AtomicInteger threadCount = new AtomicInteger();
+        this.dispatcher = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "connection-config-events-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        cache.addListener(this);
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * Starts sending events to {@code subscriber}, beginning with the ones after {@code lastEventId} when given.
+     * Events are sent in order, one at a time. A subscriber that throws is unsubscribed.
+     *
+     * @param lastEventId the resourceVersion of the last event seen, null to only get new events
+     * @return unsubscribes the subscriber
+     */
+    public synchronized Runnable subscribe(String lastEventId, Consumer<ConnectionConfigEventDto> subscriber) {
+        if (!enabled) {
+            throw new ServiceUnavailableException(ERROR_EVENTS_UNAVAILABLE);
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new TooManyRequestsException(ERROR_TOO_MANY_SUBSCRIBERS);
+        }
+        List<ConnectionConfigEventDto> missed = lastEventId == null ? Collections.emptyList()
+                : eventsAfter(lastEventId);
+        Subscription subscription = new Subscription(subscriber);
+        subscribers.add(subscription);
+        // all of them, the buffer already bounds how many a resuming subscriber gets
+        subscription.offer(missed, null);
+        return () -> unsubscribe(subscription);
+    }
+
+    public synchronized int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Returns the sequence of the latest event, changes made after it will have greater ones.
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the events numbered after {@code since}, oldest first.
+     *
+     * @return null when they are not all known, because they are no longer kept, happened before the configs were
+     *     first listed, or {@code since} was not handed out by this instance
+     */
+    public synchronized List<ConnectionConfigEventDto> getEventsSince(long since) {
+        if (since < firstSequence || since < sequence - buffer.size() || since > sequence) {
+            return null;
+        }
+        List<ConnectionConfigEventDto> events = new ArrayList<>();
+        buffer.stream()
+                .filter(sequenced -> sequenced.sequence > since)
+                .forEach(sequenced -> events.add(sequenced.event));
+        return events;
+    }
+
+    @Override
+    public synchronized void entandoPluginChanged(EntandoPlugin entandoPlugin, String resourceVersion) {
+        Set<String> current = entandoPlugin == null || entandoPlugin.getSpec().getConnectionConfigNames() == null
+                ? new HashSet<>()
+                : new HashSet<>(entandoPlugin.getSpec().getConnectionConfigNames());
+        Set<String> changed = new HashSet<>(current);
+        changed.addAll(names);
+        changed.removeIf(name -> current.contains(name) && names.contains(name));
+        Map<String, Boolean> wasVisible = visibility(changed);
+
+        names.clear();
+        names.addAll(current);
+        advance(resourceVersion);
+        boolean known = pluginKnown;
+        pluginKnown = true;
+        startSequenceIfKnown();
+        if (known) {
+            changed.forEach(name -> publishIfChanged(name, wasVisible.get(name), false, resourceVersion));
+        }
+    }
+
+    @Override
+    public synchronized void secretsListed(Collection<Secret> secrets, String resourceVersion) {
+        Map<String, String> listed = new HashMap<>();
+        secrets.forEach(secret -> listed.put(secret.getMetadata().getName(),
+                secret.getMetadata().getResourceVersion()));
+        Set<String> affected = new HashSet<>(listed.keySet());
+        affected.addAll(secretVersions.keySet());
+        Map<String, Boolean> wasVisible = visibility(affected);
+        Map<String, String> previous = new HashMap<>(secretVersions);
+
+        secretVersions.clear();
+        secretVersions.putAll(listed);
+        advance(resourceVersion);
+        boolean known = secretsKnown;
+        secretsKnown = true;
+        startSequenceIfKnown();
+        if (known) {
+            affected.forEach(name -> {
+                String version = listed.get(name);
+                boolean edited = previous.containsKey(name) && !Objects.equals(previous.get(name), version);
+                publishIfChanged(name, wasVisible.get(name), edited, version == null ? resourceVersion : version);
+            });
+        }
+    }
+
+    @Override
+    public synchronized void secretChanged(Secret secret) {
+        String name = secret.getMetadata().getName();
+        String version = secret.getMetadata().getResourceVersion();
+        boolean wasVisible = isVisible(name);
+        boolean existed = secretVersions.containsKey(name);
+        String previous = secretVersions.put(name, version);
+        advance(version);
+        publishIfChanged(name, wasVisible, existed && !Objects.equals(previous, version), version);
+    }
+
+    @Override
+    public synchronized void secretDeleted(Secret secret) {
+        String name = secret.getMetadata().getName();
+        boolean wasVisible = isVisible(name);
+        secretVersions.remove(name);
+        advance(secret.getMetadata().getResourceVersion());
+        publishIfChanged(name, wasVisible, false, secret.getMetadata().getResourceVersion());
+    }
+
+    // the two watches are not ordered with respect to each other, an older resourceVersion may come later
+    private void advance(String resourceVersion) {
+        if (resourceVersion == null) {
+            return;
+        }
+        if (NumberUtils.isDigits(resourceVersion) && NumberUtils.isDigits(latestResourceVersion)
+                && Long.parseLong(resourceVersion) < Long.parseLong(latestResourceVersion)) {
+            return;
+        }
+        latestResourceVersion = resourceVersion;
+    }
+
+    // what changed before both sides were first listed is unknown, older sequences can't be followed
+    private void startSequenceIfKnown() {
+        if (pluginKnown && secretsKnown && firstSequence == Long.MAX_VALUE) {
+            firstSequence = ++sequence;
+        }
+    }
+
+    private Map<String, Boolean> visibility(Collection<String> configNames) {
+        Map<String, Boolean> visibility = new HashMap<>();
+        configNames.forEach(name -> visibility.put(name, isVisible(name)));
+        return visibility;
+    }
+
+    private boolean isVisible(String name) {
+        return names.contains(name) && secretVersions.containsKey(name);
+    }
+
+    private void publishIfChanged(String name, boolean wasVisible, boolean edited, String resourceVersion) {
+        if (!pluginKnown || !secretsKnown) {
+            return;
+        }
+        boolean visible = isVisible(name);
+        if (!wasVisible && visible) {
+            publish(event(Type.ADDED, name, resourceVersion));
+        } else if (wasVisible && !visible) {
+            publish(event(Type.DELETED, name, resourceVersion));
+        } else if (visible && edited) {
+            publish(event(Type.EDITED, name, resourceVersion));
+        }
+    }
+
+    private void publish(ConnectionConfigEventDto event) {
+        buffer.addLast(new SequencedEvent(++sequence, event));
+        while (buffer.size() > bufferSize) {
+            buffer.removeFirst();
+        }
+        subscribers.forEach(subscription -> subscription.offer(Collections.singletonList(event),
+                latestResourceVersion));
+    }
+
+    private List<ConnectionConfigEventDto> eventsAfter(String lastEventId) {
+        List<ConnectionConfigEventDto> events = new ArrayList<>();
+        buffer.forEach(sequenced -> events.add(sequenced.event));
+        // the last match, events caused by the same write share its resourceVersion
+        for (int i = events.size() - 1; i >= 0; i--) {
+            if (lastEventId.equals(events.get(i).getResourceVersion())) {
+                return new ArrayList<>(events.subList(i + 1, events.size()));
+            }
+        }
+        if (lastEventId.equals(latestResourceVersion)) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(event(Type.RESYNC, null, latestResourceVersion));
+    }
+
+    private synchronized void unsubscribe(Subscription subscription) {
+        subscription.close();
+        subscribers.remove(subscription);
+    }
+
+    private static ConnectionConfigEventDto event(Type type, String name, String resourceVersion) {
+        return ConnectionConfigEventDto.builder().type(type).name(name).resourceVersion(resourceVersion).build();
+    }
+
+    private final class Subscription {
+
+        private final Consumer<ConnectionConfigEventDto> subscriber;
+        private final Deque<ConnectionConfigEventDto> queue = new ArrayDeque<>();
+        private boolean sending;
+        private boolean closed;
+
+        private Subscription(Consumer<ConnectionConfigEventDto> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Queues events, or replaces the queued ones with a {@link Type#RESYNC} event at {@code resyncVersion} when
+         * there's no room left for them.
+         */
+        synchronized void offer(List<ConnectionConfigEventDto> events, String resyncVersion) {
+            if (closed || events.isEmpty()) {
+                return;
+            }
+            if (resyncVersion != null && queue.size() + events.size() > queueSize) {
+                log.debug("Connection config event subscriber fell {} events behind, asking it to resync",
+                        queue.size());
+                queue.clear();
+                queue.add(event(Type.RESYNC, null, resyncVersion));
+            } else {
+                queue.addAll(events);
+            }
+            if (!sending) {
+                sending = true;
+                dispatcher.execute(this::send);
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            queue.clear();
+        }
+
+        private void send() {
+            while (true) {
+                ConnectionConfigEventDto event;
+                synchronized (this) {
+                    event = closed ? null : queue.pollFirst();
+                    if (event == null) {
+                        sending = false;
+                        return;
+                    }
+                }
+                try {
+                    subscriber.accept(event);
+                } catch (RuntimeException e) {
+                    log.debug("Unable to send connection config event, unsubscribing", e);
+                    unsubscribe(this);
+                    return;
+                }
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class SequencedEvent {
+
+        private final long sequence;
+        private final ConnectionConfigEventDto event;
+    }
+}
@@ -0,0 +1,116 @@
+package org.entando.entandopluginsidecar.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times {@link ConnectionConfigService} operations and the parsing of the configs they read, counts their failures by
+ * error key and the reads answered with stale values, and measures the size of the configs read and written.
+ */
+@Component
+public class ConnectionConfigMetrics {
+
+    public static final String OPERATIONS_METRIC = "entando.sidecar.config.operations";
+    public static final String PARSE_METRIC = "entando.sidecar.config.parse";
+    public static final String ERRORS_METRIC = "entando.sidecar.config.errors";
+    public static final String PAYLOAD_METRIC = "entando.sidecar.config.payload";
+    public static final String STALE_METRIC = "entando.sidecar.config.stale";
+
+    public static final String READ = "read";
+    public static final String WRITE = "write";
+
+    private static final String ERROR_KEY_PREFIX = "org.entando.error.";
+    private static final String SUCCESS = "success";
+    private static final String ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+
+    public ConnectionConfigMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T record(String operation, Supplier<T> call) {
+        return timed(OPERATIONS_METRIC, "Connection config operations", operation, call);
+    }
+
+    /**
+     * Records a read whose value is built lazily. Building the value, if a caller does, is timed separately, so that
+     * reads answered without it, such as 304s, are counted and timed like the others. Its failures are counted as
+     * failures of the operation.
+     */
+    public <T> Versioned<T> recordVersioned(String operation, Supplier<Versioned<T>> call) {
+        Versioned<T> versioned = record(operation, call);
+        return versioned.withValue(() -> timed(PARSE_METRIC, "Parsing of the connection configs read by operations",
+                operation, versioned::getValue));
+    }
+
+    public void run(String operation, Runnable call) {
+        record(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records the size of a config.yaml.
+     *
+     * @param direction {@link #READ} or {@link #WRITE}
+     */
+    public void recordPayload(String direction, long bytes) {
+        DistributionSummary.builder(PAYLOAD_METRIC)
+                .description("Size of the config.yaml of connection configs")
+                .baseUnit("bytes")
+                .tag("direction", direction)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    /**
+     * Counts an operation answered with the values last read because the API server was unavailable.
+     */
+    public void recordStale(String operation) {
+        Counter.builder(STALE_METRIC)
+                .description("Connection config reads answered with stale values")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private <T> T timed(String metric, String description, String operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        String outcome = SUCCESS;
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            outcome = ERROR;
+            Counter.builder(ERRORS_METRIC)
+                    .description("Failed connection config operations by error key")
+                    .tag("operation", operation)
+                    .tag("error", errorOf(e))
+                    .register(meterRegistry)
+                    .increment();
+            throw e;
+        } finally {
+            Timer.builder(metric)
+                    .description(description)
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // messages that are not error keys would make a tag value per message
+    private static String errorOf(RuntimeException e) {
+        String message = e.getMessage();
+        return message != null && message.startsWith(ERROR_KEY_PREFIX) ? message : e.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,77 @@
+package org.entando.entandopluginsidecar.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.exception.BadRequestException;
+
+/**
+ * The parts of the configs a list returns, out of {@code name}, which is always returned, {@code properties} and
+ * single properties as {@code properties.<key>}. Names alone are read from the EntandoPlugin, without the Secrets.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ConnectionConfigProjection {
+
+    public static final String ERROR_INVALID_FIELDS = "org.entando.error.list.invalidFields";
+
+    public static final ConnectionConfigProjection ALL = new ConnectionConfigProjection(true, Collections.emptySet());
+
+    private static final String NAME = "name";
+    private static final String PROPERTIES = "properties";
+    private static final String PROPERTY_PREFIX = PROPERTIES + ".";
+
+    private final boolean allProperties;
+    private final Set<String> propertyKeys;
+
+    public static ConnectionConfigProjection of(Collection<String> fields) {
+        boolean allProperties = false;
+        Set<String> propertyKeys = new TreeSet<>();
+        for (String field : fields) {
+            String trimmed = field.trim();
+            if (PROPERTIES.equals(trimmed)) {
+                allProperties = true;
+            } else if (trimmed.startsWith(PROPERTY_PREFIX) && trimmed.length() > PROPERTY_PREFIX.length()) {
+                propertyKeys.add(trimmed.substring(PROPERTY_PREFIX.length()));
+            } else if (!NAME.equals(trimmed)) {
+                throw new BadRequestException(ERROR_INVALID_FIELDS);
+            }
+        }
+        return allProperties ? ALL : new ConnectionConfigProjection(false, propertyKeys);
+    }
+
+    public boolean isNamesOnly() {
+        return !allProperties && propertyKeys.isEmpty();
+    }
+
+    public ConnectionConfigDto apply(ConnectionConfigDto config) {
+        if (allProperties) {
+            return config;
+        }
+        if (isNamesOnly() || config.getProperties() == null) {
+            return new ConnectionConfigDto(config.getName(), null);
+        }
+        Map<String, String> properties = new LinkedHashMap<>();
+        propertyKeys.stream()
+                .filter(config.getProperties()::containsKey)
+                .forEach(key -> properties.put(key, config.getProperties().get(key)));
+        return new ConnectionConfigDto(config.getName(), properties);
+    }
+
+    /**
+     * Tells projections apart in ETags, empty for {@link #ALL} so that its ETags are those of the full configs.
+     */
+    String getVariant() {
+        if (allProperties) {
+            return "";
+        }
+        StringBuilder variant = new StringBuilder(NAME);
+        propertyKeys.forEach(key -> variant.append(',').append(PROPERTY_PREFIX).append(key));
+        return variant.toString();
+    }
+}
@@ -1,122 +1,669 @@
 package org.entando.entandopluginsidecar.service;
 
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.api.model.SecretList;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.dsl.Resource;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchOperationDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchOperationDto.Operation;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchResultDto;
 import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigPageDto;
+import org.entando.entandopluginsidecar.exception.BadRequestException;
+import org.entando.entandopluginsidecar.exception.ServiceUnavailableException;
 import org.entando.entandopluginsidecar.util.YamlUtils;
 import org.entando.kubernetes.model.plugin.DoneableEntandoPlugin;
 import org.entando.kubernetes.model.plugin.EntandoPlugin;
 import org.entando.kubernetes.model.plugin.EntandoPluginOperationFactory;
-import org.entando.kubernetes.model.plugin.EntandoPluginSpec;
-import org.entando.kubernetes.model.plugin.EntandoPluginSpecBuilder;
 import org.entando.web.exception.ConflictException;
 import org.entando.web.exception.NotFoundException;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
+/**
+ * The {@link ConnectionConfigStore} keeping each config in a Kubernetes Secret listed by the EntandoPlugin, the
+ * default one.
+ */
 @Slf4j
 @Service
-public class ConnectionConfigService {
+@ConditionalOnProperty(name = ConnectionConfigStore.TYPE, havingValue = ConnectionConfigStore.KUBERNETES,
+        matchIfMissing = true)
+public class ConnectionConfigService implements ConnectionConfigStore {
 
     public static final String API_VERSION = "v1";
     public static final String CONFIG_YAML = "config.yaml";
+    public static final String PLUGIN_LABEL = "entando.org/plugin";
     private static final String OPAQUE_TYPE = "Opaque";
 
     public static final String ERROR_PLUGIN_NOT_FOUND = "org.entando.error.plugin.notFound";
     public static final String ERROR_SECRET_NOT_FOUND = "org.entando.error.secret.notFound";
     public static final String ERROR_SECRET_ALREADY_EXISTS = "org.entando.error.secret.alreadyExists";
+    public static final String ERROR_BATCH_OPERATION_FAILED = "org.entando.error.batch.operationFailed";
+    public static final String ERROR_VALIDATION = "org.entando.error.validationError";
+    public static final String ERROR_INVALID_LIMIT = "org.entando.error.list.invalidLimit";
+    public static final String ERROR_INVALID_CONTINUE = "org.entando.error.list.invalidContinue";
+
+    static final String ADD = "add";
+    static final String GET = "get";
+    static final String LIST = "list";
+    static final String LIST_PAGE = "listPage";
+    static final String STREAM = "stream";
+    static final String EDIT = "edit";
+    static final String REMOVE = "remove";
+    static final String BATCH = "batch";
 
     private final KubernetesClient client;
     private final String entandoPluginName;
+    private final ConnectionConfigCache cache;
+    private final SecretFetcher secretFetcher;
+    private final ConnectionConfigDtoCache dtoCache;
+    private final EntandoPluginWriteBehind pluginWriter;
+    private final ConnectionConfigShards shards;
+    private final ConfigYamlCompression compression;
+    private final ConnectionConfigMetrics metrics;
+    private final ApiServerCircuitBreaker circuitBreaker;
+    private final int listPageSize;
+    private final SingleFlight<String, EntandoPlugin> pluginReads = new SingleFlight<>();
+    private final SingleFlight<String, Map<String, Secret>> listReads = new SingleFlight<>();
+    private final AtomicReference<EntandoPlugin> lastEntandoPlugin = new AtomicReference<>();
+    private final Map<String, Secret> lastSecrets = new ConcurrentHashMap<>();
 
-    public ConnectionConfigService(KubernetesClient client, @Value("${entando.plugin.name}") String entandoPluginName) {
+    public ConnectionConfigService(KubernetesClient client, @Value("${entando.plugin.name}") String entandoPluginName,
+            ConnectionConfigCache cache, SecretFetcher secretFetcher, ConnectionConfigDtoCache dtoCache,
+            EntandoPluginWriteBehind pluginWriter, ConnectionConfigShards shards, ConfigYamlCompression compression,
+            ConnectionConfigMetrics metrics, ApiServerCircuitBreaker circuitBreaker,
+            @Value("${entando.sidecar.list.page-size:100}") int listPageSize) {
         this.client = client;
         this.entandoPluginName = entandoPluginName;
+        this.cache = cache;
+        this.secretFetcher = secretFetcher;
+        this.dtoCache = dtoCache;
+        this.pluginWriter = pluginWriter;
+        this.shards = shards;
+        this.compression = compression;
+        this.metrics = metrics;
+        this.circuitBreaker = circuitBreaker;
+        this.listPageSize = listPageSize;
     }
 
+    @Override
     public void addConnectionConfig(ConnectionConfigDto connectionConfigDto) {
-        EntandoPlugin entandoPlugin = entandoPlugin().get();
-        if (entandoPlugin == null) {
-            throw new NotFoundException(ERROR_PLUGIN_NOT_FOUND);
+        metrics.run(ADD, () -> {
+            if (shards.isEnabled() && listPluginSecrets().containsKey(connectionConfigDto.getName())) {
+                throw new ConflictException(ERROR_SECRET_ALREADY_EXISTS);
+            }
+            Secret secret = circuitBreaker.call(() -> client.secrets()
+                    .inNamespace(client.getConfiguration().getNamespace())
+                    .withName(connectionConfigDto.getName())
+                    .get());
+            if (secret != null) {
+                throw new ConflictException(ERROR_SECRET_ALREADY_EXISTS);
+            }
+            String name = connectionConfigDto.getName();
+            EntandoPlugin entandoPlugin = pluginWriter.appendConnectionConfigName(
+                    cache.isSynced() && cache.getEntandoPlugin() != null ? cache::getEntandoPlugin
+                            : () -> entandoPlugin().get(), name);
+            if (entandoPlugin == null) {
+                throw new NotFoundException(ERROR_PLUGIN_NOT_FOUND);
+            }
+            updated(entandoPlugin);
+
+            createSecret(connectionConfigDto);
+        });
+    }
+
+    /**
+     * Reads a config, leaving the Secret to be parsed on {@link Versioned#getValue()}. The ETag is built from the
+     * Secret's resourceVersion, or null when the Secret has none. When the API server is unavailable, the config last
+     * read is returned as {@link Versioned#isStale() stale}.
+     */
+    @Override
+    public Versioned<ConnectionConfigDto> getVersionedConnectionConfig(String name) {
+        return metrics.recordVersioned(GET, () -> readOrStale(GET, stale -> {
+            EntandoPlugin entandoPlugin = stale ? lastEntandoPlugin.get() : readEntandoPlugin();
+            if (entandoPlugin == null) {
+                throw new NotFoundException(ERROR_PLUGIN_NOT_FOUND);
+            }
+            if (!entandoPlugin.getSpec().getConnectionConfigNames().contains(name)) {
+                throw new NotFoundException(ERROR_SECRET_NOT_FOUND);
+            }
+            Secret secret = stale ? lastSecrets.get(name) : readSecret(name);
+            if (secret == null) {
+                throw new NotFoundException(ERROR_SECRET_NOT_FOUND);
+            }
+            return new Versioned<>(etagOf(Collections.singletonList(secret.getMetadata())), () -> fromSecret(secret));
+        }));
+    }
+
+    /**
+     * Reads the parts of all configs selected by {@code projection}, leaving the Secrets to be parsed on {@link
+     * Versioned#getValue()}. The ETag is built from the resourceVersions of the EntandoPlugin, which lists the configs,
+     * and of the Secrets, or null when any of them has none. Names alone are answered from the EntandoPlugin,
+     * with an ETag built from its resourceVersion, so Secrets that no longer exist are not noticed. When the API server
+     * is unavailable, the configs last read are returned as {@link Versioned#isStale() stale}.
+     */
+    @Override
+    public Versioned<List<ConnectionConfigDto>> getAllVersionedConnectionConfig(ConnectionConfigProjection projection) {
+        return metrics.recordVersioned(LIST, () -> readOrStale(LIST, stale -> {
+            EntandoPlugin entandoPlugin = stale ? lastEntandoPlugin.get() : readEntandoPlugin();
+            if (entandoPlugin == null) {
+                throw new NotFoundException(ERROR_PLUGIN_NOT_FOUND);
+            }
+            List<String> names = connectionConfigNames(entandoPlugin);
+            if (projection.isNamesOnly()) {
+                return new Versioned<>(etagOf(Collections.singletonList(entandoPlugin.getMetadata()),
+                        projection.getVariant()), () -> names.stream()
+                        .map(name -> new ConnectionConfigDto(name, null))
+                        .collect(Collectors.toList()));
+            }
+            List<Secret> secrets = stale ? names.stream().map(lastSecrets::get).collect(Collectors.toList())
+                    : readSecrets(names);
+            if (secrets.contains(null)) {
+                throw new NotFoundException(ERROR_SECRET_NOT_FOUND);
+            }
+
+            List<ObjectMeta> versions = new ArrayList<>();
+            versions.add(entandoPlugin.getMetadata());
+            secrets.forEach(secret -> versions.add(secret.getMetadata()));
+            return new Versioned<>(etagOf(versions, projection.getVariant()), () -> secrets.stream()
+                    .map(this::fromSecret)
+                    .map(projection::apply)
+                    .collect(Collectors.toList()));
+        }));
+    }
+
+    /**
+     * Reads up to {@code limit} configs in name order, starting after the last config of the previous page. Only the
+     * Secrets of the page are read. As with Kubernetes list continuation, configs added or removed between pages are
+     * seen depending on whether their names come before or after the page being read.
+     *
+     * @param continueToken the {@code continue} of the previous page, null for the first one
+     */
+    @Override
+    public ConnectionConfigPageDto getConnectionConfigPage(int limit, String continueToken) {
+        return metrics.record(LIST_PAGE, () -> {
+            if (limit < 1) {
+                throw new BadRequestException(ERROR_INVALID_LIMIT);
+            }
+            String after = continueToken == null ? null : decodeContinue(continueToken);
+            EntandoPlugin entandoPlugin = readEntandoPlugin();
+            if (entandoPlugin == null) {
+                throw new NotFoundException(ERROR_PLUGIN_NOT_FOUND);
+            }
+            List<String> names = connectionConfigNames(entandoPlugin).stream()
+                    .filter(name -> after == null || name.compareTo(after) > 0)
+                    .distinct()
+                    .sorted()
+                    .collect(Collectors.toList());
+            List<String> page = names.subList(0, Math.min(limit, names.size()));
+            List<ConnectionConfigDto> configs = readSecretsByName(page).stream()
+                    .map(this::fromSecret)
+                    .collect(Collectors.toList());
+            String next = names.size() > limit ? encodeContinue(page.get(page.size() - 1)) : null;
+            return new ConnectionConfigPageDto(configs, next);
+        });
+    }
+
+    /**
+     * Passes every config to {@code consumer} as soon as its Secret is read and parsed, without holding all of them.
+     * Without the cache, labeled Secrets are listed {@code listPageSize} at a time with Kubernetes list continuation.
+     * Configs come in no particular order, and a missing Secret fails after the configs before it were passed.
+     */
+    @Override
+    public void forEachConnectionConfig(Consumer<ConnectionConfigDto> consumer) {
+        metrics.run(STREAM, () -> {
+            EntandoPlugin entandoPlugin = readEntandoPlugin();
+            if (entandoPlugin == null) {
+                throw new NotFoundException(ERROR_PLUGIN_NOT_FOUND);
+            }
+            Set<String> remaining = new LinkedHashSet<>(connectionConfigNames(entandoPlugin));
+            if (!cache.isSynced()) {
+                String continueToken = null;
+                do {
+                    String pageToken = continueToken;
+                    SecretList page = circuitBreaker.call(() -> client.secrets()
+                            .inNamespace(client.getConfiguration().getNamespace())
+                            .withLabel(PLUGIN_LABEL, entandoPluginName)
+                            .list(listPageSize, pageToken));
+                    page.getItems().stream()
+                            .flatMap(secret -> ConnectionConfigShards.expand(secret).stream())
+                            .filter(secret -> remaining.remove(secret.getMetadata().getName()))
+                            .forEach(secret -> consumer.accept(fromSecret(secret)));
+                    continueToken = page.getMetadata() == null ? null : page.getMetadata().getContinue();
+                } while (StringUtils.isNotEmpty(continueToken) && !remaining.isEmpty());
+            }
+            List<String> names = new ArrayList<>(remaining);
+            for (int from = 0; from < names.size(); from += listPageSize) {
+                readSecretsByName(names.subList(from, Math.min(from + listPageSize, names.size())))
+                        .forEach(secret -> consumer.accept(fromSecret(secret)));
+            }
+        });
+    }
+
+    @Override
+    public void removeConnectionConfig(String configName) {
+        metrics.run(REMOVE, () -> {
+            EntandoPlugin entandoPlugin = readEntandoPlugin();
+            if (entandoPlugin == null) {
+                throw new NotFoundException(ERROR_PLUGIN_NOT_FOUND);
+            }
+            updated(pluginWriter.updateConnectionConfigNames(() -> entandoPlugin, Collections.emptyList(),
+                    Collections.singletonList(configName)));
+
+            deleteSecret(configName);
+        });
+    }
+
+    @Override
+    public List<ConnectionConfigBatchResultDto> applyBatch(List<ConnectionConfigBatchOperationDto> operations) {
+        return metrics.record(BATCH, () -> {
+            EntandoPlugin entandoPlugin = readEntandoPlugin();
+            if (entandoPlugin == null) {
+                throw new NotFoundException(ERROR_PLUGIN_NOT_FOUND);
+            }
+            Set<String> connectionConfigNames = new LinkedHashSet<>();
+            if (entandoPlugin.getSpec().getConnectionConfigNames() != null) {
+                connectionConfigNames.addAll(entandoPlugin.getSpec().getConnectionConfigNames());
+            }
+            Set<String> originalNames = new HashSet<>(connectionConfigNames);
+            // a single list call instead of an existence check per created Secret, the API server rejects the rest
+            Set<String> existingSecrets = operations.stream().anyMatch(op -> op.getOperation() == Operation.CREATE)
+                    ? new HashSet<>(listPluginSecrets().keySet())
+                    : new HashSet<>();
+
+            // the names are written before the Secrets, as for a single add or remove, so a failed EntandoPlugin
+            // write leaves no Secret created and unlisted
+            final List<PlannedOperation> planned = operations.stream()
+                    .map(operation -> plan(operation, connectionConfigNames, existingSecrets))
+                    .collect(Collectors.toList());
+            EntandoPlugin written = pluginWriter.updateConnectionConfigNames(() -> entandoPlugin,
+                    difference(connectionConfigNames, originalNames), difference(originalNames, connectionConfigNames));
+            if (written == null) {
+                throw new NotFoundException(ERROR_PLUGIN_NOT_FOUND);
+            }
+            updated(written);
+            pluginReads.forget(entandoPluginName);
+
+            List<ConnectionConfigBatchResultDto> results = planned.stream()
+                    .map(this::applyOperation)
+                    .collect(Collectors.toList());
+
+            List<String> notCreated = new ArrayList<>();
+            for (int i = 0; i < planned.size(); i++) {
+                String name = planned.get(i).operation.getName();
+                if (planned.get(i).result == null && planned.get(i).operation.getOperation() == Operation.CREATE
+                        && results.get(i).getStatus() != HttpStatus.CREATED.value()
+                        && connectionConfigNames.contains(name) && !originalNames.contains(name)) {
+                    notCreated.add(name);
+                }
+            }
+            if (!notCreated.isEmpty()) {
+                unlist(written, notCreated);
+            }
+            return results;
+        });
+    }
+
+    // the outcome of the checks made before writing the names, applied once they are written
+    private static PlannedOperation plan(ConnectionConfigBatchOperationDto operation,
+            Set<String> connectionConfigNames, Set<String> existingSecrets) {
+        if (operation.getOperation() == null || StringUtils.isEmpty(operation.getName())) {
+            return new PlannedOperation(operation, batchResult(operation, HttpStatus.BAD_REQUEST, ERROR_VALIDATION),
+                    false);
+        }
+        String name = operation.getName();
+        switch (operation.getOperation()) {
+            case CREATE:
+                if (existingSecrets.contains(name)) {
+                    return new PlannedOperation(operation,
+                            batchResult(operation, HttpStatus.CONFLICT, ERROR_SECRET_ALREADY_EXISTS), false);
+                }
+                existingSecrets.add(name);
+                connectionConfigNames.add(name);
+                return new PlannedOperation(operation, null, false);
+            case DELETE:
+                existingSecrets.remove(name);
+                return new PlannedOperation(operation, null, connectionConfigNames.remove(name));
+            default:
+                return new PlannedOperation(operation, null, false);
+        }
+    }
+
+    private ConnectionConfigBatchResultDto applyOperation(PlannedOperation planned) {
+        ConnectionConfigBatchOperationDto operation = planned.operation;
+        if (planned.result != null) {
+            return planned.result;
+        }
+        String name = operation.getName();
+        try {
+            switch (operation.getOperation()) {
+                case CREATE:
+                    createSecret(operation.toConnectionConfigDto());
+                    return batchResult(operation, HttpStatus.CREATED, null);
+                case EDIT:
+                    return updateSecret(operation.toConnectionConfigDto())
+                            ? batchResult(operation, HttpStatus.OK, null)
+                            : batchResult(operation, HttpStatus.NOT_FOUND, ERROR_SECRET_NOT_FOUND);
+                case DELETE:
+                    return deleteSecret(name) || planned.referenced
+                            ? batchResult(operation, HttpStatus.OK, null)
+                            : batchResult(operation, HttpStatus.NOT_FOUND, ERROR_SECRET_NOT_FOUND);
+                default:
+                    return batchResult(operation, HttpStatus.BAD_REQUEST, ERROR_VALIDATION);
+            }
+        } catch (ServiceUnavailableException e) {
+            return batchResult(operation, HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        } catch (ConflictException e) {
+            return batchResult(operation, HttpStatus.CONFLICT, e.getMessage());
+        } catch (KubernetesClientException e) {
+            log.warn("Unable to {} connection config {}", operation.getOperation(), name, e);
+            if (operation.getOperation() == Operation.CREATE && e.getCode() == HttpStatus.CONFLICT.value()) {
+                return batchResult(operation, HttpStatus.CONFLICT, ERROR_SECRET_ALREADY_EXISTS);
+            }
+            HttpStatus status = HttpStatus.resolve(e.getCode());
+            return batchResult(operation, status == null ? HttpStatus.INTERNAL_SERVER_ERROR : status,
+                    ERROR_BATCH_OPERATION_FAILED);
         }
-        Set<String> connectionConfigNames = new HashSet<>();
-        if (entandoPlugin.getSpec().getConnectionConfigNames() != null) {
-            connectionConfigNames.addAll(entandoPlugin.getSpec().getConnectionConfigNames());
+    }
+
+    // the results are already known, a failure leaves the names listed without a Secret as a failed add does
+    private void unlist(EntandoPlugin entandoPlugin, List<String> names) {
+        try {
+            updated(pluginWriter.updateConnectionConfigNames(() -> entandoPlugin, Collections.emptyList(), names));
+            pluginReads.forget(entandoPluginName);
+        } catch (RuntimeException e) {
+            log.warn("Unable to remove the names of connection configs {} that could not be created", names, e);
         }
-        connectionConfigNames.add(connectionConfigDto.getName());
-        EntandoPluginSpec newSpec = new EntandoPluginSpecBuilder(entandoPlugin.getSpec())
-                .withConnectionConfigNames(new ArrayList<>(connectionConfigNames))
+    }
+
+    private static List<String> difference(Set<String> names, Set<String> excluded) {
+        return names.stream()
+                .filter(name -> !excluded.contains(name))
+                .collect(Collectors.toList());
+    }
+
+    static ConnectionConfigBatchResultDto batchResult(ConnectionConfigBatchOperationDto operation,
+            HttpStatus status, String error) {
+        return ConnectionConfigBatchResultDto.builder()
+                .operation(operation.getOperation())
+                .name(operation.getName())
+                .status(status.value())
+                .error(error)
                 .build();
-        entandoPlugin.setSpec(newSpec);
-        entandoPlugin().createOrReplace(entandoPlugin);
+    }
 
-        Secret secret = client.secrets().inNamespace(client.getConfiguration().getNamespace())
-                .withName(connectionConfigDto.getName())
-                .get();
-        if (secret != null) {
-            throw new ConflictException(ERROR_SECRET_ALREADY_EXISTS);
+    private void createSecret(ConnectionConfigDto connectionConfigDto) {
+        String configYaml = toConfigYaml(connectionConfigDto);
+        if (shards.isEnabled()) {
+            updated(circuitBreaker.call(() -> shards.add(connectionConfigDto.getName(), configYaml)));
+            forgetReads(connectionConfigDto.getName());
+            return;
         }
-        client.secrets().inNamespace(client.getConfiguration().getNamespace()).createNew()
+        Secret secret = new SecretBuilder()
                 .withApiVersion(API_VERSION)
-                .withNewMetadata().withName(connectionConfigDto.getName()).endMetadata()
-                .withStringData(Collections.singletonMap(CONFIG_YAML, YamlUtils.toYaml(connectionConfigDto)))
+                .withNewMetadata()
+                .withName(connectionConfigDto.getName())
+                .addToLabels(PLUGIN_LABEL, entandoPluginName)
+                .endMetadata()
                 .withType(OPAQUE_TYPE)
-                .done();
+                .build();
+        compression.store(secret, configYaml);
+        updated(circuitBreaker.call(() -> client.secrets().inNamespace(client.getConfiguration().getNamespace())
+                .create(secret)));
+        forgetReads(connectionConfigDto.getName());
     }
 
-    public ConnectionConfigDto getConnectionConfig(String name) {
-        EntandoPlugin entandoPlugin = entandoPlugin().get();
-        if (entandoPlugin == null) {
-            throw new NotFoundException(ERROR_PLUGIN_NOT_FOUND);
+    private boolean updateSecret(ConnectionConfigDto configDto) {
+        String configYaml = toConfigYaml(configDto);
+        if (shards.isEnabled()) {
+            Secret shard = circuitBreaker.call(() -> shards.replace(configDto.getName(), configYaml));
+            if (shard != null) {
+                updated(shard);
+                forgetReads(configDto.getName());
+                return true;
+            }
+            // not moved to a shard yet
         }
-        if (entandoPlugin.getSpec().getConnectionConfigNames().contains(name)) {
-            Secret secret = client.secrets().withName(name).get();
-            return fromSecret(secret);
+        Secret secret = circuitBreaker.call(() -> client.secrets()
+                .inNamespace(client.getConfiguration().getNamespace())
+                .withName(configDto.getName())
+                .get());
+        if (secret == null) {
+            return false;
         }
-        throw new NotFoundException(ERROR_SECRET_NOT_FOUND);
+        compression.store(secret, configYaml);
+        updated(circuitBreaker.call(() -> client.secrets().inNamespace(client.getConfiguration().getNamespace())
+                .withName(configDto.getName())
+                .createOrReplace(secret)));
+        forgetReads(configDto.getName());
+        return true;
+    }
+
+    private String toConfigYaml(ConnectionConfigDto configDto) {
+        String configYaml = YamlUtils.toYaml(configDto);
+        metrics.recordPayload(ConnectionConfigMetrics.WRITE, configYaml.getBytes(StandardCharsets.UTF_8).length);
+        return configYaml;
     }
 
-    public List<ConnectionConfigDto> getAllConnectionConfig() {
-        EntandoPlugin entandoPlugin = entandoPlugin().get();
-        if (entandoPlugin == null) {
-            throw new NotFoundException(ERROR_PLUGIN_NOT_FOUND);
+    private boolean deleteSecret(String configName) {
+        Secret shard = shards.isEnabled() ? circuitBreaker.call(() -> shards.remove(configName)) : null;
+        if (shard != null) {
+            updated(shard);
+            lastSecrets.remove(configName);
+            forgetReads(configName);
+            return true;
         }
-        List<String> configs = entandoPlugin.getSpec().getConnectionConfigNames() == null ? new ArrayList<>()
-                : entandoPlugin.getSpec().getConnectionConfigNames();
+        final Boolean deleted = circuitBreaker.call(() -> client.secrets().withName(configName).delete());
+        cache.remove(configName);
+        lastSecrets.remove(configName);
+        forgetReads(configName);
+        return Boolean.TRUE.equals(deleted);
+    }
+
+    // concurrent reads from the API server share a single request, see SingleFlight, and only that request goes
+    // through the circuit breaker
+    private EntandoPlugin readEntandoPlugin() {
+        EntandoPlugin entandoPlugin = cache.isSynced() ? cache.getEntandoPlugin()
+                : pluginReads.execute(entandoPluginName, () -> circuitBreaker.call(() -> entandoPlugin().get()));
+        lastEntandoPlugin.set(entandoPlugin);
+        return entandoPlugin;
+    }
+
+    private Secret readSecret(String name) {
+        Secret secret = cache.isSynced() ? cache.getSecret(name)
+                : shards.isEnabled() ? listPluginSecrets().get(name) : null;
+        // Secrets created before they were labeled are not in the cache, they are read one by one
+        if (secret == null) {
+            secret = secretFetcher.fetch(name);
+        }
+        remember(name, secret);
+        return secret;
+    }
+
+    // the values last read or written are served when the API server is unavailable
+    private <T> Versioned<T> readOrStale(String operation, Function<Boolean, Versioned<T>> read) {
+        try {
+            return read.apply(false);
+        } catch (RuntimeException e) {
+            if (!ApiServerCircuitBreaker.isFailure(e)) {
+                throw e;
+            }
+            Versioned<T> stale;
+            try {
+                stale = read.apply(true).asStale();
+            } catch (NotFoundException notRead) {
+                throw e instanceof ServiceUnavailableException ? e
+                        : new ServiceUnavailableException(ApiServerCircuitBreaker.ERROR_API_SERVER_UNAVAILABLE, e);
+            }
+            log.debug("Kubernetes API server unavailable, serving stale values for {}", operation, e);
+            metrics.recordStale(operation);
+            return stale;
+        }
+    }
+
+    private void remember(String name, Secret secret) {
+        if (secret == null) {
+            lastSecrets.remove(name);
+        } else {
+            lastSecrets.put(name, secret);
+        }
+    }
+
+    private void updated(EntandoPlugin entandoPlugin) {
+        cache.update(entandoPlugin);
+        if (entandoPlugin != null) {
+            lastEntandoPlugin.set(entandoPlugin);
+        }
+    }
+
+    private void updated(Secret secret) {
+        cache.update(secret);
+        if (secret != null) {
+            ConnectionConfigShards.expand(secret).forEach(config -> lastSecrets.put(config.getMetadata().getName(),
+                    config));
+        }
+    }
+
+    private void forgetReads(String configName) {
+        pluginReads.forget(entandoPluginName);
+        listReads.forget(entandoPluginName);
+        secretFetcher.forget(configName);
+    }
 
-        return configs.stream()
-                .map(name -> client.secrets().withName(name).get())
-                .map(this::fromSecret)
+    private List<Secret> readSecrets(List<String> names) {
+        if (names.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return fetchMissing(names, cache.isSynced() ? cachedSecrets(names) : listPluginSecrets());
+    }
+
+    // for a part of the configs, fetching them is cheaper than listing all the labeled Secrets, unless they are sharded
+    private List<Secret> readSecretsByName(List<String> names) {
+        return fetchMissing(names, cache.isSynced() ? cachedSecrets(names)
+                : shards.isEnabled() ? listPluginSecrets() : new HashMap<>());
+    }
+
+    private List<Secret> fetchMissing(List<String> names, Map<String, Secret> secrets) {
+        // Secrets created before they were labeled are neither cached nor listed, they are fetched by name
+        List<String> missing = names.stream()
+                .filter(name -> !secrets.containsKey(name))
+                .distinct()
                 .collect(Collectors.toList());
+        List<Secret> fetched = missing.isEmpty() ? Collections.emptyList()
+                : secretFetcher.fetch(missing);
+        for (int i = 0; i < missing.size(); i++) {
+            secrets.put(missing.get(i), fetched.get(i));
+        }
+        names.forEach(name -> remember(name, secrets.get(name)));
+        return names.stream().map(secrets::get).collect(Collectors.toList());
     }
 
-    public void removeConnectionConfig(String configName) {
-        EntandoPlugin entandoPlugin = entandoPlugin().get();
-        entandoPlugin.getSpec().getConnectionConfigNames().remove(configName);
-        entandoPlugin().createOrReplace(entandoPlugin);
+    private Map<String, Secret> cachedSecrets(List<String> names) {
+        Map<String, Secret> secrets = new HashMap<>();
+        names.forEach(name -> {
+            Secret secret = cache.getSecret(name);
+            if (secret != null) {
+                secrets.put(name, secret);
+            }
+        });
+        return secrets;
+    }
+
+    // a copy, the coalesced list is shared by the callers. A config moved to a shard wins over its former Secret
+    private Map<String, Secret> listPluginSecrets() {
+        return new HashMap<>(listReads.execute(entandoPluginName, () -> circuitBreaker.call(() -> client.secrets()
+                .inNamespace(client.getConfiguration().getNamespace())
+                .withLabel(PLUGIN_LABEL, entandoPluginName)
+                .list())
+                .getItems().stream()
+                .flatMap(secret -> ConnectionConfigShards.expand(secret).stream())
+                .collect(Collectors.toMap(secret -> secret.getMetadata().getName(), Function.identity(),
+                        (first, second) -> ConnectionConfigShards.shardOf(first) == null ? second : first))));
+    }
+
+    private static List<String> connectionConfigNames(EntandoPlugin entandoPlugin) {
+        return entandoPlugin.getSpec().getConnectionConfigNames() == null ? new ArrayList<>()
+                : entandoPlugin.getSpec().getConnectionConfigNames();
+    }
 
-        client.secrets().withName(configName).delete();
+    static String encodeContinue(String name) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodeContinue(String continueToken) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(continueToken), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(ERROR_INVALID_CONTINUE);
+        }
+    }
+
+    static String etagOf(List<ObjectMeta> versions) {
+        return etagOf(versions, "");
+    }
+
+    static String etagOf(List<ObjectMeta> versions, String variant) {
+        StringBuilder version = new StringBuilder(variant.isEmpty() ? "" : variant + '\n');
+        for (ObjectMeta metadata : versions) {
+            if (metadata == null || StringUtils.isEmpty(ConnectionConfigShards.versionOf(metadata))) {
+                return null;
+            }
+            version.append(metadata.getName()).append(':').append(ConnectionConfigShards.versionOf(metadata))
+                    .append('\n');
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(version.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
     }
 
     private ConnectionConfigDto fromSecret(Secret secret) {
-        if (secret != null && secret.getStringData() != null && secret.getStringData().get(CONFIG_YAML) != null) {
-            return YamlUtils.fromYaml(secret.getStringData().get(CONFIG_YAML));
+        if (secret == null) {
+            throw new NotFoundException(ERROR_SECRET_NOT_FOUND);
         }
-        if (secret != null && secret.getData() != null && secret.getData().get(CONFIG_YAML) != null) {
-            byte[] decodedBytes = Base64.getDecoder().decode(secret.getData().get(CONFIG_YAML));
-            return YamlUtils.fromYaml(new String(decodedBytes, StandardCharsets.UTF_8));
+        metrics.recordPayload(ConnectionConfigMetrics.READ, configYamlSize(secret));
+        return dtoCache.get(secret, ConnectionConfigService::parseSecret);
+    }
+
+    // the size stored, compressed or not, without decoding
+    private static long configYamlSize(Secret secret) {
+        if (secret.getStringData() != null && secret.getStringData().get(CONFIG_YAML) != null) {
+            return secret.getStringData().get(CONFIG_YAML).getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (secret.getData() != null && secret.getData().get(CONFIG_YAML) != null) {
+            String encoded = secret.getData().get(CONFIG_YAML);
+            int padding = encoded.endsWith("==") ? 2 : encoded.endsWith("=") ? 1 : 0;
+            return encoded.length() / 4 * 3 - padding;
         }
-        throw new NotFoundException(ERROR_SECRET_NOT_FOUND);
+        return 0;
+    }
+
+    static ConnectionConfigDto parseSecret(Secret secret) {
+        String configYaml = ConfigYamlCompression.configYaml(secret);
+        if (configYaml == null) {
+            throw new NotFoundException(ERROR_SECRET_NOT_FOUND);
+        }
+        return YamlUtils.fromYaml(configYaml);
     }
 
     private Resource<EntandoPlugin, DoneableEntandoPlugin> entandoPlugin() {
@@ -124,22 +671,33 @@ public class ConnectionConfigService {
                 .inNamespace(client.getConfiguration().getNamespace()).withName(entandoPluginName);
     }
 
+    @Override
     public ConnectionConfigDto editConnectionConfig(ConnectionConfigDto configDto) {
-        EntandoPlugin entandoPlugin = entandoPlugin().get();
-        if (entandoPlugin == null) {
-            throw new NotFoundException(ERROR_PLUGIN_NOT_FOUND);
-        }
-        Secret secret = client.secrets().inNamespace(client.getConfiguration().getNamespace())
-                .withName(configDto.getName())
-                .get();
-        if (secret == null) {
-            throw new NotFoundException(ERROR_SECRET_NOT_FOUND);
-        }
-        secret.setStringData(Collections.singletonMap(CONFIG_YAML, YamlUtils.toYaml(configDto)));
-        client.secrets().inNamespace(client.getConfiguration().getNamespace())
-                .withName(configDto.getName())
-                .createOrReplace(secret);
+        return metrics.record(EDIT, () -> {
+            EntandoPlugin entandoPlugin = circuitBreaker.call(() -> entandoPlugin().get());
+            if (entandoPlugin == null) {
+                throw new NotFoundException(ERROR_PLUGIN_NOT_FOUND);
+            }
+            if (!updateSecret(configDto)) {
+                throw new NotFoundException(ERROR_SECRET_NOT_FOUND);
+            }
+            return configDto;
+        });
+    }
 
-        return configDto;
+    private static final class PlannedOperation {
+
+        private final ConnectionConfigBatchOperationDto operation;
+        // the result when rejected before writing the names, null when to be applied
+        private final ConnectionConfigBatchResultDto result;
+        // whether a deleted name was listed
+        private final boolean referenced;
+
+        private PlannedOperation(ConnectionConfigBatchOperationDto operation, ConnectionConfigBatchResultDto result,
+                boolean referenced) {
+            this.operation = operation;
+            this.result = result;
+            this.referenced = referenced;
+        }
     }
 }
@@ -0,0 +1,389 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.entando.entandopluginsidecar.service.ConnectionConfigService.API_VERSION;
+import static org.entando.entandopluginsidecar.service.ConnectionConfigService.CONFIG_YAML;
+import static org.entando.entandopluginsidecar.service.ConnectionConfigService.ERROR_SECRET_ALREADY_EXISTS;
+import static org.entando.entandopluginsidecar.service.ConnectionConfigService.PLUGIN_LABEL;
+import static org.entando.entandopluginsidecar.service.JsonPatches.operation;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.entando.web.exception.ConflictException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Stores connection configs as keys of a few Secrets per plugin, the shards, instead of a Secret each, so that a
+ * plugin with many configs has few objects in etcd and they are all read by a single list call. A config goes to the
+ * first shard with room for it below {@code maxShardBytes}, which is kept under the 1 MiB Secret limit, or else to a
+ * new shard.
+ *
+ * <p>Shards carry the {@link ConnectionConfigService#PLUGIN_LABEL plugin label} too, so they are listed, watched and
+ * cached along with the Secrets of single configs. {@link #expand(Secret)} turns a shard into a Secret per config,
+ * named after it and with the resourceVersion of the shard, which the rest of the sidecar handles as if it had been
+ * read on its own. Each also carries a version of its own, a digest of its value, so that the ETags and parsed values
+ * of the other configs of a shard are kept when one of them is written, see {@link #versionOf(ObjectMeta)}.
+ *
+ * <p>Keys are added and removed with JSON patches. Adds and replaces are guarded by the resourceVersion of the shard
+ * they were planned on, since the room left in it and whether a key is taken depend on all of its keys, and are
+ * planned again from a fresh listing when it changed.
+ */
+@Slf4j
+@Component
+public class ConnectionConfigShards {
+
+    public static final String SHARD_LABEL = "entando.org/connection-config-shard";
+    public static final String VERSION_ANNOTATION = "entando.org/connection-config-version";
+
+    static final long DEFAULT_MAX_SHARD_BYTES = 900_000;
+
+    private static final String SECRETS_API_PATH = "api/v1";
+    private static final String SECRETS = "secrets";
+    private static final String SHARD_INFIX = "-connection-configs-";
+    private static final String DATA_PATH = "/data/";
+    private static final String RESOURCE_VERSION_PATH = "/metadata/resourceVersion";
+    private static final String OPAQUE_TYPE = "Opaque";
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final KubernetesClient client;
+    private final String entandoPluginName;
+    private final ConfigYamlCompression compression;
+    private final boolean enabled;
+    private final long maxShardBytes;
+
+    public ConnectionConfigShards(KubernetesClient client, @Value("${entando.plugin.name}") String entandoPluginName,
+            ConfigYamlCompression compression,
+            @Value("${entando.sidecar.storage.shards.enabled:false}") boolean enabled,
+            @Value("${entando.sidecar.storage.shards.max-bytes:900000}") long maxShardBytes) {
+        this.client = client;
+        this.entandoPluginName = entandoPluginName;
+        this.compression = compression;
+        this.enabled = enabled;
+        this.maxShardBytes = maxShardBytes;
+    }
+
+    /**
+     * Stores every config in a Secret of its own, shards written before are still read.
+     */
+    public static ConnectionConfigShards disabled() {
+        return new ConnectionConfigShards(null, null, ConfigYamlCompression.disabled(), false, DEFAULT_MAX_SHARD_BYTES);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public static boolean isShard(Secret secret) {
+        return secret.getMetadata().getLabels() != null && secret.getMetadata().getLabels().containsKey(SHARD_LABEL);
+    }
+
+    /**
+     * Returns a Secret per config stored in {@code secret} when it is a shard, {@code secret} itself otherwise.
+     */
+    public static List<Secret> expand(Secret secret) {
+        if (!isShard(secret)) {
+            return Collections.singletonList(secret);
+        }
+        List<Secret> configs = new ArrayList<>();
+        data(secret).forEach((name, configYaml) -> configs.add(new SecretBuilder()
+                .withApiVersion(API_VERSION)
+                .withNewMetadata()
+                .withName(name)
+                .withNamespace(secret.getMetadata().getNamespace())
+                .withResourceVersion(secret.getMetadata().getResourceVersion())
+                .addToLabels(PLUGIN_LABEL, secret.getMetadata().getLabels().get(PLUGIN_LABEL))
+                .addToAnnotations(SHARD_LABEL, secret.getMetadata().getName())
+                .addToAnnotations(VERSION_ANNOTATION, digestOf(configYaml))
+                .addToAnnotations(annotationsOf(configYaml))
+                .endMetadata()
+                .withType(OPAQUE_TYPE)
+                .withData(Collections.singletonMap(CONFIG_YAML, configYaml))
+                .build()));
+        return configs;
+    }
+
+    /**
+     * Returns the name of the shard {@code config} was {@link #expand(Secret) expanded} from, null when it was read on
+     * its own.
+     */
+    public static String shardOf(Secret config) {
+        Map<String, String> annotations = config.getMetadata().getAnnotations();
+        return annotations == null ? null : annotations.get(SHARD_LABEL);
+    }
+
+    /**
+     * Returns the version of the config's value, which changes only when it is written: the digest of its value when it
+     * was {@link #expand(Secret) expanded} from a shard, since the resourceVersion of the shard changes with the writes
+     * of any of its configs, its resourceVersion otherwise.
+     */
+    public static String versionOf(ObjectMeta metadata) {
+        Map<String, String> annotations = metadata.getAnnotations();
+        String version = annotations == null ? null : annotations.get(VERSION_ANNOTATION);
+        return version == null ? metadata.getResourceVersion() : version;
+    }
+
+    /**
+     * Adds a config to the first shard with room for it.
+     *
+     * @return the shard written
+     * @throws ConflictException when the config is already stored in a shard
+     */
+    public Secret add(String name, String configYaml) {
+        return store(Collections.singletonMap(name, configYaml), true).get(0);
+    }
+
+    /**
+     * Adds configs, filling the shards in order and creating new ones when they are full. Configs already stored in a
+     * shard are skipped, so that an interrupted migration can be run again.
+     *
+     * @return the shards written
+     */
+    public List<Secret> addAll(Map<String, String> configYamls) {
+        return store(configYamls, false);
+    }
+
+    /**
+     * Replaces a config, moving it to another shard when its own has no room left for the new value.
+     *
+     * @return the shard written, or null when the config is not stored in a shard
+     */
+    public Secret replace(String name, String configYaml) {
+        String encoded = encode(configYaml);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return replace(name, encoded, listShards());
+            } catch (KubernetesClientException e) {
+                if (!isConcurrentChange(e) || attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Connection config shard changed concurrently, replacing {} again", name);
+            }
+        }
+    }
+
+    private Secret replace(String name, String encoded, List<Secret> shards) {
+        Secret current = shards.stream().filter(shard -> data(shard).containsKey(name)).findFirst().orElse(null);
+        if (current == null) {
+            return null;
+        }
+        String currentName = current.getMetadata().getName();
+        long remaining = size(current) - entrySize(name, data(current).get(name));
+        if (remaining + entrySize(name, encoded) <= maxShardBytes) {
+            return patch(currentName, guarded(current, operation("replace", dataPath(name), encoded)));
+        }
+        // added to the other shard first, so that the config is never missing
+        Map<String, Long> sizes = sizes(shards);
+        sizes.remove(currentName);
+        String target = shardWithRoom(sizes, entrySize(name, encoded), shards);
+        Secret written = write(target, Collections.singletonMap(name, encoded), shards);
+        try {
+            // only a concurrent write of this config matters here, others can't overfill a shard by a removal
+            patch(currentName, Arrays.asList(operation("test", dataPath(name), data(current).get(name)),
+                    operation("remove", dataPath(name), null)));
+        } catch (KubernetesClientException e) {
+            if (isConcurrentChange(e)) {
+                // the config was written again meanwhile, the copy just added is taken back before trying again
+                removeIfUnchanged(target, name, encoded);
+            }
+            throw e;
+        }
+        log.debug("Moved connection config {} from shard {} to {}", name, currentName, target);
+        return written;
+    }
+
+    private void removeIfUnchanged(String shardName, String name, String encoded) {
+        try {
+            patch(shardName, Arrays.asList(operation("test", dataPath(name), encoded),
+                    operation("remove", dataPath(name), null)));
+        } catch (KubernetesClientException e) {
+            log.warn("Unable to take back connection config {} from shard {}", name, shardName, e);
+        }
+    }
+
+    /**
+     * Removes a config from its shard. Shards are kept when they become empty, to be filled again.
+     *
+     * @return the shard written, or null when the config is not stored in a shard
+     */
+    public Secret remove(String name) {
+        for (Secret shard : listShards()) {
+            if (data(shard).containsKey(name)) {
+                try {
+                    return patch(shard.getMetadata().getName(),
+                            Collections.singletonList(operation("remove", dataPath(name), null)));
+                } catch (KubernetesClientException e) {
+                    if (e.getCode() != HttpStatus.UNPROCESSABLE_ENTITY.value()) {
+                        throw e;
+                    }
+                    // removed concurrently
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lists the shards of the plugin in order.
+     */
+    public List<Secret> listShards() {
+        return client.secrets().inNamespace(client.getConfiguration().getNamespace())
+                .withLabel(SHARD_LABEL, entandoPluginName)
+                .list()
+                .getItems().stream()
+                .sorted(Comparator.comparingLong(shard -> index(shard.getMetadata().getName())))
+                .collect(Collectors.toList());
+    }
+
+    private List<Secret> store(Map<String, String> configYamls, boolean failWhenStored) {
+        for (int attempt = 1; ; attempt++) {
+            List<Secret> shards = listShards();
+            Map<String, Long> sizes = sizes(shards);
+            Map<String, Map<String, String>> planned = new LinkedHashMap<>();
+            configYamls.forEach((name, configYaml) -> {
+                if (shards.stream().anyMatch(shard -> data(shard).containsKey(name))) {
+                    if (failWhenStored) {
+                        throw new ConflictException(ERROR_SECRET_ALREADY_EXISTS);
+                    }
+                    return;
+                }
+                String encoded = encode(configYaml);
+                String target = shardWithRoom(sizes, entrySize(name, encoded), shards);
+                sizes.merge(target, entrySize(name, encoded), Long::sum);
+                planned.computeIfAbsent(target, shardName -> new LinkedHashMap<>()).put(name, encoded);
+            });
+            try {
+                List<Secret> written = new ArrayList<>();
+                planned.forEach((shardName, entries) -> written.add(write(shardName, entries, shards)));
+                return written;
+            } catch (KubernetesClientException e) {
+                if (!isConcurrentChange(e) || attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Connection config shard changed concurrently, adding configs again");
+            }
+        }
+    }
+
+    // a new shard when none of them has room
+    private String shardWithRoom(Map<String, Long> sizes, long entrySize, List<Secret> shards) {
+        return sizes.entrySet().stream()
+                .filter(size -> size.getValue() + entrySize <= maxShardBytes)
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElseGet(() -> {
+                    long next = sizes.keySet().stream().mapToLong(ConnectionConfigShards::index).max().orElse(-1) + 1;
+                    for (Secret shard : shards) {
+                        next = Math.max(next, index(shard.getMetadata().getName()) + 1);
+                    }
+                    String shardName = entandoPluginName + SHARD_INFIX + next;
+                    sizes.put(shardName, 0L);
+                    return shardName;
+                });
+    }
+
+    private Secret write(String shardName, Map<String, String> entries, List<Secret> shards) {
+        Secret listed = shards.stream()
+                .filter(shard -> shard.getMetadata().getName().equals(shardName))
+                .findFirst()
+                .orElse(null);
+        if (listed == null) {
+            return client.secrets().inNamespace(client.getConfiguration().getNamespace()).create(new SecretBuilder()
+                    .withApiVersion(API_VERSION)
+                    .withNewMetadata()
+                    .withName(shardName)
+                    .addToLabels(PLUGIN_LABEL, entandoPluginName)
+                    .addToLabels(SHARD_LABEL, entandoPluginName)
+                    .endMetadata()
+                    .withType(OPAQUE_TYPE)
+                    .withData(entries)
+                    .build());
+        }
+        List<Map<String, Object>> operations = guarded(listed);
+        entries.forEach((name, encoded) -> operations.add(operation("add", dataPath(name), encoded)));
+        Secret written = patch(shardName, operations);
+        if (written == null) {
+            // deleted since it was listed, planned again
+            throw new KubernetesClientException("Connection config shard " + shardName + " not found",
+                    HttpStatus.CONFLICT.value(), null);
+        }
+        return written;
+    }
+
+    /**
+     * Starts a patch of a shard as it was listed. Its size, and so the room left, was computed from that listing, and
+     * an {@code add} replaces a key added concurrently, so the patch fails with 422 when the shard changed since.
+     */
+    @SafeVarargs
+    private static List<Map<String, Object>> guarded(Secret shard, Map<String, Object>... operations) {
+        List<Map<String, Object>> guarded = new ArrayList<>();
+        guarded.add(operation("test", RESOURCE_VERSION_PATH, shard.getMetadata().getResourceVersion()));
+        guarded.addAll(Arrays.asList(operations));
+        return guarded;
+    }
+
+    private static boolean isConcurrentChange(KubernetesClientException e) {
+        return e.getCode() == HttpStatus.CONFLICT.value() || e.getCode() == HttpStatus.UNPROCESSABLE_ENTITY.value();
+    }
+
+    private Secret patch(String shardName, List<Map<String, Object>> operations) {
+        return JsonPatches.patch(client, SECRETS_API_PATH, SECRETS, shardName, operations, Secret.class);
+    }
+
+    private static String digestOf(String encoded) {
+        return DigestUtils.md5DigestAsHex(encoded.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> annotationsOf(String encoded) {
+        return ConfigYamlCompression.isCompressed(encoded)
+                ? Collections.singletonMap(ConfigYamlCompression.ENCODING_ANNOTATION, ConfigYamlCompression.GZIP)
+                : Collections.emptyMap();
+    }
+
+    private static Map<String, Long> sizes(List<Secret> shards) {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        shards.forEach(shard -> sizes.put(shard.getMetadata().getName(), size(shard)));
+        return sizes;
+    }
+
+    private static long size(Secret shard) {
+        return data(shard).entrySet().stream().mapToLong(entry -> entrySize(entry.getKey(), entry.getValue())).sum();
+    }
+
+    private static long entrySize(String name, String encoded) {
+        return name.length() + (encoded == null ? 0 : encoded.length());
+    }
+
+    private static Map<String, String> data(Secret shard) {
+        return shard.getData() == null ? Collections.emptyMap() : shard.getData();
+    }
+
+    private static long index(String shardName) {
+        String index = shardName.substring(shardName.lastIndexOf('-') + 1);
+        return NumberUtils.isDigits(index) ? Long.parseLong(index) : Long.MAX_VALUE;
+    }
+
+    private static String dataPath(String name) {
+        return DATA_PATH + JsonPatches.escape(name);
+    }
+
+    private String encode(String configYaml) {
+        return compression.encode(configYaml);
+    }
+}
@@ -0,0 +1,69 @@
+package org.entando.entandopluginsidecar.service;
+
+import java.util.List;
+import java.util.function.Consumer;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchOperationDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchResultDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigPageDto;
+
+/**
+ * Where the connection configs served by the endpoints are kept, chosen with {@link #TYPE}. {@link
+ * ConnectionConfigService} keeps them in Kubernetes Secrets listed by the EntandoPlugin and is the default. {@link
+ * InMemoryConnectionConfigStore} and {@link FileConnectionConfigStore} need no cluster, for development, benchmarks
+ * and edge deployments.
+ *
+ * <p>Implementations fail with the same exceptions, and error keys, as the Kubernetes one.
+ */
+public interface ConnectionConfigStore {
+
+    String TYPE = "entando.sidecar.store.type";
+    String KUBERNETES = "kubernetes";
+
+    void addConnectionConfig(ConnectionConfigDto connectionConfigDto);
+
+    default ConnectionConfigDto getConnectionConfig(String name) {
+        return getVersionedConnectionConfig(name).getValue();
+    }
+
+    /**
+     * Reads a config, with an ETag that changes whenever it does.
+     */
+    Versioned<ConnectionConfigDto> getVersionedConnectionConfig(String name);
+
+    default List<ConnectionConfigDto> getAllConnectionConfig() {
+        return getAllVersionedConnectionConfig().getValue();
+    }
+
+    default Versioned<List<ConnectionConfigDto>> getAllVersionedConnectionConfig() {
+        return getAllVersionedConnectionConfig(ConnectionConfigProjection.ALL);
+    }
+
+    /**
+     * Reads the parts of all configs selected by {@code projection}, with an ETag that changes whenever any of them
+     * does.
+     */
+    Versioned<List<ConnectionConfigDto>> getAllVersionedConnectionConfig(ConnectionConfigProjection projection);
+
+    /**
+     * Reads up to {@code limit} configs in name order, starting after the last config of the previous page.
+     *
+     * @param continueToken the {@code continue} of the previous page, null for the first one
+     */
+    ConnectionConfigPageDto getConnectionConfigPage(int limit, String continueToken);
+
+    /**
+     * Passes every config to {@code consumer}, in no particular order, without holding all of them.
+     */
+    void forEachConnectionConfig(Consumer<ConnectionConfigDto> consumer);
+
+    ConnectionConfigDto editConnectionConfig(ConnectionConfigDto configDto);
+
+    void removeConnectionConfig(String configName);
+
+    /**
+     * Applies every operation, returning a result for each of them in the same order. A failed operation doesn't
+     * prevent the others.
+     */
+    List<ConnectionConfigBatchResultDto> applyBatch(List<ConnectionConfigBatchOperationDto> operations);
+}
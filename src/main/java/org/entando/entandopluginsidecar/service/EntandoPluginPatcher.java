@@ -0,0 +1,172 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.entando.entandopluginsidecar.service.JsonPatches.operation;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.kubernetes.model.plugin.EntandoPlugin;
+import org.entando.kubernetes.model.plugin.EntandoPluginOperationFactory;
+import org.entando.web.exception.ConflictException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Changes {@code spec.connectionConfigNames} of the EntandoPlugin with JSON patches instead of replacing the whole
+ * resource, so that concurrent writers don't overwrite each other's changes.
+ *
+ * <p>Removals address entries by index, so each one is guarded by a {@code test} operation on the entry it removes.
+ * This conditions the write on just the entries it depends on rather than on the resourceVersion of the whole resource,
+ * so writers changing other fields or removing other names don't conflict. Additions of names that aren't listed yet
+ * are appended, guarded by a {@code test} on the whole list since they depend on the name not being in it, so that two
+ * writers adding the same name don't both append it. The write creating the list, which would replace one created
+ * concurrently, is guarded by the resourceVersion. When another writer got in the way, the API server rejects the patch
+ * with 409 or 422 and it is computed again from a fresh read, after a random pause that doubles with every attempt.
+ * Once the attempts are used up the write fails with a {@link ConflictException}.
+ */
+@Slf4j
+@Component
+public class EntandoPluginPatcher {
+
+    public static final String ERROR_CONCURRENT_MODIFICATION = "org.entando.error.plugin.concurrentModification";
+
+    static final String NAMES_PATH = "/spec/connectionConfigNames";
+    static final String RESOURCE_VERSION_PATH = "/metadata/resourceVersion";
+    static final String RETRIES_METRIC = "entando.sidecar.plugin.write.retries";
+    static final String CONFLICTS_METRIC = "entando.sidecar.plugin.write.conflicts";
+    static final int DEFAULT_MAX_ATTEMPTS = 5;
+    static final long DEFAULT_RETRY_JITTER_MILLIS = 50;
+
+    private static final String ENTANDO_PLUGINS_PATH = "apis/entando.org/v1";
+    private static final String ENTANDO_PLUGINS = "entandoplugins";
+
+    private final KubernetesClient client;
+    private final String entandoPluginName;
+    private final int maxAttempts;
+    private final long retryJitterMillis;
+    private final Counter retries;
+    private final Counter exhausted;
+
+    @Autowired
+    public EntandoPluginPatcher(KubernetesClient client, @Value("${entando.plugin.name}") String entandoPluginName,
+            @Value("${entando.sidecar.plugin-write.max-attempts:5}") int maxAttempts,
+            @Value("${entando.sidecar.plugin-write.retry-jitter-ms:50}") long retryJitterMillis,
+            MeterRegistry meterRegistry) {
+        this.client = client;
+        this.entandoPluginName = entandoPluginName;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryJitterMillis = Math.max(1, retryJitterMillis);
+        this.retries = Counter.builder(RETRIES_METRIC)
+                .description("EntandoPlugin patches sent again after a concurrent change")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder(CONFLICTS_METRIC)
+                .description("EntandoPlugin writes given up after running out of attempts")
+                .register(meterRegistry);
+    }
+
+    public EntandoPluginPatcher(KubernetesClient client, String entandoPluginName) {
+        this(client, entandoPluginName, DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_JITTER_MILLIS, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Applies the given changes on top of {@code current}, which may come from the cache.
+     *
+     * @return the patched EntandoPlugin, {@code current} when there's nothing to change or null when it doesn't exist
+     * @throws ConflictException when the EntandoPlugin kept changing for all the attempts
+     */
+    public EntandoPlugin updateConnectionConfigNames(EntandoPlugin current, Collection<String> added,
+            Collection<String> removed) {
+        EntandoPlugin entandoPlugin = current;
+        for (int attempt = 1; entandoPlugin != null; attempt++) {
+            List<Map<String, Object>> operations = operations(entandoPlugin, added, removed);
+            if (operations.isEmpty()) {
+                return entandoPlugin;
+            }
+            try {
+                return patch(operations);
+            } catch (KubernetesClientException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("EntandoPlugin {} kept changing concurrently, giving up after {} attempts",
+                            entandoPluginName, attempt);
+                    throw new ConflictException(ERROR_CONCURRENT_MODIFICATION);
+                }
+                log.debug("EntandoPlugin {} changed concurrently, patching again", entandoPluginName);
+                retries.increment();
+                pause(attempt);
+                entandoPlugin = readEntandoPlugin();
+            }
+        }
+        return null;
+    }
+
+    private static List<Map<String, Object>> operations(EntandoPlugin entandoPlugin, Collection<String> added,
+            Collection<String> removed) {
+        List<String> names = entandoPlugin.getSpec().getConnectionConfigNames();
+        List<Map<String, Object>> operations = new ArrayList<>();
+        if (names == null) {
+            if (!added.isEmpty()) {
+                // an add of the whole list replaces one written concurrently, unless nothing changed since the read
+                operations.add(operation("test", RESOURCE_VERSION_PATH,
+                        entandoPlugin.getMetadata().getResourceVersion()));
+                operations.add(operation("add", NAMES_PATH, added.stream().distinct().collect(Collectors.toList())));
+            }
+            return operations;
+        }
+        List<String> appended = added.stream()
+                .filter(name -> !names.contains(name))
+                .distinct()
+                .collect(Collectors.toList());
+        if (!appended.isEmpty()) {
+            // an append depends on the names not being listed yet, so on the whole list
+            operations.add(operation("test", NAMES_PATH, names));
+        }
+        // from the end, so that each removal leaves the indexes of the following ones untouched
+        for (int i = names.size() - 1; i >= 0; i--) {
+            if (removed.contains(names.get(i))) {
+                operations.add(operation("test", NAMES_PATH + "/" + i, names.get(i)));
+                operations.add(operation("remove", NAMES_PATH + "/" + i, null));
+            }
+        }
+        appended.forEach(name -> operations.add(operation("add", NAMES_PATH + "/-", name)));
+        return operations;
+    }
+
+    private static boolean isConflict(KubernetesClientException e) {
+        return e.getCode() == HttpStatus.CONFLICT.value() || e.getCode() == HttpStatus.UNPROCESSABLE_ENTITY.value();
+    }
+
+    private EntandoPlugin patch(List<Map<String, Object>> operations) {
+        return JsonPatches.patch(client, ENTANDO_PLUGINS_PATH, ENTANDO_PLUGINS, entandoPluginName, operations,
+                EntandoPlugin.class);
+    }
+
+    // writers that lost the same race would otherwise read and patch again in lockstep
+    private void pause(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(retryJitterMillis << Math.min(attempt - 1, 10)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KubernetesClientException("Interrupted while patching EntandoPlugin", e);
+        }
+    }
+
+    private EntandoPlugin readEntandoPlugin() {
+        return EntandoPluginOperationFactory.produceAllEntandoPlugins(client)
+                .inNamespace(client.getConfiguration().getNamespace()).withName(entandoPluginName).get();
+    }
+}
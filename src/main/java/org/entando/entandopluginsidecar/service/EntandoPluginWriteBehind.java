@@ -0,0 +1,189 @@
+package org.entando.entandopluginsidecar.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.kubernetes.model.plugin.EntandoPlugin;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Merges the changes to {@code spec.connectionConfigNames} made within {@code windowMillis} of each other into a single
+ * EntandoPlugin patch, so that bulk provisioning doesn't write the EntandoPlugin, and trigger a reconcile, once per
+ * config. Callers wait until the merged patch is written and get its outcome, the same for all of them.
+ *
+ * <p>A change undoing one that is pending for the same name, such as removing a name added within the window, is not
+ * merged with it, since both callers would then be told their change was written when neither was. The pending patch
+ * is written right away instead and the change goes to the next one. Patches are written one at a time, in order.
+ * With a window of 0, each change is written right away on the calling thread, still one at a time, since the patches
+ * of concurrent writers would otherwise conflict and be retried.
+ */
+@Slf4j
+@Component
+public class EntandoPluginWriteBehind {
+
+    public static final String BATCH_SIZE_METRIC = "entando.sidecar.plugin.write.batch.size";
+
+    private final EntandoPluginPatcher pluginPatcher;
+    private final ApiServerCircuitBreaker circuitBreaker;
+    private final long windowMillis;
+    private final DistributionSummary batchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Object lock = new Object();
+    private final Object writeLock = new Object();
+    private PendingWrite pending;
+
+    @Autowired
+    public EntandoPluginWriteBehind(EntandoPluginPatcher pluginPatcher, ApiServerCircuitBreaker circuitBreaker,
+            @Value("${entando.sidecar.plugin-write.coalesce-window-ms:0}") long windowMillis,
+            MeterRegistry meterRegistry) {
+        this.pluginPatcher = pluginPatcher;
+        this.circuitBreaker = circuitBreaker;
+        this.windowMillis = windowMillis;
+        this.batchSize = DistributionSummary.builder(BATCH_SIZE_METRIC)
+                .description("Connection config name changes written by each EntandoPlugin patch")
+                .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "plugin-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Writes each change right away.
+     */
+    public static EntandoPluginWriteBehind disabled(EntandoPluginPatcher pluginPatcher) {
+        return new EntandoPluginWriteBehind(pluginPatcher, ApiServerCircuitBreaker.disabled(), 0,
+                new SimpleMeterRegistry());
+    }
+
+    /**
+     * Pending changes are still written, the ones made afterwards right away.
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Appends a name unless it is listed already.
+     *
+     * @param current the EntandoPlugin to apply the change on
+     * @return the patched EntandoPlugin, or null when it doesn't exist
+     */
+    public EntandoPlugin appendConnectionConfigName(Supplier<EntandoPlugin> current, String name) {
+        return updateConnectionConfigNames(current, Collections.singletonList(name), Collections.emptyList());
+    }
+
+    /**
+     * Applies the given changes, merged with the other ones made within the window.
+     *
+     * @see EntandoPluginPatcher#updateConnectionConfigNames(EntandoPlugin, Collection, Collection)
+     */
+    public EntandoPlugin updateConnectionConfigNames(Supplier<EntandoPlugin> current, Collection<String> added,
+            Collection<String> removed) {
+        return isCoalescing()
+                ? enqueue(current, added, removed)
+                : write(current, added, removed);
+    }
+
+    private boolean isCoalescing() {
+        return windowMillis > 0 && !scheduler.isShutdown();
+    }
+
+    private EntandoPlugin enqueue(Supplier<EntandoPlugin> current, Collection<String> added,
+            Collection<String> removed) {
+        CompletableFuture<EntandoPlugin> result;
+        synchronized (lock) {
+            if (pending != null && pending.undoneBy(added, removed)) {
+                PendingWrite undone = pending;
+                pending = null;
+                // ahead of the scheduled flush of the next patch, on the same thread
+                scheduler.execute(() -> flush(undone));
+            }
+            if (pending == null) {
+                PendingWrite write = new PendingWrite(current);
+                pending = write;
+                scheduler.schedule(() -> flush(write), windowMillis, TimeUnit.MILLISECONDS);
+            }
+            pending.merge(added, removed);
+            result = pending.result;
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void flush(PendingWrite write) {
+        synchronized (lock) {
+            if (write.flushed) {
+                return;
+            }
+            write.flushed = true;
+            if (pending == write) {
+                pending = null;
+            }
+        }
+        batchSize.record(write.changes);
+        log.debug("Writing {} connection config name changes to the EntandoPlugin at once", write.changes);
+        try {
+            write.result.complete(write(write.current, write.added, write.removed));
+        } catch (RuntimeException | Error e) {
+            write.result.completeExceptionally(e);
+        }
+    }
+
+    // a merged patch is a single call through the circuit breaker, whatever the number of callers waiting for it
+    private EntandoPlugin write(Supplier<EntandoPlugin> current, Collection<String> added,
+            Collection<String> removed) {
+        // concurrent appends would fail each other's guards, so they queue up here instead of retrying
+        synchronized (writeLock) {
+            return circuitBreaker.call(() -> pluginPatcher.updateConnectionConfigNames(current.get(), added,
+                    removed));
+        }
+    }
+
+    private static class PendingWrite {
+
+        private final Supplier<EntandoPlugin> current;
+        private final Set<String> added = new LinkedHashSet<>();
+        private final Set<String> removed = new LinkedHashSet<>();
+        private final CompletableFuture<EntandoPlugin> result = new CompletableFuture<>();
+        private int changes;
+        // guarded by the lock
+        private boolean flushed;
+
+        PendingWrite(Supplier<EntandoPlugin> current) {
+            this.current = current;
+        }
+
+        boolean undoneBy(Collection<String> addedNames, Collection<String> removedNames) {
+            return addedNames.stream().anyMatch(removed::contains) || removedNames.stream().anyMatch(added::contains);
+        }
+
+        void merge(Collection<String> addedNames, Collection<String> removedNames) {
+            added.addAll(addedNames);
+            removed.addAll(removedNames);
+            changes += addedNames.size() + removedNames.size();
+        }
+    }
+}
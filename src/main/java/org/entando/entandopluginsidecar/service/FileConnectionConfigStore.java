@@ -0,0 +1,100 @@
+package org.entando.entandopluginsidecar.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.YamlUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * A {@link ConnectionConfigStore} keeping each config in a {@code <name>.yaml} file of a local directory, with the
+ * same YAML as the Secrets of the Kubernetes store. The files are read once at startup and reads are then served from
+ * memory, so files changed by hand are only seen after a restart.
+ *
+ * <p>A file is written to a temporary file first and then moved over the previous one, so a crash never leaves a
+ * config half written.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = ConnectionConfigStore.TYPE, havingValue = FileConnectionConfigStore.FILE)
+public class FileConnectionConfigStore extends InMemoryConnectionConfigStore {
+
+    public static final String FILE = "file";
+
+    private static final String EXTENSION = ".yaml";
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private final Path directory;
+
+    public FileConnectionConfigStore(ConnectionConfigMetrics metrics,
+            @Value("${entando.sidecar.store.file.directory:connection-configs}") String directory) {
+        super(metrics);
+        this.directory = Paths.get(directory);
+        loadAll();
+    }
+
+    @Override
+    protected void beforePut(ConnectionConfigDto config) {
+        Path temp = directory.resolve(config.getName() + TEMP_EXTENSION);
+        try {
+            Files.write(temp, YamlUtils.toYaml(config).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, fileOf(config.getName()), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected void beforeRemove(String name) {
+        try {
+            Files.deleteIfExists(fileOf(name));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // names are valid Secret names, which can't point outside of the directory
+    private Path fileOf(String name) {
+        return directory.resolve(name + EXTENSION);
+    }
+
+    private void loadAll() {
+        try {
+            Files.createDirectories(directory);
+            int loaded = 0;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+                for (Path file : files) {
+                    String fileName = file.getFileName().toString();
+                    String name = fileName.substring(0, fileName.length() - EXTENSION.length());
+                    if (!isValidName(name)) {
+                        log.warn("Ignoring {}, {} is not a valid connection config name", file, name);
+                        continue;
+                    }
+                    ConnectionConfigDto config = YamlUtils.fromYaml(new String(Files.readAllBytes(file),
+                            StandardCharsets.UTF_8));
+                    if (config == null) {
+                        log.warn("Ignoring {}, it is empty", file);
+                        continue;
+                    }
+                    // the file name wins, it is what the config is written back to
+                    config.setName(name);
+                    load(config);
+                    loaded++;
+                }
+            }
+            log.info("Loaded {} connection configs from {}", loaded, directory.toAbsolutePath());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.entando.entandopluginsidecar.service.ConnectionConfigService.ERROR_BATCH_OPERATION_FAILED;
+import static org.entando.entandopluginsidecar.service.ConnectionConfigService.ERROR_INVALID_LIMIT;
+import static org.entando.entandopluginsidecar.service.ConnectionConfigService.ERROR_SECRET_ALREADY_EXISTS;
+import static org.entando.entandopluginsidecar.service.ConnectionConfigService.ERROR_SECRET_NOT_FOUND;
+import static org.entando.entandopluginsidecar.service.ConnectionConfigService.ERROR_VALIDATION;
+import static org.entando.entandopluginsidecar.service.ConnectionConfigService.batchResult;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchOperationDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchResultDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigPageDto;
+import org.entando.entandopluginsidecar.exception.BadRequestException;
+import org.entando.web.exception.ConflictException;
+import org.entando.web.exception.NotFoundException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+/**
+ * A {@link ConnectionConfigStore} keeping the configs in memory only, so they are lost on restart. Reads take no lock
+ * and writes are serialized, without any I/O.
+ *
+ * <p>ETags are built from a version bumped on every write and from an id of the instance, so that the ETags of a
+ * restarted sidecar never match the ones it sent before. Config names must be valid Secret names, as with Kubernetes.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = ConnectionConfigStore.TYPE, havingValue = InMemoryConnectionConfigStore.MEMORY)
+public class InMemoryConnectionConfigStore implements ConnectionConfigStore {
+
+    public static final String MEMORY = "memory";
+
+    // a DNS-1123 subdomain, what Kubernetes accepts as a Secret name
+    private static final Pattern NAME = Pattern.compile(
+            "[a-z0-9]([-a-z0-9]*[a-z0-9])?(\\.[a-z0-9]([-a-z0-9]*[a-z0-9])?)*");
+    private static final int MAX_NAME_LENGTH = 253;
+
+    private final ConnectionConfigMetrics metrics;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final NavigableMap<String, StoredConfig> configs = new ConcurrentSkipListMap<>();
+    // bumped after every change, written under the lock
+    private volatile long version;
+
+    public InMemoryConnectionConfigStore(ConnectionConfigMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void addConnectionConfig(ConnectionConfigDto connectionConfigDto) {
+        metrics.run(ConnectionConfigService.ADD, () -> {
+            validate(connectionConfigDto);
+            synchronized (this) {
+                if (configs.containsKey(connectionConfigDto.getName())) {
+                    throw new ConflictException(ERROR_SECRET_ALREADY_EXISTS);
+                }
+                put(connectionConfigDto);
+            }
+        });
+    }
+
+    @Override
+    public Versioned<ConnectionConfigDto> getVersionedConnectionConfig(String name) {
+        return metrics.recordVersioned(ConnectionConfigService.GET, () -> {
+            StoredConfig stored = name == null ? null : configs.get(name);
+            if (stored == null) {
+                throw new NotFoundException(ERROR_SECRET_NOT_FOUND);
+            }
+            return new Versioned<>(ConnectionConfigService.etagOf(Collections.singletonList(
+                    versionOf(instanceId + '/' + name, stored.version))), () -> copyOf(stored.config));
+        });
+    }
+
+    /**
+     * Reads the parts of all configs selected by {@code projection}. The ETag is read before the configs, so configs
+     * changed in between are sent again on the next read.
+     */
+    @Override
+    public Versioned<List<ConnectionConfigDto>> getAllVersionedConnectionConfig(ConnectionConfigProjection projection) {
+        return metrics.recordVersioned(ConnectionConfigService.LIST, () -> new Versioned<>(
+                ConnectionConfigService.etagOf(Collections.singletonList(versionOf(instanceId, version)),
+                        projection.getVariant()),
+                () -> configs.values().stream()
+                        .map(stored -> projection.isNamesOnly() ? new ConnectionConfigDto(stored.config.getName(), null)
+                                : projection.apply(copyOf(stored.config)))
+                        .collect(Collectors.toList())));
+    }
+
+    @Override
+    public ConnectionConfigPageDto getConnectionConfigPage(int limit, String continueToken) {
+        return metrics.record(ConnectionConfigService.LIST_PAGE, () -> {
+            if (limit < 1) {
+                throw new BadRequestException(ERROR_INVALID_LIMIT);
+            }
+            NavigableMap<String, StoredConfig> remaining = continueToken == null ? configs
+                    : configs.tailMap(ConnectionConfigService.decodeContinue(continueToken), false);
+            List<ConnectionConfigDto> page = new ArrayList<>();
+            boolean more = false;
+            for (StoredConfig stored : remaining.values()) {
+                if (page.size() == limit) {
+                    more = true;
+                    break;
+                }
+                page.add(copyOf(stored.config));
+            }
+            String next = more ? ConnectionConfigService.encodeContinue(page.get(page.size() - 1).getName()) : null;
+            return new ConnectionConfigPageDto(page, next);
+        });
+    }
+
+    @Override
+    public void forEachConnectionConfig(Consumer<ConnectionConfigDto> consumer) {
+        metrics.run(ConnectionConfigService.STREAM,
+                () -> configs.values().forEach(stored -> consumer.accept(copyOf(stored.config))));
+    }
+
+    @Override
+    public ConnectionConfigDto editConnectionConfig(ConnectionConfigDto configDto) {
+        return metrics.record(ConnectionConfigService.EDIT, () -> {
+            validate(configDto);
+            synchronized (this) {
+                if (!configs.containsKey(configDto.getName())) {
+                    throw new NotFoundException(ERROR_SECRET_NOT_FOUND);
+                }
+                put(configDto);
+            }
+            return configDto;
+        });
+    }
+
+    @Override
+    public void removeConnectionConfig(String configName) {
+        metrics.run(ConnectionConfigService.REMOVE, () -> {
+            synchronized (this) {
+                if (configName != null && configs.containsKey(configName)) {
+                    remove(configName);
+                }
+            }
+        });
+    }
+
+    @Override
+    public List<ConnectionConfigBatchResultDto> applyBatch(List<ConnectionConfigBatchOperationDto> operations) {
+        return metrics.record(ConnectionConfigService.BATCH, () -> {
+            synchronized (this) {
+                return operations.stream()
+                        .map(this::applyOperation)
+                        .collect(Collectors.toList());
+            }
+        });
+    }
+
+    private ConnectionConfigBatchResultDto applyOperation(ConnectionConfigBatchOperationDto operation) {
+        if (operation.getOperation() == null || !isValidName(operation.getName())) {
+            return batchResult(operation, HttpStatus.BAD_REQUEST, ERROR_VALIDATION);
+        }
+        String name = operation.getName();
+        try {
+            switch (operation.getOperation()) {
+                case CREATE:
+                    if (configs.containsKey(name)) {
+                        return batchResult(operation, HttpStatus.CONFLICT, ERROR_SECRET_ALREADY_EXISTS);
+                    }
+                    put(operation.toConnectionConfigDto());
+                    return batchResult(operation, HttpStatus.CREATED, null);
+                case EDIT:
+                    if (!configs.containsKey(name)) {
+                        return batchResult(operation, HttpStatus.NOT_FOUND, ERROR_SECRET_NOT_FOUND);
+                    }
+                    put(operation.toConnectionConfigDto());
+                    return batchResult(operation, HttpStatus.OK, null);
+                case DELETE:
+                    if (!configs.containsKey(name)) {
+                        return batchResult(operation, HttpStatus.NOT_FOUND, ERROR_SECRET_NOT_FOUND);
+                    }
+                    remove(name);
+                    return batchResult(operation, HttpStatus.OK, null);
+                default:
+                    return batchResult(operation, HttpStatus.BAD_REQUEST, ERROR_VALIDATION);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Unable to {} connection config {}", operation.getOperation(), name, e);
+            return batchResult(operation, HttpStatus.INTERNAL_SERVER_ERROR, ERROR_BATCH_OPERATION_FAILED);
+        }
+    }
+
+    /**
+     * Called with the lock held before a config is added or replaced in memory, so that a failure leaves it unchanged.
+     */
+    protected void beforePut(ConnectionConfigDto config) {
+    }
+
+    /**
+     * Called with the lock held before a config is removed from memory, so that a failure leaves it there.
+     */
+    protected void beforeRemove(String name) {
+    }
+
+    /**
+     * Adds a config without any check, for the configs a subclass loads at startup.
+     */
+    protected final synchronized void load(ConnectionConfigDto config) {
+        configs.put(config.getName(), new StoredConfig(copyOf(config), ++version));
+    }
+
+    protected static boolean isValidName(String name) {
+        return name != null && name.length() <= MAX_NAME_LENGTH && NAME.matcher(name).matches();
+    }
+
+    private static void validate(ConnectionConfigDto config) {
+        if (config == null || !isValidName(config.getName())) {
+            throw new BadRequestException(ERROR_VALIDATION);
+        }
+    }
+
+    private void put(ConnectionConfigDto config) {
+        beforePut(config);
+        configs.put(config.getName(), new StoredConfig(copyOf(config), version + 1));
+        version++;
+    }
+
+    private void remove(String name) {
+        beforeRemove(name);
+        configs.remove(name);
+        version++;
+    }
+
+    private static ObjectMeta versionOf(String name, long version) {
+        return new ObjectMetaBuilder().withName(name).withResourceVersion(Long.toString(version)).build();
+    }
+
+    // callers can't change what is stored through the configs they pass or get
+    private static ConnectionConfigDto copyOf(ConnectionConfigDto config) {
+        return new ConnectionConfigDto(config.getName(),
+                config.getProperties() == null ? null : new HashMap<>(config.getProperties()));
+    }
+
+    private static final class StoredConfig {
+
+        private final ConnectionConfigDto config;
+        private final long version;
+
+        private StoredConfig(ConnectionConfigDto config, long version) {
+            this.config = config;
+            this.version = version;
+        }
+    }
+}
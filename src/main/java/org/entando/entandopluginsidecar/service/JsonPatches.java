@@ -0,0 +1,79 @@
+package org.entando.entandopluginsidecar.service;
+
+import io.fabric8.kubernetes.client.HttpClientAware;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.fabric8.kubernetes.client.utils.URLUtils;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Sends JSON patches, which the client only builds by diffing a resource it read first.
+ */
+final class JsonPatches {
+
+    private static final MediaType JSON_PATCH = MediaType.parse("application/json-patch+json");
+
+    private JsonPatches() {
+    }
+
+    static Map<String, Object> operation(String op, String path, Object value) {
+        Map<String, Object> operation = new LinkedHashMap<>();
+        operation.put("op", op);
+        operation.put("path", path);
+        if (value != null) {
+            operation.put("value", value);
+        }
+        return operation;
+    }
+
+    /**
+     * Escapes a map key for a JSON pointer.
+     */
+    static String escape(String key) {
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+
+    /**
+     * Patches a namespaced resource.
+     *
+     * @param apiPath such as {@code api/v1} or {@code apis/entando.org/v1}
+     * @param plural the plural resource name, such as {@code secrets}
+     * @return the patched resource, or null when it doesn't exist
+     * @throws KubernetesClientException with the status code when the patch is rejected
+     */
+    static <T> T patch(KubernetesClient client, String apiPath, String plural, String name,
+            List<Map<String, Object>> operations, Class<T> type) {
+        String namespace = client.getConfiguration().getNamespace();
+        String url = URLUtils.join(client.getMasterUrl().toString(), apiPath, "namespaces", namespace, plural, name);
+        try {
+            Request request = new Request.Builder()
+                    .url(url)
+                    .patch(RequestBody.create(JSON_PATCH, Serialization.jsonMapper().writeValueAsBytes(operations)))
+                    .build();
+            try (Response response = ((HttpClientAware) client).getHttpClient().newCall(request).execute()) {
+                ResponseBody body = response.body();
+                String content = body == null ? "" : body.string();
+                if (response.code() == HttpStatus.NOT_FOUND.value()) {
+                    return null;
+                }
+                if (!response.isSuccessful()) {
+                    throw new KubernetesClientException("Failure executing: PATCH at: " + url + ". Message: "
+                            + content, response.code(), null);
+                }
+                return Serialization.jsonMapper().readValue(content, type);
+            }
+        } catch (IOException e) {
+            throw new KubernetesClientException("Unable to patch " + plural + " " + name, e);
+        }
+    }
+}
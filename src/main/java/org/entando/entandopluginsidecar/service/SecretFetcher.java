@@ -0,0 +1,143 @@
+package org.entando.entandopluginsidecar.service;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.entandopluginsidecar.exception.ServiceUnavailableException;
+import org.entando.entandopluginsidecar.kubernetes.KubernetesApiCalls;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads Secrets by name concurrently, at most {@code parallelism} at a time, returning them in the requested order.
+ * Concurrent reads of the same Secret, from this or other callers, share a single request, which is the one call made
+ * through the {@link ApiServerCircuitBreaker}.
+ *
+ * <p>At most {@code queueSize} reads wait for a thread, the fetches that would queue more fail at once with 503
+ * instead of waiting behind them until their timeout.
+ */
+@Slf4j
+@Component
+public class SecretFetcher {
+
+    public static final String ERROR_SECRET_FETCH_TIMEOUT = "org.entando.error.secret.fetchTimeout";
+    public static final String ERROR_SECRET_FETCH_REJECTED = "org.entando.error.secret.fetchRejected";
+
+    private static final int DEFAULT_PARALLELISM = 8;
+    private static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+    private static final int DEFAULT_QUEUE_SIZE = 256;
+
+    private final KubernetesClient client;
+    private final ApiServerCircuitBreaker circuitBreaker;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+    private final SingleFlight<String, Secret> reads = new SingleFlight<>();
+
+    public SecretFetcher(KubernetesClient client, ApiServerCircuitBreaker circuitBreaker,
+            @Value("${entando.sidecar.secret-fetch.parallelism:8}") int parallelism,
+            @Value("${entando.sidecar.secret-fetch.timeout-ms:10000}") long timeoutMillis,
+            @Value("${entando.sidecar.secret-fetch.queue-size:256}") int queueSize) {
+        this.client = client;
+        this.circuitBreaker = circuitBreaker;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueSize), daemonThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static SecretFetcher withDefaults(KubernetesClient client) {
+        return new SecretFetcher(client, ApiServerCircuitBreaker.disabled(), DEFAULT_PARALLELISM,
+                DEFAULT_TIMEOUT_MILLIS, DEFAULT_QUEUE_SIZE);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Fetches the Secret with the given name on the calling thread, null when missing.
+     */
+    public Secret fetch(String name) {
+        return get(name);
+    }
+
+    /**
+     * Fetches the Secrets with the given names, failing with 503 when they are not all read within {@code
+     * timeoutMillis}, even a single one, or when the queue has no room left for them. Missing Secrets are returned as
+     * {@code null} in their position.
+     */
+    public List<Secret> fetch(List<String> names) {
+        if (names.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Future<Secret>> futures = new ArrayList<>(names.size());
+        try {
+            names.forEach(name -> futures.add(executor.submit(KubernetesApiCalls.propagate(() -> get(name)))));
+        } catch (RejectedExecutionException e) {
+            futures.forEach(future -> future.cancel(false));
+            log.warn("Fetching {} Secrets rejected, {} reads are already waiting", names.size(),
+                    executor.getQueue().size());
+            throw new ServiceUnavailableException(ERROR_SECRET_FETCH_REJECTED, e);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<Secret> secrets = new ArrayList<>(names.size());
+        try {
+            for (Future<Secret> future : futures) {
+                secrets.add(future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            }
+            return secrets;
+        } catch (TimeoutException e) {
+            log.warn("Fetching {} Secrets did not complete within {} ms", names.size(), timeoutMillis);
+            throw new ServiceUnavailableException(ERROR_SECRET_FETCH_TIMEOUT, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException(ERROR_SECRET_FETCH_TIMEOUT, e);
+        } finally {
+            // not interrupted, a read may be shared with callers that are still waiting for it
+            futures.forEach(future -> future.cancel(false));
+        }
+    }
+
+    /**
+     * Makes reads of {@code name} starting from now send a new request, to be called once it was written.
+     */
+    public void forget(String name) {
+        reads.forget(name);
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "secret-fetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // the request, and not each caller sharing it, goes through the circuit breaker
+    private Secret get(String name) {
+        return reads.execute(name, () -> circuitBreaker.call(() -> client.secrets()
+                .inNamespace(client.getConfiguration().getNamespace())
+                .withName(name)
+                .get()));
+    }
+}
@@ -0,0 +1,90 @@
+package org.entando.entandopluginsidecar.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent reads of the same key: while a read is in flight, callers asking for the same key wait for it
+ * and share its result or its exception instead of reading again. Results are not kept once the read completes.
+ *
+ * <p>A read that started before a write may return what was there before it, so writers call {@link #forget(Object)}
+ * once done, making later callers start a new read.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V execute(K key, Supplier<V> read) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> shared = inFlight.putIfAbsent(key, own);
+        if (shared != null) {
+            return join(shared);
+        }
+        try {
+            V value = read.get();
+            own.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Runs the read on {@code executor}, or returns the read in flight for {@code key}, so that waiting callers don't
+     * hold a thread.
+     *
+     * @throws RejectedExecutionException when {@code executor} doesn't accept the read
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<V> read, Executor executor) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> shared = inFlight.putIfAbsent(key, own);
+        if (shared != null) {
+            return shared;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    own.complete(read.get());
+                } catch (RuntimeException | Error e) {
+                    own.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, own);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, own);
+            throw e;
+        }
+        return own;
+    }
+
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    public void clear() {
+        inFlight.clear();
+    }
+
+    private static <V> V join(CompletableFuture<V> shared) {
+        try {
+            return shared.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
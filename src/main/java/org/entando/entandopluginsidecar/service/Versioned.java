@@ -0,0 +1,48 @@
+package org.entando.entandopluginsidecar.service;
+
+import java.util.function.Supplier;
+import lombok.Getter;
+
+/**
+ * A value with a strong ETag identifying its version. The ETag is known before the value is built, so requests for a
+ * version the client already has can be answered without building it.
+ *
+ * <p>A stale value is the last one read, served because the current one could not be read.
+ */
+public class Versioned<T> {
+
+    @Getter
+    private final String etag;
+    private final Supplier<T> value;
+    @Getter
+    private final boolean stale;
+
+    public Versioned(String etag, Supplier<T> value) {
+        this(etag, value, false);
+    }
+
+    private Versioned(String etag, Supplier<T> value, boolean stale) {
+        this.etag = etag;
+        this.value = value;
+        this.stale = stale;
+    }
+
+    public static <T> Versioned<T> of(String etag, T value) {
+        return new Versioned<>(etag, () -> value);
+    }
+
+    public Versioned<T> asStale() {
+        return new Versioned<>(etag, value, true);
+    }
+
+    /**
+     * Returns the same version, with its value built by {@code value} instead.
+     */
+    Versioned<T> withValue(Supplier<T> value) {
+        return new Versioned<>(etag, value, stale);
+    }
+
+    public T getValue() {
+        return value.get();
+    }
+}
@@ -12,15 +12,27 @@ import org.yaml.snakeyaml.representer.Representer;
 @UtilityClass
 public class YamlUtils {
 
+    // Yaml instances are not thread-safe, but can be reused by the thread that owns them
+    private static final ThreadLocal<Yaml> DUMPER = ThreadLocal.withInitial(YamlUtils::newDumper);
+    private static final ThreadLocal<Yaml> LOADER = ThreadLocal.withInitial(YamlUtils::newLoader);
+
     public static String toYaml(ConnectionConfigDto connectionConfigDto) {
+        return DUMPER.get().dump(connectionConfigDto);
+    }
+
+    public static ConnectionConfigDto fromYaml(String yaml) {
+        return LOADER.get().load(yaml);
+    }
+
+    static Yaml newDumper() {
         Representer representer = new Representer();
         representer.addClassTag(ConnectionConfigDto.class, Tag.MAP);
         DumperOptions dumperOptions = new DumperOptions();
         dumperOptions.setDefaultFlowStyle(FlowStyle.BLOCK);
-        return new Yaml(representer, dumperOptions).dump(connectionConfigDto);
+        return new Yaml(representer, dumperOptions);
     }
 
-    public static ConnectionConfigDto fromYaml(String yaml) {
-        return new Yaml(new Constructor(ConnectionConfigDto.class)).load(yaml);
+    static Yaml newLoader() {
+        return new Yaml(new Constructor(ConnectionConfigDto.class));
     }
 }
@@ -0,0 +1,103 @@
+package org.entando.entandopluginsidecar.controller;
+
+import static org.entando.entandopluginsidecar.controller.AuthPermissions.CONNECTION_CONFIG;
+import static org.entando.entandopluginsidecar.util.TestHelper.CONFIG_ENDPOINT;
+import static org.entando.entandopluginsidecar.util.TestHelper.KEYCLOAK_USER;
+import static org.entando.entandopluginsidecar.util.TestHelper.RESOURCE;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.CompletableFuture;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.exception.ServiceUnavailableException;
+import org.entando.entandopluginsidecar.service.ConnectionConfigAsyncService;
+import org.entando.entandopluginsidecar.service.ConnectionConfigService;
+import org.entando.entandopluginsidecar.service.Versioned;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.keycloak.testutils.WithMockKeycloakUser;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = ConnectionConfigAsyncService.ENABLED + "=true")
+public class ConnectionConfigAsyncControllerTest {
+
+    private static final String ETAG = "\"1\"";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean
+    private ConnectionConfigAsyncService connectionConfigAsyncService;
+
+    @MockBean
+    private ConnectionConfigService connectionConfigService;
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldGetConnectionConfigAsynchronously() throws Exception {
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        CompletableFuture<Versioned<ConnectionConfigDto>> read = new CompletableFuture<>();
+        when(connectionConfigAsyncService.getVersionedConnectionConfig(configDto.getName())).thenReturn(read);
+
+        MvcResult result = mvc.perform(get(CONFIG_ENDPOINT + "/" + configDto.getName())
+                .contentType(APPLICATION_JSON_UTF8))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        read.complete(Versioned.of(ETAG, configDto));
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is(configDto.getName())))
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG));
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldReturnNotModifiedWhenETagMatches() throws Exception {
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        when(connectionConfigAsyncService.getVersionedConnectionConfig(configDto.getName()))
+                .thenReturn(CompletableFuture.completedFuture(new Versioned<>(ETAG, () -> {
+                    throw new AssertionError("Secret should not be parsed");
+                })));
+
+        MvcResult result = mvc.perform(get(CONFIG_ENDPOINT + "/" + configDto.getName())
+                .contentType(APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldReturnServiceUnavailableWhenBusy() throws Exception {
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        when(connectionConfigAsyncService.getVersionedConnectionConfig(configDto.getName()))
+                .thenThrow(new ServiceUnavailableException(ConnectionConfigAsyncService.ERROR_BUSY));
+
+        mvc.perform(get(CONFIG_ENDPOINT + "/" + configDto.getName()).contentType(APPLICATION_JSON_UTF8))
+                .andExpect(status().isServiceUnavailable());
+    }
+}
@@ -0,0 +1,109 @@
+package org.entando.entandopluginsidecar.controller;
+
+import static org.entando.entandopluginsidecar.controller.AuthPermissions.CONNECTION_CONFIG;
+import static org.entando.entandopluginsidecar.util.TestHelper.CONFIG_ENDPOINT;
+import static org.entando.entandopluginsidecar.util.TestHelper.KEYCLOAK_USER;
+import static org.entando.entandopluginsidecar.util.TestHelper.RESOURCE;
+import static org.entando.entandopluginsidecar.util.TestHelper.WRONG_ROLE;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Arrays;
+import java.util.List;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchOperationDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchOperationDto.Operation;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchResultDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.service.ConnectionConfigService;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.keycloak.testutils.WithMockKeycloakUser;
+import org.entando.web.exception.NotFoundException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ConnectionConfigControllerBatchTest {
+
+    private static final String BATCH_ENDPOINT = CONFIG_ENDPOINT + "/batch";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private ConnectionConfigService connectionConfigService;
+
+    @Test
+    public void shouldReturnUnauthorizedWhenTryingToBatchWithoutCredentials() throws Exception {
+        mvc.perform(post(BATCH_ENDPOINT).contentType(APPLICATION_JSON_UTF8)
+                .content(objectMapper.writeValueAsString(operations())))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {WRONG_ROLE}, resource = RESOURCE)
+    public void shouldReturnForbiddenWhenTryingToBatchWithWrongRole() throws Exception {
+        mvc.perform(post(BATCH_ENDPOINT).contentType(APPLICATION_JSON_UTF8)
+                .content(objectMapper.writeValueAsString(operations())))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldReturn404ForNotFoundException() throws Exception {
+        when(connectionConfigService.applyBatch(any()))
+                .thenThrow(new NotFoundException(ConnectionConfigService.ERROR_PLUGIN_NOT_FOUND));
+
+        mvc.perform(post(BATCH_ENDPOINT).contentType(APPLICATION_JSON_UTF8)
+                .content(objectMapper.writeValueAsString(operations())))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", containsString("plugin not found")));
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldReturnAResultForEachOperation() throws Exception {
+        List<ConnectionConfigBatchOperationDto> operations = operations();
+        when(connectionConfigService.applyBatch(operations)).thenReturn(Arrays.asList(
+                new ConnectionConfigBatchResultDto(Operation.CREATE, operations.get(0).getName(), 201, null),
+                new ConnectionConfigBatchResultDto(Operation.DELETE, operations.get(1).getName(), 404,
+                        ConnectionConfigService.ERROR_SECRET_NOT_FOUND)));
+
+        mvc.perform(post(BATCH_ENDPOINT).contentType(APPLICATION_JSON_UTF8)
+                .content(objectMapper.writeValueAsString(operations)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].name", is(operations.get(0).getName())))
+                .andExpect(jsonPath("$[0].status", is(201)))
+                .andExpect(jsonPath("$[1].operation", is("DELETE")))
+                .andExpect(jsonPath("$[1].status", is(404)))
+                .andExpect(jsonPath("$[1].error", is(ConnectionConfigService.ERROR_SECRET_NOT_FOUND)));
+    }
+
+    private static List<ConnectionConfigBatchOperationDto> operations() {
+        ConnectionConfigDto toCreate = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto toDelete = TestHelper.getRandomConnectionConfigDto();
+        return Arrays.asList(
+                new ConnectionConfigBatchOperationDto(Operation.CREATE, toCreate.getName(),
+                        toCreate.getProperties()),
+                new ConnectionConfigBatchOperationDto(Operation.DELETE, toDelete.getName(), null));
+    }
+}
@@ -0,0 +1,42 @@
+package org.entando.entandopluginsidecar.controller;
+
+import static org.entando.entandopluginsidecar.controller.AuthPermissions.CONNECTION_CONFIG;
+import static org.entando.entandopluginsidecar.util.TestHelper.CONFIG_ENDPOINT;
+import static org.entando.entandopluginsidecar.util.TestHelper.KEYCLOAK_USER;
+import static org.entando.entandopluginsidecar.util.TestHelper.RESOURCE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.entando.keycloak.testutils.WithMockKeycloakUser;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "entando.sidecar.store.type=memory")
+@AutoConfigureMockMvc
+public class ConnectionConfigControllerEventsWithoutKubernetesTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldReturnNotImplementedWhenWatching() throws Exception {
+        mvc.perform(get(CONFIG_ENDPOINT).param("watch", "true").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isNotImplemented());
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldReturnNotImplementedWhenGettingChanges() throws Exception {
+        mvc.perform(get(CONFIG_ENDPOINT).param("since", "0").contentType(APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotImplemented());
+    }
+}
@@ -9,11 +9,14 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
 import org.entando.entandopluginsidecar.service.ConnectionConfigService;
+import org.entando.entandopluginsidecar.service.Versioned;
 import org.entando.entandopluginsidecar.util.TestHelper;
 import org.entando.keycloak.testutils.WithMockKeycloakUser;
 import org.junit.Test;
@@ -22,6 +25,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -30,6 +34,8 @@ import org.springframework.test.web.servlet.MockMvc;
 @AutoConfigureMockMvc
 public class ConnectionConfigControllerGetTest {
 
+    private static final String ETAG = "\"1\"";
+
     @Autowired
     private MockMvc mvc;
 
@@ -39,7 +45,8 @@ public class ConnectionConfigControllerGetTest {
     @Test
     public void shouldReturnUnauthorizedWhenTryingToGetWithoutCredentials() throws Exception {
         ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
-        when(connectionConfigService.getConnectionConfig(configDto.getName())).thenReturn(configDto);
+        when(connectionConfigService.getVersionedConnectionConfig(configDto.getName()))
+                .thenReturn(Versioned.of(ETAG, configDto));
 
         mvc.perform(get(CONFIG_ENDPOINT + "/" + configDto.getName()).contentType(APPLICATION_JSON_UTF8))
                 .andExpect(status().isUnauthorized());
@@ -49,7 +56,8 @@ public class ConnectionConfigControllerGetTest {
     @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {WRONG_ROLE}, resource = RESOURCE)
     public void shouldReturnForbiddenWhenTryingToGetWithWrongRole() throws Exception {
         ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
-        when(connectionConfigService.getConnectionConfig(configDto.getName())).thenReturn(configDto);
+        when(connectionConfigService.getVersionedConnectionConfig(configDto.getName()))
+                .thenReturn(Versioned.of(ETAG, configDto));
 
         mvc.perform(get(CONFIG_ENDPOINT + "/" + configDto.getName()).contentType(APPLICATION_JSON_UTF8))
                 .andExpect(status().isForbidden());
@@ -59,11 +67,42 @@ public class ConnectionConfigControllerGetTest {
     @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
     public void shouldGetConnectionConfig() throws Exception {
         ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
-        when(connectionConfigService.getConnectionConfig(configDto.getName())).thenReturn(configDto);
+        when(connectionConfigService.getVersionedConnectionConfig(configDto.getName()))
+                .thenReturn(Versioned.of(ETAG, configDto));
+
+        mvc.perform(get(CONFIG_ENDPOINT + "/" + configDto.getName()).contentType(APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is(configDto.getName())))
+                .andExpect(jsonPath("$.properties", is(configDto.getProperties())))
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG));
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldReturnNotModifiedWhenETagMatches() throws Exception {
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        when(connectionConfigService.getVersionedConnectionConfig(configDto.getName()))
+                .thenReturn(new Versioned<>(ETAG, () -> {
+                    throw new AssertionError("Secret should not be parsed");
+                }));
+
+        mvc.perform(get(CONFIG_ENDPOINT + "/" + configDto.getName()).contentType(APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldWarnWhenConnectionConfigIsStale() throws Exception {
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        when(connectionConfigService.getVersionedConnectionConfig(configDto.getName()))
+                .thenReturn(Versioned.of(ETAG, configDto).asStale());
 
         mvc.perform(get(CONFIG_ENDPOINT + "/" + configDto.getName()).contentType(APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.name", is(configDto.getName())))
-                .andExpect(jsonPath("$.properties", is(configDto.getProperties())));
+                .andExpect(header().string(HttpHeaders.WARNING, ConnectionConfigController.STALE_WARNING));
     }
 }
@@ -1,5 +1,6 @@
 package org.entando.entandopluginsidecar.controller;
 
+import static org.assertj.core.api.Java6Assertions.assertThat;
 import static org.entando.entandopluginsidecar.controller.AuthPermissions.CONNECTION_CONFIG;
 import static org.entando.entandopluginsidecar.util.TestHelper.CONFIG_ENDPOINT;
 import static org.entando.entandopluginsidecar.util.TestHelper.KEYCLOAK_USER;
@@ -7,16 +8,27 @@ import static org.entando.entandopluginsidecar.util.TestHelper.RESOURCE;
 import static org.entando.entandopluginsidecar.util.TestHelper.WRONG_ROLE;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.function.Consumer;
 import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigPageDto;
+import org.entando.entandopluginsidecar.service.ConnectionConfigProjection;
 import org.entando.entandopluginsidecar.service.ConnectionConfigService;
+import org.entando.entandopluginsidecar.service.Versioned;
 import org.entando.entandopluginsidecar.util.TestHelper;
 import org.entando.keycloak.testutils.WithMockKeycloakUser;
 import org.junit.Test;
@@ -25,23 +37,31 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
 @AutoConfigureMockMvc
 public class ConnectionConfigControllerListTest {
 
+    private static final String ETAG = "\"1\"";
+
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @MockBean
     private ConnectionConfigService connectionConfigService;
 
     @Test
     public void shouldReturnUnauthorizedWhenTryingToListWithoutCredentials() throws Exception {
-        when(connectionConfigService.getAllConnectionConfig()).thenReturn(Collections.emptyList());
+        when(connectionConfigService.getAllVersionedConnectionConfig())
+                .thenReturn(Versioned.of(ETAG, Collections.emptyList()));
 
         mvc.perform(get(CONFIG_ENDPOINT).contentType(APPLICATION_JSON_UTF8))
                 .andExpect(status().isUnauthorized());
@@ -50,7 +70,8 @@ public class ConnectionConfigControllerListTest {
     @Test
     @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {WRONG_ROLE}, resource = RESOURCE)
     public void shouldReturnForbiddenWhenTryingToListWithWrongRole() throws Exception {
-        when(connectionConfigService.getAllConnectionConfig()).thenReturn(Collections.emptyList());
+        when(connectionConfigService.getAllVersionedConnectionConfig())
+                .thenReturn(Versioned.of(ETAG, Collections.emptyList()));
 
         mvc.perform(get(CONFIG_ENDPOINT).contentType(APPLICATION_JSON_UTF8))
                 .andExpect(status().isForbidden());
@@ -61,12 +82,105 @@ public class ConnectionConfigControllerListTest {
     public void shouldListConnectionConfigs() throws Exception {
         ConnectionConfigDto configDto1 = TestHelper.getRandomConnectionConfigDto();
         ConnectionConfigDto configDto2 = TestHelper.getRandomConnectionConfigDto();
-        when(connectionConfigService.getAllConnectionConfig()).thenReturn(Arrays.asList(configDto1, configDto2));
+        when(connectionConfigService.getAllVersionedConnectionConfig())
+                .thenReturn(Versioned.of(ETAG, Arrays.asList(configDto1, configDto2)));
 
         mvc.perform(get(CONFIG_ENDPOINT).contentType(APPLICATION_JSON_UTF8))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andExpect(jsonPath("$[0].name", is(configDto1.getName())))
-                .andExpect(jsonPath("$[1].name", is(configDto2.getName())));
+                .andExpect(jsonPath("$[1].name", is(configDto2.getName())))
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG));
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldReturnNotModifiedWhenETagMatches() throws Exception {
+        when(connectionConfigService.getAllVersionedConnectionConfig())
+                .thenReturn(new Versioned<>(ETAG, () -> {
+                    throw new AssertionError("Secrets should not be parsed");
+                }));
+
+        mvc.perform(get(CONFIG_ENDPOINT).contentType(APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldListConnectionConfigsWhenETagDoesNotMatch() throws Exception {
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        when(connectionConfigService.getAllVersionedConnectionConfig())
+                .thenReturn(Versioned.of(ETAG, Collections.singletonList(configDto)));
+
+        mvc.perform(get(CONFIG_ENDPOINT).contentType(APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG));
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldListOnlyRequestedFields() throws Exception {
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        when(connectionConfigService.getAllVersionedConnectionConfig(any(ConnectionConfigProjection.class)))
+                .thenAnswer(invocation -> {
+                    ConnectionConfigProjection projection = invocation.getArgument(0);
+                    return Versioned.of(ETAG, Collections.singletonList(projection.apply(configDto)));
+                });
+
+        mvc.perform(get(CONFIG_ENDPOINT).param("fields", "name").contentType(APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name", is(configDto.getName())))
+                .andExpect(jsonPath("$[0].properties").doesNotExist());
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldReturnBadRequestForUnknownFields() throws Exception {
+        mvc.perform(get(CONFIG_ENDPOINT).param("fields", "name,secret").contentType(APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldListConnectionConfigPage() throws Exception {
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        when(connectionConfigService.getConnectionConfigPage(1, "token"))
+                .thenReturn(new ConnectionConfigPageDto(Collections.singletonList(configDto), "next"));
+
+        mvc.perform(get(CONFIG_ENDPOINT).param("limit", "1").param("continue", "token")
+                .contentType(APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name", is(configDto.getName())))
+                .andExpect(jsonPath("$.continue", is("next")));
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldStreamConnectionConfigsAsNewlineDelimitedJson() throws Exception {
+        ConnectionConfigDto configDto1 = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto configDto2 = TestHelper.getRandomConnectionConfigDto();
+        doAnswer(invocation -> {
+            Consumer<ConnectionConfigDto> consumer = invocation.getArgument(0);
+            consumer.accept(configDto1);
+            consumer.accept(configDto2);
+            return null;
+        }).when(connectionConfigService).forEachConnectionConfig(any());
+
+        MvcResult result = mvc.perform(get(CONFIG_ENDPOINT)
+                .accept(ConnectionConfigController.APPLICATION_NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], ConnectionConfigDto.class)).isEqualTo(configDto1);
+        assertThat(objectMapper.readValue(lines[1], ConnectionConfigDto.class)).isEqualTo(configDto2);
     }
 }
@@ -0,0 +1,88 @@
+package org.entando.entandopluginsidecar.controller;
+
+import static org.entando.entandopluginsidecar.controller.AuthPermissions.CONNECTION_CONFIG;
+import static org.entando.entandopluginsidecar.util.TestHelper.CONFIG_ENDPOINT;
+import static org.entando.entandopluginsidecar.util.TestHelper.KEYCLOAK_USER;
+import static org.entando.entandopluginsidecar.util.TestHelper.RESOURCE;
+import static org.entando.entandopluginsidecar.util.TestHelper.WRONG_ROLE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.entando.entandopluginsidecar.exception.ServiceUnavailableException;
+import org.entando.entandopluginsidecar.exception.TooManyRequestsException;
+import org.entando.entandopluginsidecar.service.ConnectionConfigEvents;
+import org.entando.keycloak.testutils.WithMockKeycloakUser;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ConnectionConfigControllerWatchTest {
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean
+    private ConnectionConfigEvents connectionConfigEvents;
+
+    @Test
+    public void shouldReturnUnauthorizedWhenTryingToWatchWithoutCredentials() throws Exception {
+        mvc.perform(get(CONFIG_ENDPOINT).param("watch", "true").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {WRONG_ROLE}, resource = RESOURCE)
+    public void shouldReturnForbiddenWhenTryingToWatchWithWrongRole() throws Exception {
+        mvc.perform(get(CONFIG_ENDPOINT).param("watch", "true").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldStartStreamResumingAfterLastEventId() throws Exception {
+        when(connectionConfigEvents.subscribe(eq("7"), any())).thenReturn(() -> { });
+
+        mvc.perform(get(CONFIG_ENDPOINT).param("watch", "true").param("resourceVersion", "3")
+                .header(LAST_EVENT_ID, "7").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+
+        verify(connectionConfigEvents).subscribe(eq("7"), any());
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldReturnTooManyRequestsWhenSubscribersAreLimited() throws Exception {
+        when(connectionConfigEvents.subscribe(any(), any()))
+                .thenThrow(new TooManyRequestsException(ConnectionConfigEvents.ERROR_TOO_MANY_SUBSCRIBERS));
+
+        mvc.perform(get(CONFIG_ENDPOINT).param("watch", "true").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    @WithMockKeycloakUser(username = KEYCLOAK_USER, roles = {CONNECTION_CONFIG}, resource = RESOURCE)
+    public void shouldReturnServiceUnavailableWithoutCache() throws Exception {
+        when(connectionConfigEvents.subscribe(any(), any()))
+                .thenThrow(new ServiceUnavailableException(ConnectionConfigEvents.ERROR_EVENTS_UNAVAILABLE));
+
+        mvc.perform(get(CONFIG_ENDPOINT).param("watch", "true").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isServiceUnavailable());
+    }
+}
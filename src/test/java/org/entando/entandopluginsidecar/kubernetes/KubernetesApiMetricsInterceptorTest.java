@@ -0,0 +1,105 @@
+package org.entando.entandopluginsidecar.kubernetes;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.entry;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.CrudKubernetesServer;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class KubernetesApiMetricsInterceptorTest {
+
+    @Rule
+    public KubernetesServer server = new CrudKubernetesServer();
+
+    private MeterRegistry meterRegistry;
+
+    private KubernetesClient client;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        DefaultKubernetesClient serverClient = (DefaultKubernetesClient) server.getClient();
+        client = new DefaultKubernetesClient(serverClient.getHttpClient().newBuilder()
+                .addInterceptor(new KubernetesApiMetricsInterceptor(meterRegistry))
+                .build(), serverClient.getConfiguration());
+    }
+
+    @After
+    public void tearDown() {
+        KubernetesApiCalls.stop();
+    }
+
+    @Test
+    public void shouldTimeRequestsByVerbResourceAndStatus() {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+
+        // When
+        TestHelper.createLabeledSecret(client, configDto, ENTANDO_PLUGIN_NAME);
+        client.secrets().withName(configDto.getName()).get();
+        client.secrets().withName("missing").get();
+        client.secrets().list();
+
+        // Then
+        assertThat(timerCount("create", "secrets", "202")).isEqualTo(1);
+        assertThat(timerCount("get", "secrets", "200")).isEqualTo(1);
+        assertThat(timerCount("get", "secrets", "404")).isEqualTo(1);
+        assertThat(timerCount("list", "secrets", "200")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRecordResponseSizes() {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        TestHelper.createLabeledSecret(client, configDto, ENTANDO_PLUGIN_NAME);
+
+        // When
+        client.secrets().withName(configDto.getName()).get();
+
+        // Then
+        assertThat(meterRegistry.get(KubernetesApiMetricsInterceptor.RESPONSE_SIZE_METRIC)
+                .tag("verb", "get").tag("resource", "secrets").summary().totalAmount())
+                .isGreaterThan(configDto.getName().length());
+    }
+
+    @Test
+    public void shouldTallyCallsOfCurrentThreadAndPropagatedTasks() throws Exception {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        TestHelper.createLabeledSecret(client, configDto, ENTANDO_PLUGIN_NAME);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // When
+        final KubernetesApiCalls calls = KubernetesApiCalls.start();
+        client.secrets().withName(configDto.getName()).get();
+        executor.submit(KubernetesApiCalls.propagate(() -> client.secrets().list())).get();
+        executor.submit(() -> client.secrets().list()).get();
+        KubernetesApiCalls.stop();
+        client.secrets().list();
+        executor.shutdown();
+
+        // Then
+        assertThat(calls.getTotal()).isEqualTo(2);
+        assertThat(calls.getCounts()).containsOnly(entry("get secrets", 1), entry("list secrets", 1));
+        assertThat(calls.toString()).startsWith("2 Kubernetes API calls in ")
+                .endsWith("(get secrets x1, list secrets x1)");
+    }
+
+    private long timerCount(String verb, String resource, String status) {
+        return meterRegistry.get(KubernetesApiMetricsInterceptor.REQUESTS_METRIC)
+                .tag("verb", verb).tag("resource", resource).tag("status", status).timer().count();
+    }
+}
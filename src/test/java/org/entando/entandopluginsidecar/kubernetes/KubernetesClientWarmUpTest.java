@@ -0,0 +1,53 @@
+package org.entando.entandopluginsidecar.kubernetes;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class KubernetesClientWarmUpTest {
+
+    @Rule
+    public KubernetesServer server = new KubernetesServer(false, false);
+
+    @Test
+    public void shouldCallApiServerOncePerConnection() {
+        // Given
+        server.expect().get().withPath("/version").andReturn(200, "{\"major\":\"1\",\"minor\":\"14\"}").always();
+
+        // When
+        new KubernetesClientWarmUp(server.getClient(), 3, false).warmUp();
+
+        // Then
+        assertThat(server.getMockServer().getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldCallApiServerOnceWhenConnectionsAreShared() {
+        // Given
+        server.expect().get().withPath("/version").andReturn(200, "{\"major\":\"1\",\"minor\":\"14\"}").always();
+
+        // When
+        new KubernetesClientWarmUp(server.getClient(), 3, true).warmUp();
+
+        // Then
+        assertThat(server.getMockServer().getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotFailWhenApiServerIsUnavailable() {
+        server.expect().get().withPath("/version").andReturn(500, "").always();
+
+        new KubernetesClientWarmUp(server.getClient(), 2, false).warmUp();
+
+        assertThat(server.getMockServer().getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldNotCallApiServerWhenDisabled() {
+        new KubernetesClientWarmUp(server.getClient(), 0, false).warmUp();
+
+        assertThat(server.getMockServer().getRequestCount()).isZero();
+    }
+}
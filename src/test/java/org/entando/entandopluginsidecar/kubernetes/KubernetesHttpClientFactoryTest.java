@@ -0,0 +1,43 @@
+package org.entando.entandopluginsidecar.kubernetes;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.ConfigBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.junit.Test;
+
+public class KubernetesHttpClientFactoryTest {
+
+    @Test
+    public void shouldApplyLimitsAndTimeouts() {
+        // Given
+        KubernetesHttpClientFactory factory = new KubernetesHttpClientFactory(40, 20, 12, 60000, 2000, 3000, true);
+        Config config = new ConfigBuilder().withMasterUrl("https://localhost:6443").build();
+
+        // When
+        OkHttpClient httpClient = factory.create(config, new SimpleMeterRegistry());
+
+        // Then
+        assertThat(httpClient.dispatcher().getMaxRequests()).isEqualTo(40);
+        assertThat(httpClient.dispatcher().getMaxRequestsPerHost()).isEqualTo(20);
+        assertThat(httpClient.connectTimeoutMillis()).isEqualTo(2000);
+        assertThat(httpClient.readTimeoutMillis()).isEqualTo(3000);
+        assertThat(httpClient.writeTimeoutMillis()).isEqualTo(3000);
+        assertThat(httpClient.protocols()).containsExactly(Protocol.HTTP_2, Protocol.HTTP_1_1);
+        assertThat(httpClient.interceptors()).hasAtLeastOneElementOfType(KubernetesApiMetricsInterceptor.class);
+        assertThat(config.getMaxConcurrentRequestsPerHost()).isEqualTo(20);
+        assertThat(config.getRequestTimeout()).isEqualTo(3000);
+    }
+
+    @Test
+    public void shouldOnlyUseHttp11WhenHttp2IsDisabled() {
+        KubernetesHttpClientFactory factory = new KubernetesHttpClientFactory(64, 32, 16, 300000, 10000, 10000, false);
+
+        OkHttpClient httpClient = factory.create(new ConfigBuilder().build(), new SimpleMeterRegistry());
+
+        assertThat(httpClient.protocols()).containsExactly(Protocol.HTTP_1_1);
+    }
+}
@@ -0,0 +1,148 @@
+package org.entando.entandopluginsidecar.loadtest;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.entando.entandopluginsidecar.util.TestHelper.CONFIG_ENDPOINT;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Interceptor;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.CrudKubernetesServer;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Reads configs concurrently through the whole application in non-blocking mode, with {@value #REQUEST_THREADS}
+ * request threads, {@value #IO_THREADS} I/O threads and a Kubernetes API server answering after {@value
+ * #API_SERVER_DELAY_MILLIS} ms, and reports the number of requests served concurrently.
+ *
+ * <p>More requests are accepted than there are request threads, but the Kubernetes client blocks an I/O thread per
+ * call, so the Secret reads, one per config, still run {@value #IO_THREADS} at a time.
+ *
+ * <p>Tune with {@code -Dloadtest.concurrency}.
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "keycloak.enabled=false",
+        "entando.plugin.name=" + ENTANDO_PLUGIN_NAME,
+        "entando.sidecar.cache.enabled=false",
+        "entando.sidecar.migration.label-secrets.enabled=false",
+        "entando.sidecar.async.enabled=true",
+        "entando.sidecar.async.io-threads=" + ConnectionConfigAsyncLoadTest.IO_THREADS,
+        "server.tomcat.max-threads=" + ConnectionConfigAsyncLoadTest.REQUEST_THREADS
+})
+@Import(ConnectionConfigAsyncLoadTest.SlowKubernetesConfiguration.class)
+public class ConnectionConfigAsyncLoadTest {
+
+    static final int REQUEST_THREADS = 4;
+    static final int IO_THREADS = 4;
+    private static final long API_SERVER_DELAY_MILLIS = 200;
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 32);
+
+    @ClassRule
+    public static KubernetesServer server = new CrudKubernetesServer();
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    private List<ConnectionConfigDto> configs;
+
+    // imported rather than annotated, the application scans every org.entando class including tests
+    static class SlowKubernetesConfiguration {
+
+        @Bean
+        @Primary
+        public KubernetesClient slowKubernetesClient() {
+            DefaultKubernetesClient client = (DefaultKubernetesClient) server.getClient();
+            Interceptor delay = chain -> {
+                try {
+                    Thread.sleep(API_SERVER_DELAY_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return chain.proceed(chain.request());
+            };
+            return new DefaultKubernetesClient(client.getHttpClient().newBuilder().addInterceptor(delay).build(),
+                    client.getConfiguration());
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        KubernetesClient client = server.getClient();
+        configs = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+            TestHelper.createLabeledSecret(client, configDto, ENTANDO_PLUGIN_NAME);
+            configs.add(configDto);
+        }
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME,
+                configs.stream().map(ConnectionConfigDto::getName).toArray(String[]::new));
+    }
+
+    @Test
+    public void shouldServeMoreConcurrentRequestsThanRequestThreads() throws Exception {
+        // Given
+        RestTemplate restTemplate = new RestTemplate(new SimpleClientHttpRequestFactory());
+        String url = testRestTemplate.getRootUri() + CONFIG_ENDPOINT + "/{name}";
+        List<Callable<Long>> tasks = new ArrayList<>();
+        configs.forEach(configDto -> tasks.add(() -> {
+            long start = System.nanoTime();
+            ResponseEntity<ConnectionConfigDto> response =
+                    restTemplate.getForEntity(url, ConnectionConfigDto.class, configDto.getName());
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(response.getBody()).isEqualTo(configDto);
+            return System.nanoTime() - start;
+        }));
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        long totalLatency = 0;
+        long start = System.nanoTime();
+        try {
+            for (Future<Long> latency : executor.invokeAll(tasks)) {
+                totalLatency += latency.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // Then
+        double concurrency = (double) totalLatency / elapsed;
+        log.info("Non-blocking mode served {} requests with {} request threads in {} ms, {} at a time on average",
+                CONCURRENCY, REQUEST_THREADS, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                String.format("%.1f", concurrency));
+        assertThat(concurrency).isGreaterThan(REQUEST_THREADS * 2);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(elapsed))
+                .isGreaterThanOrEqualTo(CONCURRENCY / IO_THREADS * API_SERVER_DELAY_MILLIS);
+    }
+}
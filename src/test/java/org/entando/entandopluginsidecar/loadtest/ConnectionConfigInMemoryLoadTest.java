@@ -0,0 +1,24 @@
+package org.entando.entandopluginsidecar.loadtest;
+
+import java.util.List;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.service.ConnectionConfigStore;
+import org.entando.entandopluginsidecar.service.InMemoryConnectionConfigStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs {@link ConnectionConfigLoadTest} against the in-memory store, so that the latency of the sidecar itself can be
+ * told apart from the one of the API server, which is never called.
+ */
+@TestPropertySource(properties = ConnectionConfigStore.TYPE + "=" + InMemoryConnectionConfigStore.MEMORY)
+public class ConnectionConfigInMemoryLoadTest extends ConnectionConfigLoadTest {
+
+    @Autowired
+    private ConnectionConfigStore connectionConfigStore;
+
+    @Override
+    protected void store(List<ConnectionConfigDto> configs) {
+        configs.forEach(connectionConfigStore::addConnectionConfig);
+    }
+}
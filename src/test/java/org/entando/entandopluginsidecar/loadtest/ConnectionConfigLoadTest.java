@@ -0,0 +1,284 @@
+package org.entando.entandopluginsidecar.loadtest;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.entando.entandopluginsidecar.util.TestHelper.CONFIG_ENDPOINT;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.entando.entandopluginsidecar.controller.ConnectionConfigController;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigPageDto;
+import org.entando.entandopluginsidecar.kubernetes.KubernetesApiCalls;
+import org.entando.entandopluginsidecar.kubernetes.KubernetesApiMetricsInterceptor;
+import org.entando.entandopluginsidecar.util.CrudKubernetesServer;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Runs every REST operation through the whole application, at a configurable concurrency, against an in-memory
+ * Kubernetes API server. Reports latency and throughput per operation and fails when a single request makes more
+ * Kubernetes API calls than its budget in {@value #BUDGETS}.
+ *
+ * <p>Tune with {@code -Dloadtest.concurrency}, {@code -Dloadtest.requests} and {@code -Dloadtest.configs}.
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+        "keycloak.enabled=false",
+        "entando.plugin.name=" + ENTANDO_PLUGIN_NAME,
+        "entando.sidecar.cache.enabled=false",
+        "entando.sidecar.migration.label-secrets.enabled=false"
+})
+@Import(ConnectionConfigLoadTest.MockKubernetesConfiguration.class)
+public class ConnectionConfigLoadTest {
+
+    private static final String BUDGETS = "loadtest/api-call-budgets.properties";
+
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 4);
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 50);
+    private static final int CONFIGS = Integer.getInteger("loadtest.configs", 10);
+    private static final int WARMUP_REQUESTS = 20;
+    private static final int PAGE_LIMIT = 5;
+
+    @ClassRule
+    public static KubernetesServer server = new CrudKubernetesServer();
+
+    // the Kubernetes API calls made by each request served, added as the requests complete
+    private static final Queue<KubernetesApiCalls> REQUEST_CALLS = new ConcurrentLinkedQueue<>();
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    private List<ConnectionConfigDto> configs;
+
+    // imported rather than annotated, the application scans every org.entando class including tests
+    static class MockKubernetesConfiguration {
+
+        @Bean
+        @Primary
+        public KubernetesClient mockKubernetesClient(MeterRegistry meterRegistry) {
+            DefaultKubernetesClient serverClient = (DefaultKubernetesClient) server.getClient();
+            return new DefaultKubernetesClient(serverClient.getHttpClient().newBuilder()
+                    .addInterceptor(new KubernetesApiMetricsInterceptor(meterRegistry))
+                    .build(), serverClient.getConfiguration());
+        }
+
+        @Bean
+        public OncePerRequestFilter kubernetesApiCallCountingFilter() {
+            return new OncePerRequestFilter() {
+                @Override
+                protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                        FilterChain chain) throws ServletException, IOException {
+                    KubernetesApiCalls calls = KubernetesApiCalls.start();
+                    try {
+                        chain.doFilter(request, response);
+                    } finally {
+                        KubernetesApiCalls.stop();
+                        REQUEST_CALLS.add(calls);
+                    }
+                }
+            };
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        configs = randomConfigs(CONFIGS);
+        store(configs);
+    }
+
+    protected void store(List<ConnectionConfigDto> configs) throws Exception {
+        KubernetesClient client = server.getClient();
+        configs.forEach(configDto -> TestHelper.createLabeledSecret(client, configDto, ENTANDO_PLUGIN_NAME));
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME,
+                configs.stream().map(ConnectionConfigDto::getName).toArray(String[]::new));
+    }
+
+    @Test
+    public void shouldStayWithinApiCallBudgets() throws Exception {
+        // Given
+        Properties budgets = PropertiesLoaderUtils.loadProperties(new ClassPathResource(BUDGETS));
+        final List<ConnectionConfigDto> added = randomConfigs(REQUESTS);
+        String etag = null;
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            etag = testRestTemplate.getForEntity(CONFIG_ENDPOINT, ConnectionConfigDto[].class).getHeaders().getETag();
+        }
+        HttpHeaders ifNoneMatch = new HttpHeaders();
+        ifNoneMatch.setIfNoneMatch(etag);
+        HttpHeaders acceptNdjson = new HttpHeaders();
+        acceptNdjson.setAccept(Collections.singletonList(
+                MediaType.parseMediaType(ConnectionConfigController.APPLICATION_NDJSON_VALUE)));
+
+        // When
+        List<EndpointResult> results = Arrays.asList(
+                run("getConnectionConfig", i -> testRestTemplate
+                        .getForEntity(CONFIG_ENDPOINT + "/{name}", ConnectionConfigDto.class, config(i).getName())),
+                run("listConnectionConfig", i -> testRestTemplate
+                        .getForEntity(CONFIG_ENDPOINT, ConnectionConfigDto[].class)),
+                run("pollConnectionConfig", i -> testRestTemplate
+                        .exchange(CONFIG_ENDPOINT, HttpMethod.GET, new HttpEntity<>(ifNoneMatch),
+                                ConnectionConfigDto[].class), HttpStatus.NOT_MODIFIED::equals),
+                run("listConnectionConfigNames", i -> testRestTemplate
+                        .getForEntity(CONFIG_ENDPOINT + "?fields=name", ConnectionConfigDto[].class)),
+                run("listConnectionConfigPage", i -> testRestTemplate
+                        .getForEntity(CONFIG_ENDPOINT + "?limit={limit}", ConnectionConfigPageDto.class, PAGE_LIMIT)),
+                run("streamConnectionConfig", i -> testRestTemplate
+                        .exchange(CONFIG_ENDPOINT, HttpMethod.GET, new HttpEntity<>(acceptNdjson), String.class)),
+                run("editConnectionConfig", i -> testRestTemplate
+                        .exchange(CONFIG_ENDPOINT, HttpMethod.PUT, new HttpEntity<>(config(i)),
+                                ConnectionConfigDto.class)),
+                run("addConnectionConfig", i -> testRestTemplate
+                        .postForEntity(CONFIG_ENDPOINT, added.get(i), Void.class)),
+                run("deleteConnectionConfig", i -> testRestTemplate
+                        .exchange(CONFIG_ENDPOINT + "/{name}", HttpMethod.DELETE, null, Void.class,
+                                added.get(i).getName())));
+
+        // Then
+        log.info("{} with concurrency {}, {} requests per operation and {} configs:", getClass().getSimpleName(),
+                CONCURRENCY, REQUESTS, CONFIGS);
+        results.forEach(result -> log.info("{}", result));
+        for (EndpointResult result : results) {
+            assertThat(result.failures).as(result.endpoint + " failed requests").isZero();
+            int budget = Integer.parseInt(budgets.getProperty(result.endpoint));
+            assertThat(result.maxCallsPerRequest).as(result.endpoint + " Kubernetes API calls of a request")
+                    .isLessThanOrEqualTo(budget);
+            // calls made on other threads, such as while streaming, are only seen by the API server
+            assertThat(result.callsPerRequest()).as(result.endpoint + " Kubernetes API calls per request")
+                    .isLessThanOrEqualTo(budget);
+        }
+    }
+
+    private ConnectionConfigDto config(int index) {
+        return configs.get(index % configs.size());
+    }
+
+    private EndpointResult run(String endpoint, IntFunction<ResponseEntity<?>> request) throws Exception {
+        return run(endpoint, request, HttpStatus::is2xxSuccessful);
+    }
+
+    private EndpointResult run(String endpoint, IntFunction<ResponseEntity<?>> request, Predicate<HttpStatus> expected)
+            throws Exception {
+        long[] latencies = new long[REQUESTS];
+        AtomicInteger failures = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            int index = i;
+            tasks.add(() -> {
+                long start = System.nanoTime();
+                ResponseEntity<?> response = request.apply(index);
+                latencies[index] = System.nanoTime() - start;
+                if (!expected.test(response.getStatusCode())) {
+                    failures.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        REQUEST_CALLS.clear();
+        int callsBefore = server.getMockServer().getRequestCount();
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        long start = System.nanoTime();
+        try {
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+        int calls = server.getMockServer().getRequestCount() - callsBefore;
+        KubernetesApiCalls mostCalls = REQUEST_CALLS.stream()
+                .max(Comparator.comparingInt(KubernetesApiCalls::getTotal))
+                .orElseGet(KubernetesApiCalls::new);
+        Arrays.sort(latencies);
+        return new EndpointResult(endpoint, latencies, elapsed, calls, mostCalls.getTotal(), mostCalls,
+                failures.get());
+    }
+
+    private static List<ConnectionConfigDto> randomConfigs(int count) {
+        List<ConnectionConfigDto> randomConfigs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            randomConfigs.add(TestHelper.getRandomConnectionConfigDto());
+        }
+        return randomConfigs;
+    }
+
+    @RequiredArgsConstructor
+    private static class EndpointResult {
+
+        private final String endpoint;
+        private final long[] sortedLatencies;
+        private final long elapsedNanos;
+        private final int calls;
+        private final int maxCallsPerRequest;
+        private final KubernetesApiCalls mostCalls;
+        private final int failures;
+
+        double callsPerRequest() {
+            return (double) calls / sortedLatencies.length;
+        }
+
+        double percentileMillis(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        double throughput() {
+            return sortedLatencies.length / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-24s p50 %8.2f ms  p99 %8.2f ms  %8.1f req/s  %5.2f API calls/req  %d failed"
+                    + "  most: %s", endpoint, percentileMillis(50), percentileMillis(99), throughput(),
+                    callsPerRequest(), failures, mostCalls);
+        }
+    }
+}
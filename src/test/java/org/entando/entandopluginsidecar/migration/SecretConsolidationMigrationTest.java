@@ -0,0 +1,99 @@
+package org.entando.entandopluginsidecar.migration;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.service.ConfigYamlCompression;
+import org.entando.entandopluginsidecar.service.ConnectionConfigService;
+import org.entando.entandopluginsidecar.service.ConnectionConfigShards;
+import org.entando.entandopluginsidecar.util.CrudKubernetesServer;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.entandopluginsidecar.util.YamlUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class SecretConsolidationMigrationTest {
+
+    @Rule
+    public KubernetesServer server = new CrudKubernetesServer();
+
+    private KubernetesClient client;
+
+    private ConnectionConfigShards shards;
+
+    private SecretConsolidationMigration migration;
+
+    @Before
+    public void setUp() {
+        client = server.getClient();
+        shards = new ConnectionConfigShards(client, ENTANDO_PLUGIN_NAME, ConfigYamlCompression.disabled(), true,
+                900_000);
+        migration = new SecretConsolidationMigration(client, ENTANDO_PLUGIN_NAME, shards, true);
+    }
+
+    @Test
+    public void shouldMoveConfigsToShardsAndDeleteTheirSecrets() throws Exception {
+        // Given
+        ConnectionConfigDto configDto1 = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto configDto2 = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto notReferenced = TestHelper.getRandomConnectionConfigDto();
+        TestHelper.createSecret(client, configDto1);
+        TestHelper.createLabeledSecret(client, configDto2, ENTANDO_PLUGIN_NAME);
+        TestHelper.createSecret(client, notReferenced);
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, configDto1.getName(),
+                configDto2.getName());
+
+        // When
+        int migrated = migration.migrate();
+
+        // Then
+        assertThat(migrated).isEqualTo(2);
+        List<Secret> configs = shards.listShards().stream()
+                .flatMap(shard -> ConnectionConfigShards.expand(shard).stream())
+                .collect(Collectors.toList());
+        assertThat(configs.stream().map(SecretConsolidationMigrationTest::configOf).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder(configDto1, configDto2);
+        assertThat(client.secrets().list().getItems())
+                .extracting(secret -> secret.getMetadata().getName())
+                .doesNotContain(configDto1.getName(), configDto2.getName())
+                .contains(notReferenced.getName());
+    }
+
+    @Test
+    public void shouldCompleteAnInterruptedMigration() throws Exception {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        TestHelper.createLabeledSecret(client, configDto, ENTANDO_PLUGIN_NAME);
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, configDto.getName());
+        shards.add(configDto.getName(), "stale: config");
+
+        // When
+        int migrated = migration.migrate();
+
+        // Then
+        assertThat(migrated).isEqualTo(1);
+        assertThat(client.secrets().withName(configDto.getName()).get()).isNull();
+        assertThat(configOf(ConnectionConfigShards.expand(shards.listShards().get(0)).get(0))).isEqualTo(configDto);
+    }
+
+    @Test
+    public void shouldDoNothingWhenPluginIsNotThere() throws Exception {
+        TestHelper.createEntandoPluginCrd(client);
+
+        assertThat(migration.migrate()).isZero();
+    }
+
+    private static ConnectionConfigDto configOf(Secret secret) {
+        byte[] configYaml = Base64.getDecoder().decode(secret.getData().get(ConnectionConfigService.CONFIG_YAML));
+        return YamlUtils.fromYaml(new String(configYaml, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,66 @@
+package org.entando.entandopluginsidecar.migration;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.entando.entandopluginsidecar.service.ConnectionConfigService.PLUGIN_LABEL;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class SecretLabelMigrationTest {
+
+    @Rule
+    public KubernetesServer server = new KubernetesServer(true, true);
+
+    private KubernetesClient client;
+
+    private SecretLabelMigration migration;
+
+    @Before
+    public void setUp() {
+        client = server.getClient();
+        migration = new SecretLabelMigration(client, ENTANDO_PLUGIN_NAME, true);
+    }
+
+    @Test
+    public void shouldLabelSecretsReferencedByThePlugin() throws Exception {
+        // Given
+        ConnectionConfigDto configDto1 = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto configDto2 = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto notReferenced = TestHelper.getRandomConnectionConfigDto();
+        TestHelper.createSecret(client, configDto1);
+        TestHelper.createLabeledSecret(client, configDto2, ENTANDO_PLUGIN_NAME);
+        TestHelper.createSecret(client, notReferenced);
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, configDto1.getName(),
+                configDto2.getName());
+
+        // When
+        int migrated = migration.migrate();
+
+        // Then
+        assertThat(migrated).isEqualTo(1);
+        assertThat(client.secrets().withLabel(PLUGIN_LABEL, ENTANDO_PLUGIN_NAME).list().getItems())
+                .extracting(secret -> secret.getMetadata().getName())
+                .containsExactlyInAnyOrder(configDto1.getName(), configDto2.getName());
+    }
+
+    @Test
+    public void shouldSkipMissingSecrets() throws Exception {
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, configDto.getName());
+
+        assertThat(migration.migrate()).isZero();
+    }
+
+    @Test
+    public void shouldDoNothingWhenPluginIsNotThere() throws Exception {
+        TestHelper.createEntandoPluginCrd(client);
+
+        assertThat(migration.migrate()).isZero();
+    }
+}
@@ -0,0 +1,145 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.entando.entandopluginsidecar.exception.ServiceUnavailableException;
+import org.entando.entandopluginsidecar.service.ApiServerCircuitBreaker.State;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ApiServerCircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private MeterRegistry meterRegistry;
+
+    private ApiServerCircuitBreaker circuitBreaker;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = new ApiServerCircuitBreaker(meterRegistry, 2, 1000, 5000, now::get);
+    }
+
+    @Test
+    public void shouldOpenAfterConsecutiveFailures() {
+        // When
+        fail(500);
+        fail(0);
+        Throwable rejected = catchThrowable(() -> circuitBreaker.call(calls::incrementAndGet));
+
+        // Then
+        assertThat(rejected).isInstanceOf(ServiceUnavailableException.class)
+                .hasMessage(ApiServerCircuitBreaker.ERROR_API_SERVER_UNAVAILABLE);
+        assertThat(calls.get()).isZero();
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+        assertThat(meterRegistry.get(ApiServerCircuitBreaker.STATE_METRIC).gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get(ApiServerCircuitBreaker.REJECTED_METRIC).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotCountAnswersAsFailures() {
+        fail(404);
+        fail(409);
+        fail(500);
+        circuitBreaker.call(calls::incrementAndGet);
+        fail(500);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    public void shouldCloseWhenProbeSucceeds() {
+        // Given
+        fail(503);
+        fail(429);
+        now.addAndGet(1000);
+
+        // When
+        circuitBreaker.call(calls::incrementAndGet);
+
+        // Then
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+    }
+
+    @Test
+    public void shouldOpenAgainWhenProbeFails() {
+        // Given
+        fail(500);
+        fail(500);
+        now.addAndGet(1000);
+
+        // When
+        fail(500);
+
+        // Then
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+        assertThat(catchThrowable(() -> circuitBreaker.call(calls::incrementAndGet)))
+                .isInstanceOf(ServiceUnavailableException.class);
+    }
+
+    @Test
+    public void shouldLetOnlyOneProbeThrough() {
+        // Given
+        fail(500);
+        fail(500);
+        now.addAndGet(1000);
+
+        // When
+        Throwable concurrent = catchThrowable(() -> circuitBreaker.call(() ->
+                circuitBreaker.call(calls::incrementAndGet)));
+
+        // Then
+        assertThat(concurrent).isInstanceOf(ServiceUnavailableException.class);
+        assertThat(calls.get()).isZero();
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    public void shouldCountSlowCallsAsFailures() {
+        circuitBreaker = new ApiServerCircuitBreaker(meterRegistry, 1, 1000, 0, now::get);
+
+        circuitBreaker.call(() -> {
+            sleep();
+            return calls.incrementAndGet();
+        });
+
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    public void shouldNeverOpenWhenDisabled() {
+        ApiServerCircuitBreaker disabled = ApiServerCircuitBreaker.disabled();
+
+        for (int i = 0; i < 10; i++) {
+            catchThrowable(() -> disabled.call(() -> {
+                throw new KubernetesClientException("unavailable", 503, null);
+            }));
+        }
+
+        assertThat(disabled.call(calls::incrementAndGet)).isEqualTo(1);
+    }
+
+    private void fail(int code) {
+        catchThrowable(() -> circuitBreaker.call(() -> {
+            throw new KubernetesClientException("failed", code, null);
+        }));
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
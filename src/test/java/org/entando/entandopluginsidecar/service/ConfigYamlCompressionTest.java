@@ -0,0 +1,108 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.util.Collections;
+import org.apache.commons.lang3.StringUtils;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.CrudKubernetesServer;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class ConfigYamlCompressionTest {
+
+    private static final int THRESHOLD_BYTES = 1024;
+
+    @Rule
+    public KubernetesServer server = new CrudKubernetesServer();
+
+    private final ConfigYamlCompression compression = new ConfigYamlCompression(THRESHOLD_BYTES);
+
+    @Test
+    public void shouldCompressAboveTheThreshold() {
+        // Given
+        String configYaml = "certificate: " + StringUtils.repeat("ABCD", 1000);
+        Secret secret = new SecretBuilder().withNewMetadata().withName("config").endMetadata().build();
+
+        // When
+        compression.store(secret, configYaml);
+
+        // Then
+        assertThat(secret.getStringData()).isNull();
+        assertThat(secret.getMetadata().getAnnotations())
+                .containsEntry(ConfigYamlCompression.ENCODING_ANNOTATION, ConfigYamlCompression.GZIP);
+        assertThat(secret.getData().get(ConnectionConfigService.CONFIG_YAML).length())
+                .isLessThan(configYaml.length() / 10);
+        assertThat(ConfigYamlCompression.configYaml(secret)).isEqualTo(configYaml);
+    }
+
+    @Test
+    public void shouldStorePlainTextUpToTheThreshold() {
+        // Given
+        Secret secret = new SecretBuilder().withNewMetadata().withName("config")
+                .addToAnnotations(ConfigYamlCompression.ENCODING_ANNOTATION, ConfigYamlCompression.GZIP)
+                .endMetadata().build();
+
+        // When
+        compression.store(secret, "url: http://localhost");
+
+        // Then
+        assertThat(secret.getStringData()).containsEntry(ConnectionConfigService.CONFIG_YAML, "url: http://localhost");
+        assertThat(secret.getMetadata().getAnnotations()).isNull();
+        assertThat(ConfigYamlCompression.configYaml(secret)).isEqualTo("url: http://localhost");
+    }
+
+    @Test
+    public void shouldMarkCompressedConfigsOfAShard() {
+        // Given
+        String configYaml = "certificate: " + StringUtils.repeat("ABCD", 1000);
+        Secret shard = new SecretBuilder().withNewMetadata().withName(ENTANDO_PLUGIN_NAME + "-connection-configs-0")
+                .addToLabels(ConnectionConfigService.PLUGIN_LABEL, ENTANDO_PLUGIN_NAME)
+                .addToLabels(ConnectionConfigShards.SHARD_LABEL, ENTANDO_PLUGIN_NAME)
+                .endMetadata()
+                .addToData("large", compression.encode(configYaml))
+                .addToData("small", compression.encode("url: http://localhost"))
+                .build();
+
+        // When
+        Secret large = ConnectionConfigShards.expand(shard).stream()
+                .filter(config -> "large".equals(config.getMetadata().getName()))
+                .findFirst().orElseThrow(AssertionError::new);
+        Secret small = ConnectionConfigShards.expand(shard).stream()
+                .filter(config -> "small".equals(config.getMetadata().getName()))
+                .findFirst().orElseThrow(AssertionError::new);
+
+        // Then
+        assertThat(ConfigYamlCompression.isCompressed(large)).isTrue();
+        assertThat(ConfigYamlCompression.configYaml(large)).isEqualTo(configYaml);
+        assertThat(ConfigYamlCompression.isCompressed(small)).isFalse();
+        assertThat(ConfigYamlCompression.configYaml(small)).isEqualTo("url: http://localhost");
+    }
+
+    @Test
+    public void shouldReadBackCompressedConfigs() throws Exception {
+        // Given
+        KubernetesClient client = server.getClient();
+        ConnectionConfigService service = TestHelper.connectionConfigService(client).compression(compression).build();
+        TestHelper.createEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+        ConnectionConfigDto configDto = ConnectionConfigDto.builder()
+                .name("large-config")
+                .properties(Collections.singletonMap("certificate", StringUtils.repeat("ABCD", 1000)))
+                .build();
+
+        // When
+        service.addConnectionConfig(configDto);
+
+        // Then
+        Secret stored = client.secrets().withName(configDto.getName()).get();
+        assertThat(ConfigYamlCompression.isCompressed(stored)).isTrue();
+        assertThat(service.getConnectionConfig(configDto.getName())).isEqualTo(configDto);
+        assertThat(service.getAllConnectionConfig()).isEqualTo(Collections.singletonList(configDto));
+    }
+}
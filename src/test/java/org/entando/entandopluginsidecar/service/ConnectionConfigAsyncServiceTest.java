@@ -0,0 +1,158 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.exception.ServiceUnavailableException;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.web.exception.NotFoundException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConnectionConfigAsyncServiceTest {
+
+    private static final String ETAG = "\"1\"";
+
+    private ConnectionConfigService connectionConfigService;
+    private ConnectionConfigCache cache;
+    private ConnectionConfigAsyncService asyncService;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger reads = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        connectionConfigService = mock(ConnectionConfigService.class);
+        cache = mock(ConnectionConfigCache.class);
+        asyncService = new ConnectionConfigAsyncService(connectionConfigService, cache, new SimpleMeterRegistry(), 2,
+                1);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        asyncService.shutdown();
+    }
+
+    @Test
+    public void shouldShareInFlightGetsOfTheSameConfig() throws Exception {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        when(connectionConfigService.getVersionedConnectionConfig(configDto.getName()))
+                .thenAnswer(invocation -> blockingRead(Versioned.of(ETAG, configDto)));
+
+        // When
+        List<CompletableFuture<Versioned<ConnectionConfigDto>>> gets = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            gets.add(asyncService.getVersionedConnectionConfig(configDto.getName()));
+        }
+        release.countDown();
+
+        // Then
+        for (CompletableFuture<Versioned<ConnectionConfigDto>> get : gets) {
+            assertThat(get.get(5, TimeUnit.SECONDS).getValue()).isEqualTo(configDto);
+        }
+        assertThat(reads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReadAgainAfterWrite() throws Exception {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        when(connectionConfigService.getVersionedConnectionConfig(configDto.getName()))
+                .thenAnswer(invocation -> blockingRead(Versioned.of(ETAG, configDto)));
+        final CompletableFuture<Versioned<ConnectionConfigDto>> before =
+                asyncService.getVersionedConnectionConfig(configDto.getName());
+        waitForReads(1);
+
+        // When
+        asyncService.removeConnectionConfig(configDto.getName()).get(5, TimeUnit.SECONDS);
+        CompletableFuture<Versioned<ConnectionConfigDto>> after =
+                asyncService.getVersionedConnectionConfig(configDto.getName());
+        release.countDown();
+
+        // Then
+        assertThat(after.get(5, TimeUnit.SECONDS).getValue()).isEqualTo(configDto);
+        assertThat(before.get(5, TimeUnit.SECONDS).getValue()).isEqualTo(configDto);
+        assertThat(reads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldFailWithServiceUnavailableWhenBusy() {
+        // Given
+        when(connectionConfigService.getVersionedConnectionConfig(anyString()))
+                .thenAnswer(invocation -> blockingRead(Versioned.of(ETAG, TestHelper.getRandomConnectionConfigDto())));
+        asyncService.getVersionedConnectionConfig("first");
+        asyncService.getVersionedConnectionConfig("second");
+        asyncService.getVersionedConnectionConfig("queued");
+
+        // When
+        Throwable thrown = catchThrowable(() -> asyncService.getVersionedConnectionConfig("rejected"));
+
+        // Then
+        assertThat(thrown).isInstanceOf(ServiceUnavailableException.class)
+                .hasMessage(ConnectionConfigAsyncService.ERROR_BUSY);
+    }
+
+    @Test
+    public void shouldReadOnCallingThreadWhenCacheIsSynced() {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        when(cache.isSynced()).thenReturn(true);
+        when(connectionConfigService.getVersionedConnectionConfig(configDto.getName()))
+                .thenReturn(Versioned.of(ETAG, configDto));
+
+        // When
+        CompletableFuture<Versioned<ConnectionConfigDto>> get =
+                asyncService.getVersionedConnectionConfig(configDto.getName());
+
+        // Then
+        assertThat(get.isDone()).isTrue();
+        assertThat(get.join().getValue()).isEqualTo(configDto);
+        verify(connectionConfigService, times(1)).getVersionedConnectionConfig(configDto.getName());
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWhenReadFails() {
+        // Given
+        when(connectionConfigService.getVersionedConnectionConfig("unknown"))
+                .thenThrow(new NotFoundException("org.entando.error.secret.notFound"));
+
+        // When
+        Throwable thrown = catchThrowable(() -> asyncService.getVersionedConnectionConfig("unknown").get());
+
+        // Then
+        assertThat(thrown).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(NotFoundException.class);
+    }
+
+    private <T> T blockingRead(T value) {
+        reads.incrementAndGet();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+
+    private void waitForReads(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (reads.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
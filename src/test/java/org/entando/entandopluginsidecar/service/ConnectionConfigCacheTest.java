@@ -0,0 +1,265 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.api.model.SecretListBuilder;
+import io.fabric8.kubernetes.api.model.WatchEvent;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.entandopluginsidecar.util.YamlUtils;
+import org.entando.kubernetes.model.plugin.EntandoPlugin;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class ConnectionConfigCacheTest {
+
+    private static final String NAMESPACE = "test";
+    private static final String SECRETS_PATH = "/api/v1/namespaces/" + NAMESPACE + "/secrets"
+            + "?labelSelector=entando.org%2Fplugin%3D" + ENTANDO_PLUGIN_NAME;
+    private static final String PLUGINS_PATH = "/apis/entando.org/v1/namespaces/" + NAMESPACE + "/entandoplugins";
+
+    @Rule
+    public KubernetesServer server = new KubernetesServer(false, false);
+
+    private KubernetesClient client;
+
+    private ConnectionConfigCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        client = server.getClient();
+        TestHelper.expectEntandoPluginCrd(server);
+        cache = new ConnectionConfigCache(client, ENTANDO_PLUGIN_NAME, true, 100);
+    }
+
+    @After
+    public void tearDown() {
+        cache.stop();
+    }
+
+    @Test
+    public void shouldServeEntandoPluginAndSecretsFromMemoryOnceSynced() throws Exception {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        expectEntandoPlugin(configDto.getName());
+        expectSecrets(secretFor(configDto, "2"));
+        server.expect().withPath(SECRETS_PATH + "&resourceVersion=1&watch=true")
+                .andUpgradeToWebSocket().open().done().always();
+
+        // When
+        cache.start();
+        TestHelper.waitUntil(cache::isSynced);
+        int requestCount = server.getMockServer().getRequestCount();
+
+        // Then
+        assertThat(cache.getEntandoPlugin().getMetadata().getName()).isEqualTo(ENTANDO_PLUGIN_NAME);
+        assertThat(cache.getEntandoPlugin().getSpec().getConnectionConfigNames()).containsExactly(configDto.getName());
+        assertThat(cache.getSecret(configDto.getName())).isNotNull();
+        assertThat(server.getMockServer().getRequestCount()).isEqualTo(requestCount);
+    }
+
+    @Test
+    public void shouldApplySecretWatchEvents() throws Exception {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        expectEntandoPlugin(configDto.getName());
+        expectSecrets();
+        server.expect().withPath(SECRETS_PATH + "&resourceVersion=1&watch=true")
+                .andUpgradeToWebSocket().open()
+                .waitFor(200).andEmit(new WatchEvent(secretFor(configDto, "3"), "ADDED"))
+                .done().always();
+
+        // When
+        cache.start();
+        TestHelper.waitUntil(() -> cache.getSecret(configDto.getName()) != null);
+
+        // Then
+        assertThat(cache.getSecret(configDto.getName()).getMetadata().getResourceVersion()).isEqualTo("3");
+    }
+
+    @Test
+    public void shouldApplyWatchEventsInTheOrderTheyCome() throws Exception {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto marker = TestHelper.getRandomConnectionConfigDto();
+        expectEntandoPlugin(configDto.getName(), marker.getName());
+        expectSecrets(secretFor(configDto, "5"));
+        server.expect().withPath(SECRETS_PATH + "&resourceVersion=1&watch=true")
+                .andUpgradeToWebSocket().open()
+                .waitFor(200).andEmit(new WatchEvent(secretFor(configDto, "3"), "MODIFIED"))
+                .waitFor(10).andEmit(new WatchEvent(secretFor(marker, "4"), "ADDED"))
+                .done().always();
+
+        // When
+        cache.start();
+        TestHelper.waitUntil(() -> cache.getSecret(marker.getName()) != null);
+
+        // Then
+        assertThat(cache.getSecret(configDto.getName()).getMetadata().getResourceVersion()).isEqualTo("3");
+    }
+
+    @Test
+    public void shouldApplyWatchEventsWithResourceVersionsThatAreNotNumbers() throws Exception {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto marker = TestHelper.getRandomConnectionConfigDto();
+        expectEntandoPlugin(configDto.getName(), marker.getName());
+        expectSecrets(secretFor(configDto, "2"));
+        server.expect().withPath(SECRETS_PATH + "&resourceVersion=1&watch=true")
+                .andUpgradeToWebSocket().open()
+                .waitFor(500).andEmit(new WatchEvent(secretFor(configDto, "a3"), "MODIFIED"))
+                .waitFor(10).andEmit(new WatchEvent(secretFor(marker, "a4"), "ADDED"))
+                .done().always();
+        cache.start();
+        TestHelper.waitUntil(cache::isSynced);
+
+        // When
+        cache.update(secretFor(configDto, "6"));
+        TestHelper.waitUntil(() -> cache.getSecret(marker.getName()) != null);
+
+        // Then
+        assertThat(cache.getSecret(configDto.getName()).getMetadata().getResourceVersion()).isEqualTo("a3");
+    }
+
+    @Test
+    public void shouldNotReplaceNewerEntriesWithOlderWrites() throws Exception {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        expectEntandoPlugin(configDto.getName());
+        expectSecrets(secretFor(configDto, "5"));
+        server.expect().withPath(SECRETS_PATH + "&resourceVersion=1&watch=true")
+                .andUpgradeToWebSocket().open().done().always();
+        cache.start();
+        TestHelper.waitUntil(cache::isSynced);
+
+        // When
+        cache.update(secretFor(configDto, "4"));
+
+        // Then
+        assertThat(cache.getSecret(configDto.getName()).getMetadata().getResourceVersion()).isEqualTo("5");
+    }
+
+    @Test
+    public void shouldNotReplaceNewerWritesWithDelayedWatchEvents() throws Exception {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto marker = TestHelper.getRandomConnectionConfigDto();
+        expectEntandoPlugin(configDto.getName(), marker.getName());
+        expectSecrets(secretFor(configDto, "2"));
+        server.expect().withPath(SECRETS_PATH + "&resourceVersion=1&watch=true")
+                .andUpgradeToWebSocket().open()
+                .waitFor(500).andEmit(new WatchEvent(secretFor(configDto, "3"), "MODIFIED"))
+                .waitFor(10).andEmit(new WatchEvent(secretFor(configDto, "4"), "DELETED"))
+                .waitFor(10).andEmit(new WatchEvent(secretFor(marker, "5"), "ADDED"))
+                .done().always();
+        cache.start();
+        TestHelper.waitUntil(cache::isSynced);
+
+        // When
+        cache.update(secretFor(configDto, "6"));
+        TestHelper.waitUntil(() -> cache.getSecret(marker.getName()) != null);
+
+        // Then
+        assertThat(cache.getSecret(configDto.getName()).getMetadata().getResourceVersion()).isEqualTo("6");
+    }
+
+    @Test
+    public void shouldNeverBeSyncedWhenDisabled() {
+        ConnectionConfigCache disabled = ConnectionConfigCache.disabled();
+
+        disabled.start();
+        disabled.update(secretFor(TestHelper.getRandomConnectionConfigDto(), "1"));
+
+        assertThat(disabled.isSynced()).isFalse();
+    }
+
+    @Test
+    public void shouldServeReadsWithoutCallingTheApiServerOnceSynced() throws Exception {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        expectEntandoPlugin(configDto.getName());
+        expectSecrets(secretFor(configDto, "2"));
+        server.expect().withPath(SECRETS_PATH + "&resourceVersion=1&watch=true")
+                .andUpgradeToWebSocket().open().done().always();
+        cache.start();
+        TestHelper.waitUntil(cache::isSynced);
+        ConnectionConfigService service = TestHelper.connectionConfigService(client).cache(cache).build();
+        int requestCount = server.getMockServer().getRequestCount();
+
+        // When
+        ConnectionConfigDto fromService = service.getConnectionConfig(configDto.getName());
+
+        // Then
+        assertThat(fromService).isEqualTo(configDto);
+        assertThat(service.getAllConnectionConfig()).containsExactly(configDto);
+        assertThat(server.getMockServer().getRequestCount()).isEqualTo(requestCount);
+    }
+
+    @Test
+    public void shouldKeepUnchangedConfigsOfAWatchedShard() throws Exception {
+        // Given
+        expectEntandoPlugin("kept", "removed", "added");
+        expectSecrets(shard("2", "kept", "removed"));
+        server.expect().withPath(SECRETS_PATH + "&resourceVersion=1&watch=true")
+                .andUpgradeToWebSocket().open()
+                .waitFor(200).andEmit(new WatchEvent(shard("3", "kept", "added"), "MODIFIED"))
+                .done().always();
+
+        // When
+        cache.start();
+        TestHelper.waitUntil(() -> cache.getSecret("added") != null);
+
+        // Then
+        assertThat(cache.getSecret("kept").getMetadata().getResourceVersion()).isEqualTo("2");
+        assertThat(cache.getSecret("added").getMetadata().getResourceVersion()).isEqualTo("3");
+        assertThat(cache.getSecret("removed")).isNull();
+    }
+
+    private void expectEntandoPlugin(String... configNames) {
+        EntandoPlugin entandoPlugin = TestHelper.newEntandoPlugin(ENTANDO_PLUGIN_NAME, configNames);
+        entandoPlugin.getMetadata().setResourceVersion("1");
+        server.expect().get().withPath(PLUGINS_PATH + "?fieldSelector=metadata.name%3D" + ENTANDO_PLUGIN_NAME)
+                .andReturn(200, TestHelper.newEntandoPluginList("1", entandoPlugin)).always();
+        server.expect().withPath(PLUGINS_PATH + "?resourceVersion=1&watch=true")
+                .andUpgradeToWebSocket().open().done().always();
+    }
+
+    private void expectSecrets(Secret... secrets) {
+        server.expect().get().withPath(SECRETS_PATH)
+                .andReturn(200, new SecretListBuilder().withNewMetadata().withResourceVersion("1").endMetadata()
+                        .withItems(secrets).build())
+                .always();
+    }
+
+    private static Secret shard(String resourceVersion, String... configNames) {
+        SecretBuilder shard = new SecretBuilder().withNewMetadata()
+                .withName(ENTANDO_PLUGIN_NAME + "-connection-configs-0")
+                .withResourceVersion(resourceVersion)
+                .addToLabels(ConnectionConfigService.PLUGIN_LABEL, ENTANDO_PLUGIN_NAME)
+                .addToLabels(ConnectionConfigShards.SHARD_LABEL, ENTANDO_PLUGIN_NAME)
+                .endMetadata();
+        for (String configName : configNames) {
+            shard.addToData(configName,
+                    Base64.getEncoder().encodeToString(configName.getBytes(StandardCharsets.UTF_8)));
+        }
+        return shard.build();
+    }
+
+    private static Secret secretFor(ConnectionConfigDto configDto, String resourceVersion) {
+        return new SecretBuilder()
+                .withNewMetadata().withName(configDto.getName()).withResourceVersion(resourceVersion).endMetadata()
+                .withStringData(Collections.singletonMap(ConnectionConfigService.CONFIG_YAML,
+                        YamlUtils.toYaml(configDto)))
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.util.Collections;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigChangesDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.CrudKubernetesServer;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.kubernetes.model.plugin.EntandoPlugin;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class ConnectionConfigChangesTest {
+
+    @Rule
+    public KubernetesServer server = new CrudKubernetesServer();
+
+    private KubernetesClient client;
+
+    private ConnectionConfigService connectionConfigService;
+
+    private ConnectionConfigEvents connectionConfigEvents;
+
+    private ConnectionConfigChanges connectionConfigChanges;
+
+    private ConnectionConfigDto configDto;
+
+    @Before
+    public void setUp() throws Exception {
+        client = server.getClient();
+        connectionConfigService = TestHelper.connectionConfigService(client).build();
+        connectionConfigEvents = new ConnectionConfigEvents(
+                new ConnectionConfigCache(null, ENTANDO_PLUGIN_NAME, true, 0), 10, 3, 100);
+        connectionConfigChanges = new ConnectionConfigChanges(connectionConfigEvents, connectionConfigService);
+
+        configDto = TestHelper.getRandomConnectionConfigDto();
+        TestHelper.createLabeledSecret(client, configDto, ENTANDO_PLUGIN_NAME);
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, configDto.getName());
+        connectionConfigEvents.entandoPluginChanged(readEntandoPlugin(), null);
+        connectionConfigEvents.secretsListed(client.secrets().list().getItems(), null);
+    }
+
+    @After
+    public void tearDown() {
+        connectionConfigEvents.stop();
+    }
+
+    @Test
+    public void shouldReturnSnapshotOnFirstSync() {
+        ConnectionConfigChangesDto changes = connectionConfigChanges.getChangesSince(0);
+
+        assertThat(changes.isSnapshot()).isTrue();
+        assertThat(changes.getConfigs()).containsExactly(configDto);
+        assertThat(changes.getDeleted()).isEmpty();
+        assertThat(changes.getSequence()).isEqualTo(connectionConfigEvents.getSequence());
+    }
+
+    @Test
+    public void shouldReturnOnlyChangedConfigs() {
+        // Given
+        final long since = connectionConfigChanges.getChangesSince(0).getSequence();
+        ConnectionConfigDto added = TestHelper.getRandomConnectionConfigDto();
+        connectionConfigService.addConnectionConfig(added);
+        connectionConfigEvents.secretChanged(client.secrets().withName(added.getName()).get());
+        connectionConfigEvents.entandoPluginChanged(readEntandoPlugin(), null);
+
+        // When
+        ConnectionConfigChangesDto changes = connectionConfigChanges.getChangesSince(since);
+
+        // Then
+        assertThat(changes.isSnapshot()).isFalse();
+        assertThat(changes.getConfigs()).containsExactly(added);
+        assertThat(changes.getDeleted()).isEmpty();
+        assertThat(changes.getSequence()).isEqualTo(since + 1);
+        assertThat(connectionConfigChanges.getChangesSince(changes.getSequence()).getConfigs()).isEmpty();
+    }
+
+    @Test
+    public void shouldReportDeletedConfigs() {
+        // Given
+        final long since = connectionConfigChanges.getChangesSince(0).getSequence();
+        Secret secret = client.secrets().withName(configDto.getName()).get();
+        connectionConfigService.removeConnectionConfig(configDto.getName());
+        connectionConfigEvents.secretDeleted(secret);
+
+        // When
+        ConnectionConfigChangesDto changes = connectionConfigChanges.getChangesSince(since);
+
+        // Then
+        assertThat(changes.isSnapshot()).isFalse();
+        assertThat(changes.getConfigs()).isEmpty();
+        assertThat(changes.getDeleted()).containsExactly(configDto.getName());
+    }
+
+    @Test
+    public void shouldReportConfigDeletedAfterItsEventAsDeleted() {
+        // Given
+        final long since = connectionConfigChanges.getChangesSince(0).getSequence();
+        configDto.setProperties(Collections.singletonMap("changed", "value"));
+        connectionConfigService.editConnectionConfig(configDto);
+        connectionConfigEvents.secretChanged(client.secrets().withName(configDto.getName()).get());
+        connectionConfigService.removeConnectionConfig(configDto.getName());
+
+        // When
+        ConnectionConfigChangesDto changes = connectionConfigChanges.getChangesSince(since);
+
+        // Then
+        assertThat(changes.getConfigs()).isEmpty();
+        assertThat(changes.getDeleted()).containsExactly(configDto.getName());
+    }
+
+    @Test
+    public void shouldFallBackToSnapshotWhenChangesAreNoLongerKept() {
+        // Given
+        final long since = connectionConfigChanges.getChangesSince(0).getSequence();
+        for (int i = 0; i < 4; i++) {
+            configDto.setProperties(Collections.singletonMap("changed", String.valueOf(i)));
+            connectionConfigService.editConnectionConfig(configDto);
+            connectionConfigEvents.secretChanged(client.secrets().withName(configDto.getName()).get());
+        }
+
+        // When
+        ConnectionConfigChangesDto changes = connectionConfigChanges.getChangesSince(since);
+
+        // Then
+        assertThat(changes.isSnapshot()).isTrue();
+        assertThat(changes.getConfigs()).containsExactly(configDto);
+        assertThat(changes.getSequence()).isEqualTo(since + 4);
+    }
+
+    private EntandoPlugin readEntandoPlugin() {
+        return TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+    }
+}
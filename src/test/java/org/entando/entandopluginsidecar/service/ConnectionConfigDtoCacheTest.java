@@ -0,0 +1,86 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConnectionConfigDtoCacheTest {
+
+    private MeterRegistry meterRegistry;
+
+    private ConnectionConfigDtoCache dtoCache;
+
+    private ConnectionConfigDto configDto;
+
+    private AtomicInteger parseCount;
+
+    private Function<Secret, ConnectionConfigDto> parser;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dtoCache = new ConnectionConfigDtoCache(10, meterRegistry);
+        configDto = TestHelper.getRandomConnectionConfigDto();
+        parseCount = new AtomicInteger();
+        parser = secret -> {
+            parseCount.incrementAndGet();
+            return new ConnectionConfigDto(configDto.getName(), configDto.getProperties());
+        };
+    }
+
+    @Test
+    public void shouldParseUnchangedSecretOnlyOnce() {
+        dtoCache.get(secret("1"), parser);
+        ConnectionConfigDto cached = dtoCache.get(secret("1"), parser);
+
+        assertThat(cached).isEqualTo(configDto);
+        assertThat(parseCount.get()).isEqualTo(1);
+        assertThat(gets("hit")).isEqualTo(1);
+        assertThat(gets("miss")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldParseAgainWhenResourceVersionChanges() {
+        dtoCache.get(secret("1"), parser);
+        dtoCache.get(secret("2"), parser);
+
+        assertThat(parseCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldNotCacheSecretsWithoutResourceVersion() {
+        dtoCache.get(secret(null), parser);
+        dtoCache.get(secret(null), parser);
+
+        assertThat(parseCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldNotExposeCachedInstances() {
+        dtoCache.get(secret("1"), parser).getProperties().clear();
+
+        assertThat(dtoCache.get(secret("1"), parser).getProperties()).isEqualTo(configDto.getProperties());
+    }
+
+    private Secret secret(String resourceVersion) {
+        return new SecretBuilder()
+                .withNewMetadata().withName(configDto.getName()).withResourceVersion(resourceVersion).endMetadata()
+                .build();
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", ConnectionConfigDtoCache.CACHE_NAME)
+                .tag("result", result)
+                .functionCounter().count();
+    }
+}
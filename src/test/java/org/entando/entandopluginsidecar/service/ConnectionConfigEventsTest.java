@@ -0,0 +1,269 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigEventDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigEventDto.Type;
+import org.entando.entandopluginsidecar.exception.ServiceUnavailableException;
+import org.entando.entandopluginsidecar.exception.TooManyRequestsException;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.kubernetes.model.plugin.EntandoPlugin;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConnectionConfigEventsTest {
+
+    private ConnectionConfigEvents events;
+
+    private BlockingQueue<ConnectionConfigEventDto> received;
+
+    @Before
+    public void setUp() {
+        events = new ConnectionConfigEvents(new ConnectionConfigCache(null, ENTANDO_PLUGIN_NAME, true, 0), 2, 3, 100);
+        received = new LinkedBlockingQueue<>();
+        events.entandoPluginChanged(entandoPlugin("1", "first"), "1");
+        events.secretsListed(Collections.singletonList(secret("first", "1")), "1");
+    }
+
+    @After
+    public void tearDown() {
+        events.stop();
+    }
+
+    @Test
+    public void shouldNotReportInitialState() throws Exception {
+        events.subscribe(null, received::add);
+        events.subscribe("1", received::add);
+
+        assertThat(received.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    public void shouldReportSecretChanges() throws Exception {
+        // Given
+        events.subscribe(null, received::add);
+
+        // When
+        events.secretChanged(secret("first", "2"));
+        events.secretChanged(secret("unreferenced", "3"));
+        events.secretDeleted(secret("first", "4"));
+
+        // Then
+        assertThat(take(2)).containsExactly(event(Type.EDITED, "first", "2"), event(Type.DELETED, "first", "4"));
+        assertThat(received.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    public void shouldReportConfigsAddedAndRemovedFromEntandoPlugin() throws Exception {
+        // Given
+        events.subscribe(null, received::add);
+
+        // When
+        events.secretChanged(secret("second", "2"));
+        events.entandoPluginChanged(entandoPlugin("3", "second"), "3");
+
+        // Then
+        assertThat(take(2)).containsExactlyInAnyOrder(event(Type.ADDED, "second", "3"),
+                event(Type.DELETED, "first", "3"));
+    }
+
+    @Test
+    public void shouldReportChangesMissedWhileWatchWasDown() throws Exception {
+        // Given
+        events.entandoPluginChanged(entandoPlugin("2", "first", "second"), "2");
+        events.subscribe(null, received::add);
+
+        // When
+        events.secretsListed(Arrays.asList(secret("first", "3"), secret("second", "4")), "5");
+
+        // Then
+        assertThat(take(2)).containsExactlyInAnyOrder(event(Type.EDITED, "first", "3"),
+                event(Type.ADDED, "second", "4"));
+    }
+
+    @Test
+    public void shouldResumeAfterLastSeenEvent() throws Exception {
+        // Given
+        events.secretChanged(secret("first", "2"));
+        events.secretChanged(secret("first", "3"));
+        events.secretChanged(secret("first", "4"));
+
+        // When
+        events.subscribe("2", received::add);
+
+        // Then
+        assertThat(take(2)).containsExactly(event(Type.EDITED, "first", "3"), event(Type.EDITED, "first", "4"));
+    }
+
+    @Test
+    public void shouldAskToResyncWhenLastSeenEventIsNoLongerKept() throws Exception {
+        // Given
+        for (int version = 2; version <= 5; version++) {
+            events.secretChanged(secret("first", String.valueOf(version)));
+        }
+
+        // When
+        events.subscribe("2", received::add);
+
+        // Then
+        assertThat(take(1)).containsExactly(event(Type.RESYNC, null, "5"));
+    }
+
+    @Test
+    public void shouldNumberEventsWithSequence() {
+        // Given
+        long sequence = events.getSequence();
+
+        // When
+        events.secretChanged(secret("first", "2"));
+        events.secretDeleted(secret("first", "3"));
+
+        // Then
+        assertThat(events.getSequence()).isEqualTo(sequence + 2);
+        assertThat(events.getEventsSince(sequence)).containsExactly(event(Type.EDITED, "first", "2"),
+                event(Type.DELETED, "first", "3"));
+        assertThat(events.getEventsSince(sequence + 1)).containsExactly(event(Type.DELETED, "first", "3"));
+        assertThat(events.getEventsSince(sequence + 2)).isEmpty();
+    }
+
+    @Test
+    public void shouldNotReturnEventsSinceUnknownSequence() {
+        // Given
+        long sequence = events.getSequence();
+
+        // When
+        for (int version = 2; version <= 5; version++) {
+            events.secretChanged(secret("first", String.valueOf(version)));
+        }
+
+        // Then
+        assertThat(events.getEventsSince(sequence)).isNull();
+        assertThat(events.getEventsSince(sequence + 1)).hasSize(3);
+        assertThat(events.getEventsSince(sequence + 5)).isNull();
+        assertThat(events.getEventsSince(0)).isNull();
+    }
+
+    @Test
+    public void shouldNotReturnEventsSinceBeforeConfigsWereListed() {
+        ConnectionConfigEvents unlisted = new ConnectionConfigEvents(
+                new ConnectionConfigCache(null, ENTANDO_PLUGIN_NAME, true, 0), 2, 3, 100);
+        long sequence = unlisted.getSequence();
+
+        unlisted.entandoPluginChanged(entandoPlugin("1", "first"), "1");
+        unlisted.secretsListed(Collections.singletonList(secret("first", "1")), "1");
+
+        assertThat(unlisted.getEventsSince(sequence)).isNull();
+        assertThat(unlisted.getEventsSince(unlisted.getSequence())).isEmpty();
+        unlisted.stop();
+    }
+
+    @Test
+    public void shouldLimitSubscribers() {
+        Runnable unsubscribe = events.subscribe(null, received::add);
+        events.subscribe(null, received::add);
+
+        assertThat(catchThrowable(() -> events.subscribe(null, received::add)))
+                .isInstanceOf(TooManyRequestsException.class);
+        unsubscribe.run();
+        events.subscribe(null, received::add);
+        assertThat(events.getSubscriberCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldUnsubscribeFailingSubscribers() throws Exception {
+        // Given
+        events.subscribe(null, event -> {
+            throw new IllegalStateException("Connection closed");
+        });
+
+        // When
+        events.secretChanged(secret("first", "2"));
+
+        // Then
+        TestHelper.waitUntil(() -> events.getSubscriberCount() == 0);
+    }
+
+    @Test
+    public void shouldAskASlowSubscriberToResyncWithoutHoldingBackOthers() throws Exception {
+        // Given
+        ConnectionConfigEvents bounded = new ConnectionConfigEvents(
+                new ConnectionConfigCache(null, ENTANDO_PLUGIN_NAME, true, 0), 2, 10, 2);
+        bounded.entandoPluginChanged(entandoPlugin("1", "first"), "1");
+        bounded.secretsListed(Collections.singletonList(secret("first", "1")), "1");
+        CountDownLatch blocked = new CountDownLatch(1);
+        BlockingQueue<ConnectionConfigEventDto> slow = new LinkedBlockingQueue<>();
+        bounded.subscribe(null, event -> {
+            slow.add(event);
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        bounded.subscribe(null, received::add);
+        bounded.secretChanged(secret("first", "2"));
+        assertThat(slow.poll(5, TimeUnit.SECONDS)).isEqualTo(event(Type.EDITED, "first", "2"));
+        assertThat(take(1)).containsExactly(event(Type.EDITED, "first", "2"));
+
+        // When
+        for (int version = 3; version <= 6; version++) {
+            bounded.secretChanged(secret("first", String.valueOf(version)));
+            // Then
+            assertThat(take(1)).containsExactly(event(Type.EDITED, "first", String.valueOf(version)));
+        }
+        blocked.countDown();
+        assertThat(slow.poll(5, TimeUnit.SECONDS)).isEqualTo(event(Type.RESYNC, null, "5"));
+        assertThat(slow.poll(5, TimeUnit.SECONDS)).isEqualTo(event(Type.EDITED, "first", "6"));
+        assertThat(slow.poll(200, TimeUnit.MILLISECONDS)).isNull();
+        bounded.stop();
+    }
+
+    @Test
+    public void shouldBeUnavailableWithoutCache() {
+        ConnectionConfigEvents withoutCache = new ConnectionConfigEvents(ConnectionConfigCache.disabled(), 2, 3, 100);
+
+        assertThat(catchThrowable(() -> withoutCache.subscribe(null, received::add)))
+                .isInstanceOf(ServiceUnavailableException.class);
+        withoutCache.stop();
+    }
+
+    private List<ConnectionConfigEventDto> take(int count) throws InterruptedException {
+        List<ConnectionConfigEventDto> taken = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ConnectionConfigEventDto event = received.poll(1, TimeUnit.SECONDS);
+            if (event != null) {
+                taken.add(event);
+            }
+        }
+        return taken;
+    }
+
+    private static EntandoPlugin entandoPlugin(String resourceVersion, String... configNames) {
+        EntandoPlugin entandoPlugin = TestHelper.newEntandoPlugin(ENTANDO_PLUGIN_NAME, configNames);
+        entandoPlugin.getMetadata().setResourceVersion(resourceVersion);
+        return entandoPlugin;
+    }
+
+    private static Secret secret(String name, String resourceVersion) {
+        return new SecretBuilder()
+                .withNewMetadata().withName(name).withResourceVersion(resourceVersion).endMetadata()
+                .build();
+    }
+
+    private static ConnectionConfigEventDto event(Type type, String name, String resourceVersion) {
+        return new ConnectionConfigEventDto(type, name, resourceVersion);
+    }
+}
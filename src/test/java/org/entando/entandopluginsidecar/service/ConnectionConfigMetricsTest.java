@@ -0,0 +1,126 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.CrudKubernetesServer;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.web.exception.NotFoundException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class ConnectionConfigMetricsTest {
+
+    @Rule
+    public KubernetesServer server = new CrudKubernetesServer();
+
+    private MeterRegistry meterRegistry;
+
+    private ConnectionConfigService connectionConfigService;
+
+    @Before
+    public void setUp() throws Exception {
+        KubernetesClient client = server.getClient();
+        meterRegistry = new SimpleMeterRegistry();
+        connectionConfigService = TestHelper.connectionConfigService(client)
+                .metrics(new ConnectionConfigMetrics(meterRegistry))
+                .build();
+        TestHelper.createEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+    }
+
+    @Test
+    public void shouldTimeOperations() {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+
+        // When
+        connectionConfigService.addConnectionConfig(configDto);
+        connectionConfigService.getConnectionConfig(configDto.getName());
+        connectionConfigService.getAllConnectionConfig();
+
+        // Then
+        for (String operation : new String[]{"add", "get", "list"}) {
+            assertThat(meterRegistry.get(ConnectionConfigMetrics.OPERATIONS_METRIC)
+                    .tag("operation", operation).tag("outcome", "success").timer().count())
+                    .as(operation).isEqualTo(1);
+        }
+        for (String operation : new String[]{"get", "list"}) {
+            assertThat(meterRegistry.get(ConnectionConfigMetrics.PARSE_METRIC)
+                    .tag("operation", operation).tag("outcome", "success").timer().count())
+                    .as(operation).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void shouldRecordFailuresToBuildAReadValue() {
+        // Given
+        ConnectionConfigMetrics metrics = new ConnectionConfigMetrics(meterRegistry);
+        Versioned<ConnectionConfigDto> versioned = metrics.recordVersioned("get", () -> new Versioned<>("etag", () -> {
+            throw new IllegalStateException("Unparseable config.yaml");
+        }));
+
+        // When
+        Throwable thrown = catchThrowable(versioned::getValue);
+
+        // Then
+        assertThat(thrown).isInstanceOf(IllegalStateException.class);
+        assertThat(meterRegistry.get(ConnectionConfigMetrics.ERRORS_METRIC)
+                .tag("operation", "get").tag("error", "IllegalStateException").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(ConnectionConfigMetrics.OPERATIONS_METRIC)
+                .tag("operation", "get").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find(ConnectionConfigMetrics.OPERATIONS_METRIC)
+                .tag("operation", "get").tag("outcome", "error").timer()).isNull();
+        assertThat(meterRegistry.get(ConnectionConfigMetrics.PARSE_METRIC)
+                .tag("operation", "get").tag("outcome", "error").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldCountErrorsByErrorKey() {
+        // When
+        Throwable thrown = catchThrowable(() -> connectionConfigService.getConnectionConfig("missing"));
+
+        // Then
+        assertThat(thrown).isInstanceOf(NotFoundException.class);
+        assertThat(meterRegistry.get(ConnectionConfigMetrics.ERRORS_METRIC)
+                .tag("operation", "get").tag("error", ConnectionConfigService.ERROR_SECRET_NOT_FOUND)
+                .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(ConnectionConfigMetrics.OPERATIONS_METRIC)
+                .tag("operation", "get").tag("outcome", "error").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldCountErrorsWithoutErrorKeyByType() {
+        ConnectionConfigMetrics metrics = new ConnectionConfigMetrics(meterRegistry);
+
+        catchThrowable(() -> metrics.run("get", () -> {
+            throw new IllegalStateException("Connection reset by peer");
+        }));
+
+        assertThat(meterRegistry.get(ConnectionConfigMetrics.ERRORS_METRIC)
+                .tag("error", "IllegalStateException").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldMeasureConfigSize() {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+
+        // When
+        connectionConfigService.addConnectionConfig(configDto);
+        connectionConfigService.getConnectionConfig(configDto.getName());
+
+        // Then
+        double written = meterRegistry.get(ConnectionConfigMetrics.PAYLOAD_METRIC)
+                .tag("direction", ConnectionConfigMetrics.WRITE).summary().totalAmount();
+        double read = meterRegistry.get(ConnectionConfigMetrics.PAYLOAD_METRIC)
+                .tag("direction", ConnectionConfigMetrics.READ).summary().totalAmount();
+        assertThat(written).isPositive().isEqualTo(read);
+    }
+}
@@ -0,0 +1,58 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.exception.BadRequestException;
+import org.junit.Test;
+
+public class ConnectionConfigProjectionTest {
+
+    @Test
+    public void shouldOnlyKeepNames() {
+        ConnectionConfigProjection projection = ConnectionConfigProjection.of(Collections.singletonList("name"));
+
+        assertThat(projection.isNamesOnly()).isTrue();
+        assertThat(projection.apply(config())).isEqualTo(new ConnectionConfigDto("config", null));
+    }
+
+    @Test
+    public void shouldKeepSelectedProperties() {
+        ConnectionConfigProjection projection = ConnectionConfigProjection.of(Arrays.asList("properties.url",
+                " properties.username "));
+
+        assertThat(projection.isNamesOnly()).isFalse();
+        assertThat(projection.apply(config()).getProperties()).containsOnlyKeys("url", "username");
+    }
+
+    @Test
+    public void shouldKeepWholeConfigWhenAllPropertiesAreSelected() {
+        ConnectionConfigProjection projection = ConnectionConfigProjection.of(Arrays.asList("name", "properties",
+                "properties.url"));
+
+        assertThat(projection).isSameAs(ConnectionConfigProjection.ALL);
+        assertThat(projection.apply(config())).isEqualTo(config());
+    }
+
+    @Test
+    public void shouldRejectUnknownFields() {
+        assertThat(catchThrowable(() -> ConnectionConfigProjection.of(Collections.singletonList("secret"))))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage(ConnectionConfigProjection.ERROR_INVALID_FIELDS);
+        assertThat(catchThrowable(() -> ConnectionConfigProjection.of(Collections.singletonList("properties."))))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private static ConnectionConfigDto config() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("url", "http://example.com");
+        properties.put("username", "admin");
+        properties.put("password", "secret");
+        return new ConnectionConfigDto("config", properties);
+    }
+}
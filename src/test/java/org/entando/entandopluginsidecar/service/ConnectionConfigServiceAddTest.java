@@ -7,8 +7,17 @@ import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.apiextensions.CustomResourceDefinition;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.assertj.core.api.Java6JUnitSoftAssertions;
 import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.CrudKubernetesServer;
 import org.entando.entandopluginsidecar.util.TestHelper;
 import org.entando.entandopluginsidecar.util.YamlUtils;
 import org.entando.kubernetes.model.plugin.DoneableEntandoPlugin;
@@ -24,7 +33,7 @@ import org.junit.rules.ExpectedException;
 public class ConnectionConfigServiceAddTest {
 
     @Rule
-    public KubernetesServer server = new KubernetesServer(true, true);
+    public KubernetesServer server = new CrudKubernetesServer();
 
     @Rule
     public Java6JUnitSoftAssertions safely = new Java6JUnitSoftAssertions();
@@ -39,7 +48,7 @@ public class ConnectionConfigServiceAddTest {
     @Before
     public void setUp() {
         client = server.getClient();
-        connectionConfigService = new ConnectionConfigService(client, ENTANDO_PLUGIN_NAME);
+        connectionConfigService = TestHelper.connectionConfigService(client).build();
     }
 
     @Test
@@ -63,6 +72,21 @@ public class ConnectionConfigServiceAddTest {
         safely.assertThat(entandoPlugin.getSpec().getConnectionConfigNames()).contains(configDto.getName());
     }
 
+    @Test
+    public void shouldLabelSecretWithPluginName() throws Exception {
+        // Given
+        TestHelper.createEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+
+        // When
+        connectionConfigService.addConnectionConfig(configDto);
+
+        // Then
+        Secret secret = client.secrets().withName(configDto.getName()).get();
+        assertThat(secret.getMetadata().getLabels())
+                .containsEntry(ConnectionConfigService.PLUGIN_LABEL, ENTANDO_PLUGIN_NAME);
+    }
+
     @Test
     public void shouldAddConnectionConfigNameToPluginResource() throws Exception {
         // Given
@@ -133,4 +157,43 @@ public class ConnectionConfigServiceAddTest {
         EntandoPlugin entandoPlugin = TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
         assertThat(entandoPlugin.getSpec().getConnectionConfigNames()).doesNotHaveDuplicates();
     }
+
+    @Test
+    public void shouldMergeConcurrentAdditionsIntoOnePluginWrite() throws Exception {
+        // Given
+        TestHelper.createEntandoPluginCrd(client);
+        TestHelper.createEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+        EntandoPluginWriteBehind writeBehind = new EntandoPluginWriteBehind(
+                new EntandoPluginPatcher(client, ENTANDO_PLUGIN_NAME), ApiServerCircuitBreaker.disabled(), 200,
+                new SimpleMeterRegistry());
+        ConnectionConfigService coalescing = TestHelper.connectionConfigService(client)
+                .pluginWriter(writeBehind)
+                .build();
+        List<ConnectionConfigDto> configs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            configs.add(TestHelper.getRandomConnectionConfigDto());
+        }
+        TestHelper.takeRequestPaths(server);
+
+        // When
+        ExecutorService executor = Executors.newFixedThreadPool(configs.size());
+        try {
+            List<Future<?>> adds = new ArrayList<>();
+            configs.forEach(configDto -> adds.add(executor.submit(() -> coalescing.addConnectionConfig(configDto))));
+            for (Future<?> add : adds) {
+                add.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            writeBehind.shutdown();
+        }
+
+        // Then
+        assertThat(TestHelper.takeRequestPaths(server).stream().filter(path -> path.startsWith("PATCH")).count())
+                .isEqualTo(1);
+        EntandoPlugin entandoPlugin = TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+        assertThat(entandoPlugin.getSpec().getConnectionConfigNames())
+                .containsOnlyElementsOf(configs.stream().map(ConnectionConfigDto::getName).collect(Collectors.toList()))
+                .hasSize(configs.size());
+    }
 }
@@ -0,0 +1,173 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchOperationDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchOperationDto.Operation;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchResultDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.CrudKubernetesServer;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.entandopluginsidecar.util.YamlUtils;
+import org.entando.kubernetes.model.plugin.EntandoPlugin;
+import org.entando.web.exception.ConflictException;
+import org.entando.web.exception.NotFoundException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ConnectionConfigServiceBatchTest {
+
+    @Rule
+    public KubernetesServer server = new CrudKubernetesServer();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private ConnectionConfigService connectionConfigService;
+
+    private KubernetesClient client;
+
+    @Before
+    public void setUp() {
+        client = server.getClient();
+        connectionConfigService = TestHelper.connectionConfigService(client).build();
+    }
+
+    @Test
+    public void shouldApplyAllOperationsWithASingleEntandoPluginWrite() throws Exception {
+        // Given
+        ConnectionConfigDto toEdit = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto toDelete = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto toCreate1 = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto toCreate2 = TestHelper.getRandomConnectionConfigDto();
+        TestHelper.createLabeledSecret(client, toEdit, ENTANDO_PLUGIN_NAME);
+        TestHelper.createLabeledSecret(client, toDelete, ENTANDO_PLUGIN_NAME);
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, toEdit.getName(),
+                toDelete.getName());
+        ConnectionConfigDto edited = new ConnectionConfigDto(toEdit.getName(), Collections.singletonMap("a", "b"));
+        TestHelper.takeRequestPaths(server);
+
+        // When
+        List<ConnectionConfigBatchResultDto> results = connectionConfigService.applyBatch(Arrays.asList(
+                operation(Operation.CREATE, toCreate1),
+                operation(Operation.CREATE, toCreate2),
+                operation(Operation.EDIT, edited),
+                operation(Operation.DELETE, toDelete)));
+
+        // Then
+        assertThat(statuses(results)).containsExactly(201, 201, 200, 200);
+        assertThat(results).extracting(ConnectionConfigBatchResultDto::getError).containsOnlyNulls();
+        List<String> pluginWrites = TestHelper.takeRequestPaths(server).stream()
+                .filter(path -> path.startsWith("PATCH") && path.contains("/entandoplugins/"))
+                .collect(Collectors.toList());
+        assertThat(pluginWrites).hasSize(1);
+        EntandoPlugin entandoPlugin = TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+        assertThat(entandoPlugin.getSpec().getConnectionConfigNames())
+                .containsExactlyInAnyOrder(toEdit.getName(), toCreate1.getName(), toCreate2.getName());
+        assertThat(connectionConfigService.getConnectionConfig(toCreate1.getName())).isEqualTo(toCreate1);
+        assertThat(connectionConfigService.getConnectionConfig(toEdit.getName())).isEqualTo(edited);
+        assertThat(client.secrets().withName(toDelete.getName()).get()).isNull();
+    }
+
+    @Test
+    public void shouldReportAResultForEachFailedOperation() throws Exception {
+        // Given
+        ConnectionConfigDto existing = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto missing = TestHelper.getRandomConnectionConfigDto();
+        TestHelper.createLabeledSecret(client, existing, ENTANDO_PLUGIN_NAME);
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, existing.getName());
+        TestHelper.takeRequestPaths(server);
+
+        // When
+        List<ConnectionConfigBatchResultDto> results = connectionConfigService.applyBatch(Arrays.asList(
+                operation(Operation.CREATE, existing),
+                operation(Operation.EDIT, missing),
+                operation(Operation.DELETE, missing),
+                operation(null, missing),
+                operation(Operation.CREATE, new ConnectionConfigDto())));
+
+        // Then
+        assertThat(statuses(results)).containsExactly(409, 404, 404, 400, 400);
+        assertThat(results).extracting(ConnectionConfigBatchResultDto::getError).containsExactly(
+                ConnectionConfigService.ERROR_SECRET_ALREADY_EXISTS,
+                ConnectionConfigService.ERROR_SECRET_NOT_FOUND,
+                ConnectionConfigService.ERROR_SECRET_NOT_FOUND,
+                ConnectionConfigService.ERROR_VALIDATION,
+                ConnectionConfigService.ERROR_VALIDATION);
+        assertThat(TestHelper.takeRequestPaths(server)).noneMatch(path -> path.startsWith("PATCH")
+                && path.contains("/entandoplugins/"));
+        assertThat(YamlUtils.fromYaml(client.secrets().withName(existing.getName()).get().getStringData()
+                .get(ConnectionConfigService.CONFIG_YAML))).isEqualTo(existing);
+    }
+
+    @Test
+    public void shouldCreateNoSecretWhenTheEntandoPluginWriteFails() throws Exception {
+        // Given
+        EntandoPluginWriteBehind pluginWriter = mock(EntandoPluginWriteBehind.class);
+        when(pluginWriter.updateConnectionConfigNames(any(), any(), any()))
+                .thenThrow(new ConflictException(EntandoPluginPatcher.ERROR_CONCURRENT_MODIFICATION));
+        connectionConfigService = TestHelper.connectionConfigService(client).pluginWriter(pluginWriter).build();
+        ConnectionConfigDto toCreate = TestHelper.getRandomConnectionConfigDto();
+        TestHelper.createEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+
+        // When
+        Throwable thrown = catchThrowable(() -> connectionConfigService.applyBatch(Collections.singletonList(
+                operation(Operation.CREATE, toCreate))));
+
+        // Then
+        assertThat(thrown).isInstanceOf(ConflictException.class);
+        assertThat(client.secrets().withName(toCreate.getName()).get()).isNull();
+    }
+
+    @Test
+    public void shouldRemoveTheNamesOfConfigsThatCouldNotBeCreated() throws Exception {
+        // Given
+        ConnectionConfigDto created = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto notCreated = TestHelper.getRandomConnectionConfigDto();
+        // not labeled, so only found once its creation fails
+        TestHelper.createSecret(client, notCreated);
+        TestHelper.createEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+
+        // When
+        List<ConnectionConfigBatchResultDto> results = connectionConfigService.applyBatch(Arrays.asList(
+                operation(Operation.CREATE, created),
+                operation(Operation.CREATE, notCreated)));
+
+        // Then
+        assertThat(statuses(results)).containsExactly(201, 409);
+        assertThat(TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME).getSpec().getConnectionConfigNames())
+                .containsExactly(created.getName());
+    }
+
+    @Test
+    public void shouldThrowNotFoundWhenEntandoPluginDoesNotExist() throws Exception {
+        TestHelper.createEntandoPluginCrd(client);
+
+        expectedException.expect(NotFoundException.class);
+        expectedException.expectMessage(ConnectionConfigService.ERROR_PLUGIN_NOT_FOUND);
+
+        connectionConfigService.applyBatch(Collections.singletonList(
+                operation(Operation.CREATE, TestHelper.getRandomConnectionConfigDto())));
+    }
+
+    private static ConnectionConfigBatchOperationDto operation(Operation operation, ConnectionConfigDto configDto) {
+        return new ConnectionConfigBatchOperationDto(operation, configDto.getName(), configDto.getProperties());
+    }
+
+    private static List<Integer> statuses(List<ConnectionConfigBatchResultDto> results) {
+        return results.stream().map(ConnectionConfigBatchResultDto::getStatus).collect(Collectors.toList());
+    }
+}
@@ -6,6 +6,7 @@ import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NA
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
 import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.CrudKubernetesServer;
 import org.entando.entandopluginsidecar.util.TestHelper;
 import org.entando.kubernetes.model.plugin.EntandoPlugin;
 import org.junit.Before;
@@ -15,7 +16,7 @@ import org.junit.Test;
 public class ConnectionConfigServiceDeleteTest {
 
     @Rule
-    public KubernetesServer server = new KubernetesServer(true, true);
+    public KubernetesServer server = new CrudKubernetesServer();
 
     private ConnectionConfigService connectionConfigService;
 
@@ -24,7 +25,7 @@ public class ConnectionConfigServiceDeleteTest {
     @Before
     public void setUp() {
         client = server.getClient();
-        connectionConfigService = new ConnectionConfigService(client, ENTANDO_PLUGIN_NAME);
+        connectionConfigService = TestHelper.connectionConfigService(client).build();
     }
 
     @Test
@@ -0,0 +1,124 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.util.Arrays;
+import java.util.Collections;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.CrudKubernetesServer;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.web.exception.NotFoundException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class ConnectionConfigServiceETagTest {
+
+    @Rule
+    public KubernetesServer server = new CrudKubernetesServer();
+
+    private ConnectionConfigService connectionConfigService;
+
+    private KubernetesClient client;
+
+    private ConnectionConfigDto configDto;
+
+    @Before
+    public void setUp() throws Exception {
+        client = server.getClient();
+        connectionConfigService = TestHelper.connectionConfigService(client).build();
+        configDto = TestHelper.getRandomConnectionConfigDto();
+        TestHelper.createLabeledSecret(client, configDto, ENTANDO_PLUGIN_NAME);
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, configDto.getName());
+    }
+
+    @Test
+    public void shouldKeepETagsWhileNothingChanges() {
+        String etag = connectionConfigService.getVersionedConnectionConfig(configDto.getName()).getEtag();
+        String listEtag = connectionConfigService.getAllVersionedConnectionConfig().getEtag();
+
+        assertThat(etag).isNotNull().startsWith("\"").endsWith("\"");
+        assertThat(connectionConfigService.getVersionedConnectionConfig(configDto.getName()).getEtag())
+                .isEqualTo(etag);
+        assertThat(connectionConfigService.getAllVersionedConnectionConfig().getEtag()).isEqualTo(listEtag);
+    }
+
+    @Test
+    public void shouldChangeETagsWhenSecretChanges() {
+        // Given
+        String etag = connectionConfigService.getVersionedConnectionConfig(configDto.getName()).getEtag();
+        final String listEtag = connectionConfigService.getAllVersionedConnectionConfig().getEtag();
+
+        // When
+        configDto.setProperties(Collections.singletonMap("changed", "value"));
+        connectionConfigService.editConnectionConfig(configDto);
+
+        // Then
+        Versioned<ConnectionConfigDto> edited = connectionConfigService.getVersionedConnectionConfig(
+                configDto.getName());
+        assertThat(edited.getEtag()).isNotEqualTo(etag);
+        assertThat(edited.getValue()).isEqualTo(configDto);
+        assertThat(connectionConfigService.getAllVersionedConnectionConfig().getEtag()).isNotEqualTo(listEtag);
+    }
+
+    @Test
+    public void shouldChangeListETagWhenConfigIsAdded() {
+        // Given
+        String etag = connectionConfigService.getVersionedConnectionConfig(configDto.getName()).getEtag();
+        String listEtag = connectionConfigService.getAllVersionedConnectionConfig().getEtag();
+
+        // When
+        connectionConfigService.addConnectionConfig(TestHelper.getRandomConnectionConfigDto());
+
+        // Then
+        assertThat(connectionConfigService.getAllVersionedConnectionConfig().getEtag()).isNotEqualTo(listEtag);
+        assertThat(connectionConfigService.getVersionedConnectionConfig(configDto.getName()).getEtag())
+                .isEqualTo(etag);
+    }
+
+    @Test
+    public void shouldTellProjectionsApartInETags() {
+        ConnectionConfigProjection names = ConnectionConfigProjection.of(Collections.singletonList("name"));
+        ConnectionConfigProjection url = ConnectionConfigProjection.of(Arrays.asList("name", "properties.url"));
+
+        assertThat(connectionConfigService.getAllVersionedConnectionConfig(ConnectionConfigProjection.ALL).getEtag())
+                .isEqualTo(connectionConfigService.getAllVersionedConnectionConfig().getEtag());
+        assertThat(Arrays.asList(connectionConfigService.getAllVersionedConnectionConfig().getEtag(),
+                connectionConfigService.getAllVersionedConnectionConfig(names).getEtag(),
+                connectionConfigService.getAllVersionedConnectionConfig(url).getEtag()))
+                .doesNotContainNull()
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void shouldKeepNamesETagWhenSecretChanges() {
+        // Given
+        ConnectionConfigProjection names = ConnectionConfigProjection.of(Collections.singletonList("name"));
+        String etag = connectionConfigService.getAllVersionedConnectionConfig(names).getEtag();
+
+        // When
+        configDto.setProperties(Collections.singletonMap("changed", "value"));
+        connectionConfigService.editConnectionConfig(configDto);
+
+        // Then
+        assertThat(connectionConfigService.getAllVersionedConnectionConfig(names).getEtag()).isEqualTo(etag);
+    }
+
+    @Test
+    public void shouldComputeETagWithoutParsingSecret() {
+        // Given
+        client.secrets().withName(configDto.getName()).edit().withStringData(null).done();
+
+        // When
+        Versioned<ConnectionConfigDto> versioned = connectionConfigService.getVersionedConnectionConfig(
+                configDto.getName());
+
+        // Then
+        assertThat(versioned.getEtag()).isNotNull();
+        assertThat(catchThrowable(versioned::getValue)).isInstanceOf(NotFoundException.class);
+    }
+}
@@ -32,7 +32,7 @@ public class ConnectionConfigServiceGetTest {
     @Before
     public void setUp() {
         client = server.getClient();
-        connectionConfigService = new ConnectionConfigService(client, ENTANDO_PLUGIN_NAME);
+        connectionConfigService = TestHelper.connectionConfigService(client).build();
     }
 
     @Test
@@ -1,12 +1,22 @@
 package org.entando.entandopluginsidecar.service;
 
 import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
 import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
 
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigPageDto;
+import org.entando.entandopluginsidecar.exception.BadRequestException;
 import org.entando.entandopluginsidecar.util.TestHelper;
 import org.entando.web.exception.NotFoundException;
 import org.junit.Before;
@@ -29,7 +39,7 @@ public class ConnectionConfigServiceListTest {
     @Before
     public void setUp() {
         client = server.getClient();
-        connectionConfigService = new ConnectionConfigService(client, ENTANDO_PLUGIN_NAME);
+        connectionConfigService = TestHelper.connectionConfigService(client).build();
     }
 
     @Test
@@ -52,6 +62,131 @@ public class ConnectionConfigServiceListTest {
         assertThat(configDtos).doesNotContain(configDto3);
     }
 
+    @Test
+    public void shouldListLabeledSecretsWithASingleCall() throws Exception {
+        // Given
+        ConnectionConfigDto configDto1 = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto configDto2 = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto configDto3 = TestHelper.getRandomConnectionConfigDto();
+        TestHelper.createLabeledSecret(client, configDto1, ENTANDO_PLUGIN_NAME);
+        TestHelper.createLabeledSecret(client, configDto2, ENTANDO_PLUGIN_NAME);
+        TestHelper.createLabeledSecret(client, configDto3, ENTANDO_PLUGIN_NAME);
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, configDto1.getName(),
+                configDto2.getName(), configDto3.getName());
+        TestHelper.takeRequestPaths(server);
+
+        // When
+        List<ConnectionConfigDto> configDtos = connectionConfigService.getAllConnectionConfig();
+
+        // Then
+        assertThat(configDtos).containsExactly(configDto1, configDto2, configDto3);
+        assertThat(TestHelper.takeRequestPaths(server)).filteredOn(path -> path.contains("/secrets")).hasSize(1);
+    }
+
+    @Test
+    public void shouldListNamesFromEntandoPluginAlone() throws Exception {
+        // Given
+        List<ConnectionConfigDto> configDtos = createLabeledConfigs(3);
+        TestHelper.takeRequestPaths(server);
+
+        // When
+        List<ConnectionConfigDto> names = connectionConfigService.getAllVersionedConnectionConfig(
+                ConnectionConfigProjection.of(Collections.singletonList("name"))).getValue();
+
+        // Then
+        assertThat(names).extracting(ConnectionConfigDto::getName)
+                .containsExactlyElementsOf(configDtos.stream().map(ConnectionConfigDto::getName)
+                        .collect(Collectors.toList()));
+        assertThat(names).extracting(ConnectionConfigDto::getProperties).containsOnlyNulls();
+        assertThat(TestHelper.takeRequestPaths(server)).noneMatch(path -> path.contains("/secrets"));
+    }
+
+    @Test
+    public void shouldListOnlySelectedProperties() throws Exception {
+        // Given
+        Map<String, String> properties = new HashMap<>();
+        properties.put("url", "http://example.com");
+        properties.put("username", "admin");
+        properties.put("password", "secret");
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        configDto.setProperties(properties);
+        TestHelper.createLabeledSecret(client, configDto, ENTANDO_PLUGIN_NAME);
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, configDto.getName());
+
+        // When
+        List<ConnectionConfigDto> configDtos = connectionConfigService.getAllVersionedConnectionConfig(
+                ConnectionConfigProjection.of(Arrays.asList("name", "properties.url", "properties.missing")))
+                .getValue();
+
+        // Then
+        assertThat(configDtos).containsExactly(new ConnectionConfigDto(configDto.getName(),
+                Collections.singletonMap("url", "http://example.com")));
+    }
+
+    @Test
+    public void shouldGetConnectionConfigsPageByPage() throws Exception {
+        // Given
+        List<ConnectionConfigDto> configDtos = createLabeledConfigs(5);
+        configDtos.sort(Comparator.comparing(ConnectionConfigDto::getName));
+
+        // When
+        ConnectionConfigPageDto first = connectionConfigService.getConnectionConfigPage(2, null);
+        ConnectionConfigPageDto second = connectionConfigService.getConnectionConfigPage(2, first.getContinueToken());
+        ConnectionConfigPageDto last = connectionConfigService.getConnectionConfigPage(2, second.getContinueToken());
+
+        // Then
+        assertThat(first.getItems()).containsExactlyElementsOf(configDtos.subList(0, 2));
+        assertThat(second.getItems()).containsExactlyElementsOf(configDtos.subList(2, 4));
+        assertThat(last.getItems()).containsExactlyElementsOf(configDtos.subList(4, 5));
+        assertThat(last.getContinueToken()).isNull();
+    }
+
+    @Test
+    public void shouldOnlyReadSecretsOfPage() throws Exception {
+        // Given
+        createLabeledConfigs(5);
+        TestHelper.takeRequestPaths(server);
+
+        // When
+        ConnectionConfigPageDto page = connectionConfigService.getConnectionConfigPage(2, null);
+
+        // Then
+        assertThat(page.getItems()).hasSize(2);
+        assertThat(TestHelper.takeRequestPaths(server)).filteredOn(path -> path.contains("/secrets")).hasSize(2);
+    }
+
+    @Test
+    public void shouldRejectInvalidPageRequests() throws Exception {
+        createLabeledConfigs(1);
+
+        assertThat(catchThrowable(() -> connectionConfigService.getConnectionConfigPage(0, null)))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage(ConnectionConfigService.ERROR_INVALID_LIMIT);
+        assertThat(catchThrowable(() -> connectionConfigService.getConnectionConfigPage(2, "not base64!")))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage(ConnectionConfigService.ERROR_INVALID_CONTINUE);
+    }
+
+    @Test
+    public void shouldStreamAllConnectionConfigs() throws Exception {
+        // Given
+        ConnectionConfigDto unlabeled = TestHelper.getRandomConnectionConfigDto();
+        TestHelper.createSecret(client, unlabeled);
+        List<ConnectionConfigDto> configDtos = createLabeledConfigs(3, unlabeled.getName());
+        configDtos.add(unlabeled);
+        connectionConfigService = TestHelper.connectionConfigService(client).listPageSize(2).build();
+        TestHelper.takeRequestPaths(server);
+
+        // When
+        List<ConnectionConfigDto> streamed = new ArrayList<>();
+        connectionConfigService.forEachConnectionConfig(streamed::add);
+
+        // Then
+        assertThat(streamed).containsExactlyInAnyOrderElementsOf(configDtos);
+        assertThat(TestHelper.takeRequestPaths(server)).filteredOn(path -> path.contains("/secrets"))
+                .anyMatch(path -> path.contains("limit=2"));
+    }
+
     @Test
     public void shouldReturnEmptyListForNonExistingConfigs() throws Exception {
         TestHelper.createEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
@@ -70,4 +205,17 @@ public class ConnectionConfigServiceListTest {
 
         connectionConfigService.getAllConnectionConfig();
     }
+
+    private List<ConnectionConfigDto> createLabeledConfigs(int count, String... otherNames) throws Exception {
+        List<ConnectionConfigDto> configDtos = new ArrayList<>();
+        List<String> names = new ArrayList<>(Arrays.asList(otherNames));
+        for (int i = 0; i < count; i++) {
+            ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+            TestHelper.createLabeledSecret(client, configDto, ENTANDO_PLUGIN_NAME);
+            configDtos.add(configDto);
+            names.add(configDto.getName());
+        }
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, names.toArray(new String[0]));
+        return configDtos;
+    }
 }
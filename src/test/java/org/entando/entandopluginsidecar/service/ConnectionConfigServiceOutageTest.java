@@ -0,0 +1,117 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.exception.ServiceUnavailableException;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.entandopluginsidecar.util.YamlUtils;
+import org.entando.web.exception.NotFoundException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class ConnectionConfigServiceOutageTest {
+
+    private static final String NAMESPACE = "test";
+    private static final String SECRETS_PATH = "/api/v1/namespaces/" + NAMESPACE + "/secrets/";
+    private static final String PLUGIN_PATH = "/apis/entando.org/v1/namespaces/" + NAMESPACE + "/entandoplugins/"
+            + ENTANDO_PLUGIN_NAME;
+
+    @Rule
+    public KubernetesServer server = new KubernetesServer(false, false);
+
+    private MeterRegistry meterRegistry;
+
+    private ConnectionConfigService connectionConfigService;
+
+    private ConnectionConfigDto configDto;
+
+    @Before
+    public void setUp() throws Exception {
+        KubernetesClient client = server.getClient();
+        meterRegistry = new SimpleMeterRegistry();
+        ApiServerCircuitBreaker circuitBreaker = new ApiServerCircuitBreaker(meterRegistry, 2, 60_000, 5000);
+        connectionConfigService = TestHelper.connectionConfigService(client)
+                .secretFetcher(new SecretFetcher(client, circuitBreaker, 8, 10_000, 256))
+                .pluginWriter(new EntandoPluginWriteBehind(new EntandoPluginPatcher(client, ENTANDO_PLUGIN_NAME),
+                        circuitBreaker, 0, meterRegistry))
+                .metrics(new ConnectionConfigMetrics(meterRegistry))
+                .circuitBreaker(circuitBreaker)
+                .build();
+        configDto = TestHelper.getRandomConnectionConfigDto();
+        TestHelper.expectEntandoPluginCrd(server);
+        server.expect().get().withPath(PLUGIN_PATH)
+                .andReturn(200, TestHelper.newEntandoPlugin(ENTANDO_PLUGIN_NAME, configDto.getName()))
+                .once();
+        server.expect().get().withPath(SECRETS_PATH + configDto.getName())
+                .andReturn(200, newSecret(configDto))
+                .once();
+        server.expect().get().withPath(PLUGIN_PATH).andReturn(500, "unavailable").always();
+        server.expect().get().withPath(SECRETS_PATH + configDto.getName()).andReturn(500, "unavailable").always();
+    }
+
+    @Test
+    public void shouldServeLastReadConfigWhenApiServerFails() {
+        // Given
+        String name = configDto.getName();
+        Versioned<ConnectionConfigDto> fresh = connectionConfigService.getVersionedConnectionConfig(name);
+
+        // When
+        Versioned<ConnectionConfigDto> stale = connectionConfigService.getVersionedConnectionConfig(name);
+
+        // Then
+        assertThat(fresh.isStale()).isFalse();
+        assertThat(stale.isStale()).isTrue();
+        assertThat(stale.getValue()).isEqualTo(configDto);
+        assertThat(stale.getEtag()).isEqualTo(fresh.getEtag());
+        assertThat(meterRegistry.get(ConnectionConfigMetrics.STALE_METRIC).tag("operation", "get").counter()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldFailWhenConfigWasNotReadBefore() {
+        // Given
+        Throwable notFound = catchThrowable(() -> connectionConfigService.getConnectionConfig("unknown"));
+
+        // When
+        Throwable thrown = catchThrowable(() -> connectionConfigService.getConnectionConfig(configDto.getName()));
+
+        // Then
+        assertThat(notFound).isInstanceOf(NotFoundException.class);
+        assertThat(thrown).isInstanceOf(ServiceUnavailableException.class)
+                .hasMessage(ApiServerCircuitBreaker.ERROR_API_SERVER_UNAVAILABLE);
+    }
+
+    @Test
+    public void shouldFailWritesFastWhileOpen() {
+        // Given
+        connectionConfigService.getVersionedConnectionConfig(configDto.getName());
+        connectionConfigService.getVersionedConnectionConfig(configDto.getName());
+        connectionConfigService.getVersionedConnectionConfig(configDto.getName());
+        int requests = server.getMockServer().getRequestCount();
+
+        // When
+        Throwable thrown = catchThrowable(() -> connectionConfigService.editConnectionConfig(configDto));
+
+        // Then
+        assertThat(thrown).isInstanceOf(ServiceUnavailableException.class)
+                .hasMessage(ApiServerCircuitBreaker.ERROR_API_SERVER_UNAVAILABLE);
+        assertThat(server.getMockServer().getRequestCount()).isEqualTo(requests);
+    }
+
+    private static Secret newSecret(ConnectionConfigDto configDto) {
+        return new SecretBuilder()
+                .withNewMetadata().withName(configDto.getName()).withResourceVersion("1").endMetadata()
+                .addToStringData(ConnectionConfigService.CONFIG_YAML, YamlUtils.toYaml(configDto))
+                .build();
+    }
+}
@@ -0,0 +1,245 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.CrudKubernetesServer;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.entandopluginsidecar.util.YamlUtils;
+import org.entando.web.exception.ConflictException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class ConnectionConfigShardsTest {
+
+    private static final long MAX_SHARD_BYTES = 1000;
+
+    @Rule
+    public KubernetesServer server = new CrudKubernetesServer();
+
+    private KubernetesClient client;
+
+    private ConnectionConfigShards shards;
+
+    @Before
+    public void setUp() {
+        client = server.getClient();
+        shards = new ConnectionConfigShards(client, ENTANDO_PLUGIN_NAME, ConfigYamlCompression.disabled(), true,
+                MAX_SHARD_BYTES);
+    }
+
+    @Test
+    public void shouldStoreConfigsAsKeysOfAShard() {
+        // Given
+        ConnectionConfigDto configDto1 = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto configDto2 = TestHelper.getRandomConnectionConfigDto();
+
+        // When
+        shards.add(configDto1.getName(), YamlUtils.toYaml(configDto1));
+        shards.add(configDto2.getName(), YamlUtils.toYaml(configDto2));
+
+        // Then
+        List<Secret> stored = shards.listShards();
+        assertThat(stored).hasSize(1);
+        assertThat(stored.get(0).getMetadata().getLabels())
+                .containsEntry(ConnectionConfigService.PLUGIN_LABEL, ENTANDO_PLUGIN_NAME);
+        List<Secret> configs = ConnectionConfigShards.expand(stored.get(0));
+        assertThat(configs.stream().map(ConnectionConfigService::parseSecret).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder(configDto1, configDto2);
+        assertThat(configs).allMatch(config -> stored.get(0).getMetadata().getName()
+                .equals(ConnectionConfigShards.shardOf(config)));
+    }
+
+    @Test
+    public void shouldKeepTheVersionOfTheOtherConfigsOfAShardWhenOneIsWritten() {
+        // Given
+        ConnectionConfigDto configDto1 = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto configDto2 = TestHelper.getRandomConnectionConfigDto();
+        shards.add(configDto1.getName(), YamlUtils.toYaml(configDto1));
+        Map<String, String> before = versions(shards.add(configDto2.getName(), YamlUtils.toYaml(configDto2)));
+
+        // When
+        ConnectionConfigDto changed = new ConnectionConfigDto(configDto1.getName(),
+                Collections.singletonMap("changed", "true"));
+        Map<String, String> after = versions(shards.replace(changed.getName(), YamlUtils.toYaml(changed)));
+
+        // Then
+        assertThat(after.get(configDto2.getName())).isEqualTo(before.get(configDto2.getName()));
+        assertThat(after.get(configDto1.getName())).isNotEqualTo(before.get(configDto1.getName()));
+    }
+
+    @Test
+    public void shouldRejectAConfigAlreadyStored() {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        shards.add(configDto.getName(), YamlUtils.toYaml(configDto));
+
+        // When
+        Throwable thrown = catchThrowable(() -> shards.add(configDto.getName(), YamlUtils.toYaml(configDto)));
+
+        // Then
+        assertThat(thrown).isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    public void shouldRejectAConfigAddedConcurrently() {
+        // Given
+        shards.add("first", "first: config");
+        ConnectionConfigShards racing = withListing(shards.listShards());
+        shards.add("second", "second: config");
+
+        // When
+        Throwable thrown = catchThrowable(() -> racing.add("second", "second: other"));
+
+        // Then
+        assertThat(thrown).isInstanceOf(ConflictException.class);
+        assertThat(shards.listShards().get(0).getData()).containsEntry("second", base64("second: config"));
+    }
+
+    @Test
+    public void shouldNotOverfillAShardFilledConcurrently() {
+        // Given
+        shards.add("first", StringUtils.repeat('x', 300));
+        ConnectionConfigShards racing = withListing(shards.listShards());
+        shards.add("second", StringUtils.repeat('x', 300));
+
+        // When
+        racing.add("third", StringUtils.repeat('x', 300));
+
+        // Then
+        List<Secret> stored = shards.listShards();
+        assertThat(stored).hasSize(2);
+        assertThat(stored.get(0).getData()).containsOnlyKeys("first", "second");
+        assertThat(stored.get(1).getData()).containsOnlyKeys("third");
+    }
+
+    @Test
+    public void shouldSpillOverToANewShardWhenFull() throws Exception {
+        // Given
+        Map<String, String> configYamls = new LinkedHashMap<>();
+        for (int i = 0; i < 6; i++) {
+            configYamls.put("config-" + i, StringUtils.repeat('x', 200));
+        }
+        TestHelper.takeRequestPaths(server);
+
+        // When
+        shards.addAll(configYamls);
+
+        // Then
+        List<Secret> stored = shards.listShards();
+        assertThat(stored).extracting(shard -> shard.getMetadata().getName()).containsExactly(
+                ENTANDO_PLUGIN_NAME + "-connection-configs-0", ENTANDO_PLUGIN_NAME + "-connection-configs-1");
+        assertThat(stored.stream().mapToInt(shard -> shard.getData().size()).sum()).isEqualTo(6);
+        // a list and a create per shard
+        assertThat(TestHelper.takeRequestPaths(server)).hasSize(4);
+    }
+
+    @Test
+    public void shouldMoveAConfigThatNoLongerFitsItsShard() {
+        // Given
+        shards.add("first", StringUtils.repeat('x', 300));
+        shards.add("second", StringUtils.repeat('x', 300));
+
+        // When
+        Secret written = shards.replace("first", StringUtils.repeat('y', 600));
+
+        // Then
+        assertThat(written.getMetadata().getName()).isEqualTo(ENTANDO_PLUGIN_NAME + "-connection-configs-1");
+        List<Secret> stored = shards.listShards();
+        assertThat(stored.get(0).getData()).containsOnlyKeys("second");
+        assertThat(stored.get(1).getData()).containsOnlyKeys("first");
+    }
+
+    @Test
+    public void shouldNotOverfillAShardWhenReplacingConcurrently() {
+        // Given
+        shards.add("first", StringUtils.repeat('x', 300));
+        shards.add("second", StringUtils.repeat('x', 300));
+        ConnectionConfigShards racing = withListing(shards.listShards());
+        shards.replace("second", StringUtils.repeat('y', 600));
+
+        // When
+        racing.replace("first", StringUtils.repeat('z', 600));
+
+        // Then
+        List<Secret> stored = shards.listShards();
+        assertThat(stored).hasSize(2);
+        assertThat(stored.stream().flatMap(shard -> shard.getData().entrySet().stream())
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)))
+                .containsOnlyKeys("first", "second")
+                .containsEntry("first", base64(StringUtils.repeat('z', 600)))
+                .containsEntry("second", base64(StringUtils.repeat('y', 600)));
+    }
+
+    @Test
+    public void shouldRemoveAConfigFromItsShard() {
+        // Given
+        shards.add("first", "first: config");
+        shards.add("second", "second: config");
+
+        // When
+        Secret written = shards.remove("first");
+
+        // Then
+        assertThat(written.getData()).containsOnlyKeys("second");
+        assertThat(shards.remove("first")).isNull();
+        assertThat(shards.replace("first", "first: config")).isNull();
+    }
+
+    @Test
+    public void shouldListShardedConfigsWithASingleCall() throws Exception {
+        // Given
+        ConnectionConfigService service = TestHelper.connectionConfigService(client).shards(shards).build();
+        TestHelper.createEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+        ConnectionConfigDto configDto1 = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto configDto2 = TestHelper.getRandomConnectionConfigDto();
+        service.addConnectionConfig(configDto1);
+        service.addConnectionConfig(configDto2);
+        TestHelper.takeRequestPaths(server);
+
+        // When
+        List<ConnectionConfigDto> configDtos = service.getAllConnectionConfig();
+
+        // Then
+        assertThat(configDtos).containsExactlyInAnyOrder(configDto1, configDto2);
+        assertThat(TestHelper.takeRequestPaths(server)).filteredOn(path -> path.contains("/secrets")).hasSize(1);
+        assertThat(client.secrets().list().getItems()).hasSize(1);
+    }
+
+    private static String base64(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // plans its first write on a listing taken before concurrent writes, as if it had lost the race
+    private ConnectionConfigShards withListing(List<Secret> listing) {
+        AtomicBoolean listed = new AtomicBoolean();
+        return new ConnectionConfigShards(client, ENTANDO_PLUGIN_NAME, ConfigYamlCompression.disabled(), true,
+                MAX_SHARD_BYTES) {
+            @Override
+            public List<Secret> listShards() {
+                return listed.getAndSet(true) ? super.listShards() : listing;
+            }
+        };
+    }
+
+    private static Map<String, String> versions(Secret shard) {
+        return ConnectionConfigShards.expand(shard).stream().collect(Collectors.toMap(
+                config -> config.getMetadata().getName(),
+                config -> ConnectionConfigService.etagOf(Collections.singletonList(config.getMetadata()))));
+    }
+}
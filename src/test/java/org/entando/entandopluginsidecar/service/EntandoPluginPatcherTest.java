@@ -0,0 +1,209 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.entando.entandopluginsidecar.util.CrudKubernetesServer;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.kubernetes.model.plugin.EntandoPlugin;
+import org.entando.web.exception.ConflictException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class EntandoPluginPatcherTest {
+
+    @Rule
+    public KubernetesServer server = new CrudKubernetesServer();
+
+    private KubernetesClient client;
+
+    private MeterRegistry meterRegistry;
+
+    private EntandoPluginPatcher patcher;
+
+    @Before
+    public void setUp() {
+        client = server.getClient();
+        meterRegistry = new SimpleMeterRegistry();
+        patcher = new EntandoPluginPatcher(client, ENTANDO_PLUGIN_NAME, 5, 10, meterRegistry);
+    }
+
+    @Test
+    public void shouldNotAppendANameThatIsAlreadyListed() throws Exception {
+        // Given
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, "first");
+        EntandoPlugin current = TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+        TestHelper.takeRequestPaths(server);
+
+        // When
+        EntandoPlugin patched = patcher.updateConnectionConfigNames(current, Arrays.asList("second", "first",
+                "second"), Collections.emptyList());
+
+        // Then
+        assertThat(patched.getSpec().getConnectionConfigNames()).containsExactly("first", "second");
+        List<String> requests = TestHelper.takeRequestPaths(server);
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0)).startsWith("PATCH ").endsWith("/entandoplugins/" + ENTANDO_PLUGIN_NAME);
+    }
+
+    @Test
+    public void shouldNotReplaceANameListCreatedConcurrently() throws Exception {
+        // Given
+        TestHelper.createEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+        EntandoPlugin stale = TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+        assertThat(stale.getSpec().getConnectionConfigNames()).isNullOrEmpty();
+        stale.getSpec().setConnectionConfigNames(null);
+        patcher.updateConnectionConfigNames(stale, Collections.singletonList("first"), Collections.emptyList());
+
+        // When
+        EntandoPlugin patched = patcher.updateConnectionConfigNames(stale, Collections.singletonList("second"),
+                Collections.emptyList());
+
+        // Then
+        assertThat(patched.getSpec().getConnectionConfigNames()).containsExactly("first", "second");
+        assertThat(meterRegistry.counter(EntandoPluginPatcher.RETRIES_METRIC).count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldAppendANameAddedConcurrentlyOnce() throws Exception {
+        // Given
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, "first");
+        EntandoPlugin read = TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        List<Future<EntandoPlugin>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return patcher.updateConnectionConfigNames(read, Collections.singletonList("second"),
+                            Collections.emptyList());
+                }));
+            }
+            start.countDown();
+            for (Future<EntandoPlugin> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertThat(TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME).getSpec().getConnectionConfigNames())
+                .containsExactly("first", "second");
+        assertThat(meterRegistry.counter(EntandoPluginPatcher.RETRIES_METRIC).count()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldAddAndRemoveNames() throws Exception {
+        // Given
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, "first", "second", "first");
+        EntandoPlugin current = TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+
+        // When
+        EntandoPlugin patched = patcher.updateConnectionConfigNames(current, Arrays.asList("third", "second"),
+                Collections.singletonList("first"));
+
+        // Then
+        assertThat(patched.getSpec().getConnectionConfigNames()).containsExactly("second", "third");
+    }
+
+    @Test
+    public void shouldPatchAgainWhenNamesChangedConcurrently() throws Exception {
+        // Given
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, "first", "second");
+        EntandoPlugin stale = TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+        patcher.updateConnectionConfigNames(stale, Collections.emptyList(), Collections.singletonList("first"));
+
+        // When
+        EntandoPlugin patched = patcher.updateConnectionConfigNames(stale, Collections.emptyList(),
+                Collections.singletonList("second"));
+
+        // Then
+        assertThat(patched.getSpec().getConnectionConfigNames()).isEmpty();
+        assertThat(meterRegistry.counter(EntandoPluginPatcher.RETRIES_METRIC).count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotLoseNamesAppendedSinceTheRemovalWasComputed() throws Exception {
+        // Given
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, "first", "second");
+        append("third");
+        EntandoPlugin stale = TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+        append("fourth");
+
+        // When
+        EntandoPlugin patched = patcher.updateConnectionConfigNames(stale, Collections.emptyList(),
+                Collections.singletonList("second"));
+
+        // Then
+        assertThat(patched.getSpec().getConnectionConfigNames()).containsExactly("first", "third", "fourth");
+        assertThat(meterRegistry.counter(EntandoPluginPatcher.RETRIES_METRIC).count()).isZero();
+    }
+
+    @Test
+    public void shouldGiveUpWithConflictAfterMaxAttempts() throws Exception {
+        // Given
+        EntandoPluginPatcher singleAttempt = new EntandoPluginPatcher(client, ENTANDO_PLUGIN_NAME, 1, 10,
+                meterRegistry);
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, "first", "second");
+        EntandoPlugin stale = TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+        patcher.updateConnectionConfigNames(stale, Collections.emptyList(), Collections.singletonList("first"));
+
+        // When
+        Throwable thrown = catchThrowable(() -> singleAttempt.updateConnectionConfigNames(stale,
+                Collections.emptyList(), Collections.singletonList("second")));
+
+        // Then
+        assertThat(thrown).isInstanceOf(ConflictException.class);
+        assertThat(meterRegistry.counter(EntandoPluginPatcher.CONFLICTS_METRIC).count()).isEqualTo(1);
+        assertThat(TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME).getSpec().getConnectionConfigNames())
+                .containsExactly("second");
+    }
+
+    @Test
+    public void shouldNotPatchWhenNothingChanges() throws Exception {
+        // Given
+        TestHelper.createEntandoPluginWithConfigNames(client, ENTANDO_PLUGIN_NAME, "first");
+        EntandoPlugin current = TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME);
+        TestHelper.takeRequestPaths(server);
+
+        // When
+        EntandoPlugin patched = patcher.updateConnectionConfigNames(current, Collections.singletonList("first"),
+                Collections.singletonList("missing"));
+
+        // Then
+        assertThat(patched).isSameAs(current);
+        assertThat(TestHelper.takeRequestPaths(server)).isEmpty();
+    }
+
+    @Test
+    public void shouldReturnNullWhenEntandoPluginDoesNotExist() throws Exception {
+        TestHelper.createEntandoPluginCrd(client);
+
+        assertThat(patcher.updateConnectionConfigNames(TestHelper.newEntandoPlugin(ENTANDO_PLUGIN_NAME, "first"),
+                Collections.singletonList("second"), Collections.emptyList())).isNull();
+    }
+
+    private void append(String name) {
+        patcher.updateConnectionConfigNames(TestHelper.getEntandoPlugin(client, ENTANDO_PLUGIN_NAME),
+                Collections.singletonList(name), Collections.emptyList());
+    }
+}
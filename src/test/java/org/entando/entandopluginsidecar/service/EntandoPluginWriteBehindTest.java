@@ -0,0 +1,194 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+import static org.entando.entandopluginsidecar.util.TestHelper.ENTANDO_PLUGIN_NAME;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.kubernetes.model.plugin.EntandoPlugin;
+import org.entando.web.exception.ConflictException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+public class EntandoPluginWriteBehindTest {
+
+    private static final long WINDOW_MILLIS = 200;
+
+    private final EntandoPlugin current = TestHelper.newEntandoPlugin(ENTANDO_PLUGIN_NAME, "existing");
+    private final EntandoPlugin patched = TestHelper.newEntandoPlugin(ENTANDO_PLUGIN_NAME, "existing", "patched");
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private EntandoPluginPatcher pluginPatcher;
+    private ApiServerCircuitBreaker circuitBreaker;
+    private EntandoPluginWriteBehind writeBehind;
+
+    @Before
+    public void setUp() {
+        pluginPatcher = mock(EntandoPluginPatcher.class);
+        circuitBreaker = new ApiServerCircuitBreaker(meterRegistry, 2, 60_000, 5000);
+        writeBehind = new EntandoPluginWriteBehind(pluginPatcher, circuitBreaker, WINDOW_MILLIS, meterRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        writeBehind.shutdown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldMergeChangesWithinTheWindowIntoOnePatch() throws Exception {
+        // Given
+        when(pluginPatcher.updateConnectionConfigNames(any(), anyCollection(), anyCollection())).thenReturn(patched);
+
+        // When
+        List<Future<EntandoPlugin>> writes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String name = "config-" + i;
+            writes.add(executor.submit(() -> writeBehind.appendConnectionConfigName(() -> current, name)));
+        }
+        writes.add(executor.submit(() -> writeBehind.updateConnectionConfigNames(() -> current,
+                Collections.emptyList(), Collections.singletonList("existing"))));
+
+        // Then
+        for (Future<EntandoPlugin> write : writes) {
+            assertThat(write.get(5, TimeUnit.SECONDS)).isSameAs(patched);
+        }
+        assertThat(capturedAdded()).containsOnly("config-0", "config-1", "config-2", "config-3", "config-4");
+        assertThat(meterRegistry.get(EntandoPluginWriteBehind.BATCH_SIZE_METRIC).summary().totalAmount())
+                .isEqualTo(6);
+    }
+
+    @Test
+    public void shouldWriteAChangeUndoingAPendingOneInTheNextPatch() throws Exception {
+        // Given
+        when(pluginPatcher.updateConnectionConfigNames(any(), anyCollection(), anyCollection())).thenReturn(current);
+        final Future<EntandoPlugin> add = executor.submit(() -> writeBehind.updateConnectionConfigNames(() -> current,
+                Arrays.asList("kept", "removed"), Collections.emptyList()));
+        Thread.sleep(50);
+
+        // When
+        writeBehind.updateConnectionConfigNames(() -> current, Collections.emptyList(),
+                Collections.singletonList("removed"));
+
+        // Then
+        assertThat(catchThrowable(() -> add.get(5, TimeUnit.SECONDS))).isNull();
+        InOrder inOrder = inOrder(pluginPatcher);
+        inOrder.verify(pluginPatcher).updateConnectionConfigNames(current, new LinkedHashSet<>(Arrays.asList("kept",
+                "removed")), Collections.emptySet());
+        inOrder.verify(pluginPatcher).updateConnectionConfigNames(current, Collections.emptySet(),
+                Collections.singleton("removed"));
+        verifyNoMoreInteractions(pluginPatcher);
+    }
+
+    @Test
+    public void shouldFailEveryMergedChangeWhenThePatchFails() throws Exception {
+        // Given
+        when(pluginPatcher.updateConnectionConfigNames(any(), anyCollection(), anyCollection()))
+                .thenThrow(new ConflictException(EntandoPluginPatcher.ERROR_CONCURRENT_MODIFICATION));
+        final Future<EntandoPlugin> first = executor.submit(() -> writeBehind.appendConnectionConfigName(() -> current,
+                "first"));
+
+        // When
+        Throwable thrown = catchThrowable(() -> writeBehind.appendConnectionConfigName(() -> current, "second"));
+
+        // Then
+        assertThat(thrown).isInstanceOf(ConflictException.class);
+        assertThat(catchThrowable(() -> first.get(5, TimeUnit.SECONDS))).hasCauseInstanceOf(ConflictException.class);
+        verify(pluginPatcher, times(1)).updateConnectionConfigNames(any(), anyCollection(), anyCollection());
+    }
+
+    @Test
+    public void shouldCountAFailedMergedPatchOnceInTheCircuitBreaker() throws Exception {
+        // Given
+        when(pluginPatcher.updateConnectionConfigNames(any(), anyCollection(), anyCollection()))
+                .thenThrow(new KubernetesClientException("unavailable", 500, null));
+
+        // When
+        List<Future<Throwable>> writes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String name = "config-" + i;
+            writes.add(executor.submit(() -> catchThrowable(() -> writeBehind.appendConnectionConfigName(
+                    () -> current, name))));
+        }
+
+        // Then
+        for (Future<Throwable> write : writes) {
+            assertThat(write.get(5, TimeUnit.SECONDS)).isInstanceOf(KubernetesClientException.class);
+        }
+        verify(pluginPatcher, times(1)).updateConnectionConfigNames(any(), anyCollection(), anyCollection());
+        assertThat(circuitBreaker.getState()).isEqualTo(ApiServerCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void shouldWriteRightAwayWithoutWindow() {
+        // Given
+        EntandoPluginWriteBehind disabled = EntandoPluginWriteBehind.disabled(pluginPatcher);
+        when(pluginPatcher.updateConnectionConfigNames(current, Collections.singletonList("added"),
+                Collections.emptyList())).thenReturn(patched);
+
+        // When
+        EntandoPlugin result = disabled.appendConnectionConfigName(() -> current, "added");
+
+        // Then
+        assertThat(result).isSameAs(patched);
+        verify(pluginPatcher, times(1)).updateConnectionConfigNames(any(), anyCollection(), anyCollection());
+    }
+
+    @Test
+    public void shouldWriteConcurrentChangesOneAtATimeWithoutWindow() throws Exception {
+        // Given
+        EntandoPluginWriteBehind disabled = EntandoPluginWriteBehind.disabled(pluginPatcher);
+        AtomicInteger writing = new AtomicInteger();
+        AtomicInteger mostWriting = new AtomicInteger();
+        when(pluginPatcher.updateConnectionConfigNames(any(), anyCollection(), anyCollection())).thenAnswer(call -> {
+            mostWriting.accumulateAndGet(writing.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            writing.decrementAndGet();
+            return patched;
+        });
+
+        // When
+        List<Future<EntandoPlugin>> writes = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String name = "config-" + i;
+            writes.add(executor.submit(() -> disabled.appendConnectionConfigName(() -> current, name)));
+        }
+
+        // Then
+        for (Future<EntandoPlugin> write : writes) {
+            assertThat(write.get(5, TimeUnit.SECONDS)).isSameAs(patched);
+        }
+        assertThat(mostWriting.get()).isEqualTo(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<String> capturedAdded() {
+        ArgumentCaptor<Collection<String>> added = ArgumentCaptor.forClass(Collection.class);
+        verify(pluginPatcher, times(1)).updateConnectionConfigNames(any(), added.capture(), anyCollection());
+        return added.getValue();
+    }
+}
@@ -0,0 +1,90 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.entandopluginsidecar.util.YamlUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileConnectionConfigStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = folder.newFolder("connection-configs");
+    }
+
+    @Test
+    public void shouldReadConfigsBackAfterARestart() throws Exception {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto edited = new ConnectionConfigDto(configDto.getName(), Collections.singletonMap("a", "b"));
+        ConnectionConfigDto removed = TestHelper.getRandomConnectionConfigDto();
+        FileConnectionConfigStore store = newStore();
+        store.addConnectionConfig(configDto);
+        store.addConnectionConfig(removed);
+        store.editConnectionConfig(edited);
+        store.removeConnectionConfig(removed.getName());
+
+        // When
+        FileConnectionConfigStore restarted = newStore();
+
+        // Then
+        assertThat(restarted.getAllConnectionConfig()).containsExactly(edited);
+        assertThat(directory.list()).containsExactly(configDto.getName() + ".yaml");
+        assertThat(YamlUtils.fromYaml(new String(Files.readAllBytes(new File(directory, configDto.getName() + ".yaml")
+                .toPath()), StandardCharsets.UTF_8))).isEqualTo(edited);
+    }
+
+    @Test
+    public void shouldIgnoreFilesThatAreNotConfigs() throws Exception {
+        // Given
+        Files.write(new File(directory, "Not A Config.yaml").toPath(), "url: x".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(directory, "empty.yaml").toPath(), new byte[0]);
+        Files.write(new File(directory, "notes.txt").toPath(), "url: x".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(directory, "config.yaml").toPath(),
+                "name: renamed\nproperties:\n  url: x\n".getBytes(StandardCharsets.UTF_8));
+
+        // When
+        FileConnectionConfigStore store = newStore();
+
+        // Then
+        assertThat(store.getAllConnectionConfig())
+                .containsExactly(new ConnectionConfigDto("config", Collections.singletonMap("url", "x")));
+    }
+
+    @Test
+    public void shouldLeaveConfigsUnchangedWhenAFileCannotBeWritten() throws Exception {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        FileConnectionConfigStore store = newStore();
+        assertThat(directory.delete()).isTrue();
+
+        // When
+        Throwable thrown = catchThrowable(() -> store.addConnectionConfig(configDto));
+
+        // Then
+        assertThat(thrown).isInstanceOf(UncheckedIOException.class);
+        assertThat(store.getAllConnectionConfig()).isEmpty();
+    }
+
+    private FileConnectionConfigStore newStore() {
+        return new FileConnectionConfigStore(new ConnectionConfigMetrics(new SimpleMeterRegistry()),
+                directory.getPath());
+    }
+}
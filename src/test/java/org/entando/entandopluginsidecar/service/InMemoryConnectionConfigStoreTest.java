@@ -0,0 +1,167 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchOperationDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchOperationDto.Operation;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigBatchResultDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigPageDto;
+import org.entando.entandopluginsidecar.exception.BadRequestException;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.entando.web.exception.ConflictException;
+import org.entando.web.exception.NotFoundException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class InMemoryConnectionConfigStoreTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private InMemoryConnectionConfigStore store;
+
+    @Before
+    public void setUp() {
+        store = new InMemoryConnectionConfigStore(new ConnectionConfigMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    public void shouldAddEditAndRemoveConfigs() {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto edited = new ConnectionConfigDto(configDto.getName(), Collections.singletonMap("a", "b"));
+
+        // When
+        store.addConnectionConfig(configDto);
+        store.editConnectionConfig(edited);
+
+        // Then
+        assertThat(store.getConnectionConfig(configDto.getName())).isEqualTo(edited);
+        assertThat(store.getAllConnectionConfig()).containsExactly(edited);
+
+        // When
+        store.removeConnectionConfig(configDto.getName());
+
+        // Then
+        assertThat(store.getAllConnectionConfig()).isEmpty();
+    }
+
+    @Test
+    public void shouldThrowConflictWhenConfigAlreadyExists() {
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        store.addConnectionConfig(configDto);
+
+        expectedException.expect(ConflictException.class);
+        expectedException.expectMessage(ConnectionConfigService.ERROR_SECRET_ALREADY_EXISTS);
+
+        store.addConnectionConfig(configDto);
+    }
+
+    @Test
+    public void shouldThrowNotFoundWhenEditingAMissingConfig() {
+        expectedException.expect(NotFoundException.class);
+        expectedException.expectMessage(ConnectionConfigService.ERROR_SECRET_NOT_FOUND);
+
+        store.editConnectionConfig(TestHelper.getRandomConnectionConfigDto());
+    }
+
+    @Test
+    public void shouldRejectNamesThatAreNotValidSecretNames() {
+        expectedException.expect(BadRequestException.class);
+        expectedException.expectMessage(ConnectionConfigService.ERROR_VALIDATION);
+
+        store.addConnectionConfig(new ConnectionConfigDto("../Config", null));
+    }
+
+    @Test
+    public void shouldChangeETagsOnlyWhenConfigsChange() {
+        // Given
+        ConnectionConfigDto configDto1 = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto configDto2 = TestHelper.getRandomConnectionConfigDto();
+        store.addConnectionConfig(configDto1);
+        store.addConnectionConfig(configDto2);
+        String configEtag = store.getVersionedConnectionConfig(configDto1.getName()).getEtag();
+        String listEtag = store.getAllVersionedConnectionConfig().getEtag();
+
+        // When
+        String unchangedConfigEtag = store.getVersionedConnectionConfig(configDto1.getName()).getEtag();
+        String unchangedListEtag = store.getAllVersionedConnectionConfig().getEtag();
+        store.editConnectionConfig(configDto2);
+
+        // Then
+        assertThat(unchangedConfigEtag).isEqualTo(configEtag);
+        assertThat(unchangedListEtag).isEqualTo(listEtag);
+        assertThat(store.getVersionedConnectionConfig(configDto1.getName()).getEtag()).isEqualTo(configEtag);
+        assertThat(store.getAllVersionedConnectionConfig().getEtag()).isNotEqualTo(listEtag);
+        assertThat(store.getAllVersionedConnectionConfig(ConnectionConfigProjection.of(
+                Collections.singletonList("name"))).getEtag()).isNotEqualTo(store.getAllVersionedConnectionConfig()
+                .getEtag());
+        assertThat(new InMemoryConnectionConfigStore(new ConnectionConfigMetrics(new SimpleMeterRegistry()))
+                .getAllVersionedConnectionConfig().getEtag()).isNotEqualTo(listEtag);
+    }
+
+    @Test
+    public void shouldListPagesInNameOrder() {
+        // Given
+        List<String> names = Arrays.asList("config-c", "config-a", "config-b");
+        names.forEach(name -> store.addConnectionConfig(new ConnectionConfigDto(name, null)));
+
+        // When
+        ConnectionConfigPageDto first = store.getConnectionConfigPage(2, null);
+        ConnectionConfigPageDto last = store.getConnectionConfigPage(2, first.getContinueToken());
+
+        // Then
+        assertThat(first.getItems()).extracting(ConnectionConfigDto::getName).containsExactly("config-a", "config-b");
+        assertThat(last.getItems()).extracting(ConnectionConfigDto::getName).containsExactly("config-c");
+        assertThat(last.getContinueToken()).isNull();
+    }
+
+    @Test
+    public void shouldReportAResultForEachBatchOperation() {
+        // Given
+        ConnectionConfigDto existing = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto created = TestHelper.getRandomConnectionConfigDto();
+        ConnectionConfigDto missing = TestHelper.getRandomConnectionConfigDto();
+        store.addConnectionConfig(existing);
+
+        // When
+        List<ConnectionConfigBatchResultDto> results = store.applyBatch(Arrays.asList(
+                operation(Operation.CREATE, created),
+                operation(Operation.CREATE, existing),
+                operation(Operation.EDIT, missing),
+                operation(Operation.DELETE, existing),
+                operation(Operation.DELETE, missing),
+                operation(null, missing)));
+
+        // Then
+        assertThat(results.stream().map(ConnectionConfigBatchResultDto::getStatus).collect(Collectors.toList()))
+                .containsExactly(201, 409, 404, 200, 404, 400);
+        assertThat(store.getAllConnectionConfig()).containsExactly(created);
+    }
+
+    @Test
+    public void shouldNotShareConfigsWithCallers() {
+        // Given
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+        store.addConnectionConfig(configDto);
+
+        // When
+        store.getConnectionConfig(configDto.getName()).getProperties().clear();
+        configDto.setProperties(null);
+
+        // Then
+        assertThat(store.getConnectionConfig(configDto.getName()).getProperties()).hasSize(2);
+    }
+
+    private static ConnectionConfigBatchOperationDto operation(Operation operation, ConnectionConfigDto configDto) {
+        return new ConnectionConfigBatchOperationDto(operation, configDto.getName(), configDto.getProperties());
+    }
+}
@@ -0,0 +1,207 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.exception.ServiceUnavailableException;
+import org.entando.entandopluginsidecar.util.TestHelper;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class SecretFetcherTest {
+
+    @Rule
+    public KubernetesServer crudServer = new KubernetesServer(true, true);
+
+    @Rule
+    public KubernetesServer server = new KubernetesServer(false, false);
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    private SecretFetcher secretFetcher;
+
+    @After
+    public void tearDown() {
+        secretFetcher.shutdown();
+    }
+
+    @Test
+    public void shouldReturnSecretsInRequestedOrder() {
+        // Given
+        KubernetesClient client = crudServer.getClient();
+        secretFetcher = new SecretFetcher(client, ApiServerCircuitBreaker.disabled(), 4, 5000, 100);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+            TestHelper.createSecret(client, configDto);
+            names.add(configDto.getName());
+        }
+        Collections.shuffle(names);
+        names.add(5, "missing");
+
+        // When
+        List<Secret> secrets = secretFetcher.fetch(names);
+
+        // Then
+        assertThat(secrets).hasSize(names.size());
+        assertThat(secrets.get(5)).isNull();
+        for (int i = 0; i < names.size(); i++) {
+            if (i != 5) {
+                assertThat(secrets.get(i).getMetadata().getName()).isEqualTo(names.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void shouldFetchConcurrently() {
+        // Given
+        secretFetcher = new SecretFetcher(server.getClient(), ApiServerCircuitBreaker.disabled(), 4, 5000, 100);
+        List<String> names = Arrays.asList("a", "b", "c", "d");
+        names.forEach(name -> server.expect().get().delay(500, TimeUnit.MILLISECONDS)
+                .withPath("/api/v1/namespaces/test/secrets/" + name)
+                .andReturn(200, new SecretBuilder().withNewMetadata().withName(name).endMetadata().build())
+                .once());
+
+        // When
+        long start = System.currentTimeMillis();
+        List<Secret> secrets = secretFetcher.fetch(names);
+
+        // Then
+        assertThat(System.currentTimeMillis() - start).isLessThan(1500);
+        assertThat(secrets).extracting(secret -> secret.getMetadata().getName()).containsExactly("a", "b", "c", "d");
+    }
+
+    @Test
+    public void shouldFailWhenFetchesDoNotCompleteInTime() {
+        expectedException.expect(ServiceUnavailableException.class);
+        expectedException.expectMessage(SecretFetcher.ERROR_SECRET_FETCH_TIMEOUT);
+
+        secretFetcher = new SecretFetcher(server.getClient(), ApiServerCircuitBreaker.disabled(), 2, 100, 100);
+        Arrays.asList("a", "b").forEach(name -> server.expect().get().delay(1, TimeUnit.SECONDS)
+                .withPath("/api/v1/namespaces/test/secrets/" + name)
+                .andReturn(200, new SecretBuilder().withNewMetadata().withName(name).endMetadata().build())
+                .once());
+
+        secretFetcher.fetch(Arrays.asList("a", "b"));
+    }
+
+    @Test
+    public void shouldFailWhenASingleFetchDoesNotCompleteInTime() {
+        expectedException.expect(ServiceUnavailableException.class);
+        expectedException.expectMessage(SecretFetcher.ERROR_SECRET_FETCH_TIMEOUT);
+
+        secretFetcher = new SecretFetcher(server.getClient(), ApiServerCircuitBreaker.disabled(), 2, 100, 100);
+        server.expect().get().delay(1, TimeUnit.SECONDS)
+                .withPath("/api/v1/namespaces/test/secrets/a")
+                .andReturn(200, new SecretBuilder().withNewMetadata().withName("a").endMetadata().build())
+                .once();
+
+        secretFetcher.fetch(Collections.singletonList("a"));
+    }
+
+    @Test
+    public void shouldFailAtOnceWhenTheQueueIsFull() {
+        expectedException.expect(ServiceUnavailableException.class);
+        expectedException.expectMessage(SecretFetcher.ERROR_SECRET_FETCH_REJECTED);
+
+        secretFetcher = new SecretFetcher(server.getClient(), ApiServerCircuitBreaker.disabled(), 1, 5000, 1);
+        Arrays.asList("a", "b", "c").forEach(name -> server.expect().get().delay(1, TimeUnit.SECONDS)
+                .withPath("/api/v1/namespaces/test/secrets/" + name)
+                .andReturn(200, new SecretBuilder().withNewMetadata().withName(name).endMetadata().build())
+                .once());
+
+        secretFetcher.fetch(Arrays.asList("a", "b", "c"));
+    }
+
+    @Test
+    public void shouldShareConcurrentReadsOfTheSameSecret() throws Exception {
+        // Given
+        secretFetcher = new SecretFetcher(server.getClient(), ApiServerCircuitBreaker.disabled(), 4, 5000, 100);
+        server.expect().get().delay(500, TimeUnit.MILLISECONDS)
+                .withPath("/api/v1/namespaces/test/secrets/a")
+                .andReturn(200, new SecretBuilder().withNewMetadata().withName("a").endMetadata().build())
+                .once();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        List<Future<Secret>> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(executor.submit(() -> secretFetcher.fetch("a")));
+        }
+
+        // Then
+        for (Future<Secret> read : reads) {
+            assertThat(read.get().getMetadata().getName()).isEqualTo("a");
+        }
+        assertThat(server.getMockServer().getRequestCount()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldNotAbortASharedReadWhenOneCallerTimesOut() throws Exception {
+        // Given
+        secretFetcher = new SecretFetcher(server.getClient(), ApiServerCircuitBreaker.disabled(), 2, 100, 100);
+        server.expect().get().delay(500, TimeUnit.MILLISECONDS)
+                .withPath("/api/v1/namespaces/test/secrets/a")
+                .andReturn(200, new SecretBuilder().withNewMetadata().withName("a").endMetadata().build())
+                .once();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        final Future<Throwable> timedOut = executor.submit(() -> catchThrowable(() -> secretFetcher.fetch(
+                Collections.singletonList("a"))));
+        Thread.sleep(50);
+
+        // When
+        Secret secret = secretFetcher.fetch("a");
+
+        // Then
+        assertThat(timedOut.get()).isInstanceOf(ServiceUnavailableException.class);
+        assertThat(secret.getMetadata().getName()).isEqualTo("a");
+        assertThat(server.getMockServer().getRequestCount()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldCountASharedFailedReadOnceInTheCircuitBreaker() throws Exception {
+        // Given
+        ApiServerCircuitBreaker circuitBreaker = new ApiServerCircuitBreaker(new SimpleMeterRegistry(), 2, 60_000,
+                5000);
+        secretFetcher = new SecretFetcher(server.getClient(), circuitBreaker, 4, 5000, 100);
+        server.expect().get().delay(500, TimeUnit.MILLISECONDS)
+                .withPath("/api/v1/namespaces/test/secrets/a")
+                .andReturn(500, "unavailable")
+                .once();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // When
+        List<Future<Throwable>> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(executor.submit(() -> catchThrowable(() -> secretFetcher.fetch("a"))));
+        }
+
+        // Then
+        for (Future<Throwable> read : reads) {
+            assertThat(read.get()).isInstanceOf(KubernetesClientException.class);
+        }
+        assertThat(server.getMockServer().getRequestCount()).isEqualTo(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(ApiServerCircuitBreaker.State.CLOSED);
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,138 @@
+package org.entando.entandopluginsidecar.service;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.assertj.core.api.Java6Assertions.catchThrowable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.entando.web.exception.NotFoundException;
+import org.junit.After;
+import org.junit.Test;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldShareInFlightRead() throws Exception {
+        // Given
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        final Future<String> first = executor.submit(() -> singleFlight.execute("key", blockingRead(reads, release)));
+        waitForReads(reads, 1);
+
+        // When
+        List<Future<String>> others = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            others.add(executor.submit(() -> singleFlight.execute("key", blockingRead(reads, release))));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("value1");
+        for (Future<String> other : others) {
+            assertThat(other.get(5, TimeUnit.SECONDS)).isEqualTo("value1");
+        }
+        assertThat(reads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotShareReadsOfOtherKeys() throws Exception {
+        // Given
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        final Future<String> first = executor.submit(() -> singleFlight.execute("a", blockingRead(reads, release)));
+        waitForReads(reads, 1);
+
+        // When
+        final Future<String> second = executor.submit(() -> singleFlight.execute("b", blockingRead(reads, release)));
+        waitForReads(reads, 2);
+        release.countDown();
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS)).isNotEqualTo(second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldReadAgainOnceCompleted() {
+        AtomicInteger reads = new AtomicInteger();
+
+        singleFlight.execute("key", () -> "value" + reads.incrementAndGet());
+        String second = singleFlight.execute("key", () -> "value" + reads.incrementAndGet());
+
+        assertThat(second).isEqualTo("value2");
+    }
+
+    @Test
+    public void shouldShareExceptions() throws Exception {
+        // Given
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        final Future<String> first = executor.submit(() -> singleFlight.execute("key", () -> {
+            blockingRead(reads, release).get();
+            throw new NotFoundException("org.entando.error.secret.notFound");
+        }));
+        waitForReads(reads, 1);
+
+        // When
+        final Future<String> second = executor.submit(() -> singleFlight.execute("key", () -> "unexpected"));
+        Thread.sleep(100);
+        release.countDown();
+
+        // Then
+        assertThat(catchThrowable(first::get)).hasCauseInstanceOf(NotFoundException.class);
+        assertThat(catchThrowable(second::get)).hasCauseInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    public void shouldStartNewReadAfterForget() throws Exception {
+        // Given
+        AtomicInteger reads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        final Future<String> first = executor.submit(() -> singleFlight.execute("key", blockingRead(reads, release)));
+        waitForReads(reads, 1);
+
+        // When
+        singleFlight.forget("key");
+        String second = singleFlight.execute("key", () -> "value" + reads.incrementAndGet());
+        release.countDown();
+
+        // Then
+        assertThat(second).isEqualTo("value2");
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("value1");
+    }
+
+    private static Supplier<String> blockingRead(AtomicInteger reads, CountDownLatch release) {
+        return () -> {
+            String value = "value" + reads.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value;
+        };
+    }
+
+    private static void waitForReads(AtomicInteger reads, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (reads.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.entando.entandopluginsidecar.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.kubernetes.client.NamespacedKubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
+import io.fabric8.mockwebserver.Context;
+import io.fabric8.mockwebserver.crud.AttributeSet;
+import io.fabric8.mockwebserver.dsl.MockServerExpectation;
+import io.fabric8.zjsonpatch.JsonPatch;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * {@link KubernetesServer} in CRUD mode whose PATCH requests are stored and support JSON patch {@code test}
+ * operations, answering 422 like the API server when a patch can't be applied. Like the API server, every write
+ * gives the resource a new resourceVersion and creating a resource that already exists answers 409.
+ */
+public class CrudKubernetesServer extends KubernetesServer {
+
+    private MockWebServer mockWebServer;
+    private KubernetesMockServer mock;
+    private NamespacedKubernetesClient client;
+
+    public CrudKubernetesServer() {
+        super(true, true);
+    }
+
+    @Override
+    public void before() {
+        mockWebServer = new MockWebServer();
+        mock = new KubernetesMockServer(new Context(), mockWebServer, new HashMap<>(),
+                new JsonPatchCrudDispatcher(), true);
+        mock.init();
+        client = mock.createClient();
+    }
+
+    @Override
+    public void after() {
+        mock.destroy();
+        client.close();
+    }
+
+    @Override
+    public NamespacedKubernetesClient getClient() {
+        return client;
+    }
+
+    @Override
+    public MockServerExpectation expect() {
+        return mock.expect();
+    }
+
+    @Override
+    public MockWebServer getMockServer() {
+        return mockWebServer;
+    }
+
+    private static class JsonPatchCrudDispatcher extends KubernetesCrudDispatcher {
+
+        private static final int CONFLICT = 409;
+        private static final int UNPROCESSABLE_ENTITY = 422;
+
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        private long revision;
+
+        // the stock handlers share an unsynchronized map
+        @Override
+        public synchronized MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            // the stock update is a create too, only a POST is refused
+            if ("POST".equals(request.getMethod()) && exists(request.getPath(), request.getBody().snapshot().utf8())) {
+                return new MockResponse().setResponseCode(CONFLICT);
+            }
+            return super.dispatch(request);
+        }
+
+        @Override
+        public MockResponse handleCreate(String path, String body) {
+            return super.handleCreate(path, withNewResourceVersion(body));
+        }
+
+        @Override
+        public MockResponse handleUpdate(String path, String body) {
+            return super.handleUpdate(path, withNewResourceVersion(body));
+        }
+
+        @Override
+        public MockResponse handlePatch(String path, String patch) {
+            AttributeSet query = attributeExtractor.fromPath(path);
+            Optional<Map.Entry<AttributeSet, String>> existing = map.entrySet().stream()
+                    .filter(entry -> entry.getKey().matches(query))
+                    .findFirst();
+            if (!existing.isPresent()) {
+                return new MockResponse().setResponseCode(404);
+            }
+            try {
+                JsonNode document = mapper.readTree(existing.get().getValue());
+                for (JsonNode operation : mapper.readTree(patch)) {
+                    if ("test".equals(operation.path("op").asText())) {
+                        if (!operation.path("value").equals(document.at(operation.path("path").asText()))) {
+                            return new MockResponse().setResponseCode(UNPROCESSABLE_ENTITY);
+                        }
+                    } else {
+                        document = JsonPatch.apply(mapper.createArrayNode().add(operation), document);
+                    }
+                }
+                String patched = withNewResourceVersion(document);
+                map.remove(existing.get().getKey());
+                map.put(AttributeSet.merge(attributeExtractor.fromPath(path),
+                        attributeExtractor.fromResource(patched)), patched);
+                return new MockResponse().setResponseCode(200).setBody(patched);
+            } catch (IOException | RuntimeException e) {
+                return new MockResponse().setResponseCode(UNPROCESSABLE_ENTITY).setBody(String.valueOf(e));
+            }
+        }
+
+        private boolean exists(String path, String body) {
+            try {
+                String name = mapper.readTree(body).path("metadata").path("name").asText(null);
+                if (name == null) {
+                    return false;
+                }
+                AttributeSet query = attributeExtractor.fromPath(path + "/" + name);
+                return map.keySet().stream().anyMatch(key -> key.matches(query));
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        private String withNewResourceVersion(String body) {
+            try {
+                return withNewResourceVersion(mapper.readTree(body));
+            } catch (IOException e) {
+                return body;
+            }
+        }
+
+        private String withNewResourceVersion(JsonNode document) throws IOException {
+            if (document.isObject()) {
+                ((ObjectNode) document.with("metadata")).put("resourceVersion", String.valueOf(++revision));
+            }
+            return mapper.writeValueAsString(document);
+        }
+    }
+}
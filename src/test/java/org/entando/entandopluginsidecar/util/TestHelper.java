@@ -2,20 +2,38 @@ package org.entando.entandopluginsidecar.util;
 
 import static org.entando.entandopluginsidecar.service.ConnectionConfigService.API_VERSION;
 import static org.entando.entandopluginsidecar.service.ConnectionConfigService.CONFIG_YAML;
+import static org.entando.entandopluginsidecar.service.ConnectionConfigService.PLUGIN_LABEL;
 
 import com.google.common.collect.ImmutableMap;
 import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ListMetaBuilder;
 import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
 import io.fabric8.kubernetes.api.model.apiextensions.CustomResourceDefinition;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesServer;
 import io.fabric8.kubernetes.internal.KubernetesDeserializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 import lombok.experimental.UtilityClass;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.entando.entandopluginsidecar.service.ApiServerCircuitBreaker;
+import org.entando.entandopluginsidecar.service.ConfigYamlCompression;
+import org.entando.entandopluginsidecar.service.ConnectionConfigCache;
+import org.entando.entandopluginsidecar.service.ConnectionConfigDtoCache;
+import org.entando.entandopluginsidecar.service.ConnectionConfigMetrics;
+import org.entando.entandopluginsidecar.service.ConnectionConfigService;
+import org.entando.entandopluginsidecar.service.ConnectionConfigShards;
+import org.entando.entandopluginsidecar.service.EntandoPluginPatcher;
+import org.entando.entandopluginsidecar.service.EntandoPluginWriteBehind;
+import org.entando.entandopluginsidecar.service.SecretFetcher;
 import org.entando.kubernetes.model.DbmsVendor;
 import org.entando.kubernetes.model.plugin.DoneableEntandoPlugin;
 import org.entando.kubernetes.model.plugin.EntandoPlugin;
@@ -36,6 +54,8 @@ public class TestHelper {
     public static final String ENTANDO_API_VERSION = "entando.org/v1";
     public static final String ENTANDO_PLUGIN_CRD = "crd/EntandoPluginCRD.yaml";
 
+    private static final long WAIT_TIMEOUT_MILLIS = 5000;
+
     public static void createEntandoPlugin(KubernetesClient client, String pluginName) throws IOException {
         createEntandoPluginWithConfigNames(client, pluginName);
     }
@@ -43,6 +63,16 @@ public class TestHelper {
     public static void createEntandoPluginWithConfigNames(KubernetesClient client, String pluginName,
             String... configNames) throws IOException {
 
+        EntandoPlugin entandoPlugin = newEntandoPlugin(pluginName, configNames);
+        CustomResourceDefinition entandoPluginCrd = createEntandoPluginCrd(client);
+
+        client.customResources(entandoPluginCrd, EntandoPlugin.class, EntandoPluginList.class,
+                DoneableEntandoPlugin.class)
+                .inNamespace(client.getConfiguration().getNamespace())
+                .createOrReplace(entandoPlugin);
+    }
+
+    public static EntandoPlugin newEntandoPlugin(String pluginName, String... configNames) {
         EntandoPlugin entandoPlugin = new EntandoPluginBuilder().withNewSpec()
                 .withImage("entando/entando-avatar-plugin")
                 .withDbms(DbmsVendor.POSTGRESQL)
@@ -62,13 +92,33 @@ public class TestHelper {
         // workaround to make the mock server to work correctly with our custom resource
         KubernetesDeserializer
                 .registerCustomKind(entandoPlugin.getApiVersion(), entandoPlugin.getKind(), EntandoPlugin.class);
+        return entandoPlugin;
+    }
 
-        CustomResourceDefinition entandoPluginCrd = createEntandoPluginCrd(client);
+    public static EntandoPluginList newEntandoPluginList(String resourceVersion, EntandoPlugin... entandoPlugins) {
+        EntandoPluginList list = new EntandoPluginList();
+        list.setMetadata(new ListMetaBuilder().withResourceVersion(resourceVersion).build());
+        list.setItems(Arrays.asList(entandoPlugins));
+        return list;
+    }
 
-        client.customResources(entandoPluginCrd, EntandoPlugin.class, EntandoPluginList.class,
-                DoneableEntandoPlugin.class)
-                .inNamespace(client.getConfiguration().getNamespace())
-                .createOrReplace(entandoPlugin);
+    public static void expectEntandoPluginCrd(KubernetesServer server) throws IOException {
+        List<HasMetadata> list = server.getClient().load(new ClassPathResource(ENTANDO_PLUGIN_CRD).getInputStream())
+                .get();
+        server.expect().get()
+                .withPath("/apis/apiextensions.k8s.io/v1beta1/customresourcedefinitions/" + EntandoPlugin.CRD_NAME)
+                .andReturn(200, list.get(0))
+                .always();
+    }
+
+    public static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within " + WAIT_TIMEOUT_MILLIS + " ms");
+            }
+            Thread.sleep(20);
+        }
     }
 
     public static EntandoPlugin getEntandoPlugin(KubernetesClient client, String entandoPluginName) {
@@ -107,6 +157,24 @@ public class TestHelper {
         return entandoPluginCrd;
     }
 
+    public static void createLabeledSecret(KubernetesClient client, ConnectionConfigDto configDto, String pluginName) {
+        client.secrets().createNew()
+                .withApiVersion(API_VERSION)
+                .withNewMetadata().withName(configDto.getName()).addToLabels(PLUGIN_LABEL, pluginName).endMetadata()
+                .withStringData(Collections.singletonMap(CONFIG_YAML, YamlUtils.toYaml(configDto)))
+                .done();
+    }
+
+    public static List<String> takeRequestPaths(KubernetesServer server) throws InterruptedException {
+        List<String> paths = new ArrayList<>();
+        RecordedRequest request = server.getMockServer().takeRequest(1, TimeUnit.MILLISECONDS);
+        while (request != null) {
+            paths.add(request.getMethod() + " " + request.getPath());
+            request = server.getMockServer().takeRequest(1, TimeUnit.MILLISECONDS);
+        }
+        return paths;
+    }
+
     public static void createSecret(KubernetesClient client, ConnectionConfigDto configDto) {
         client.secrets().createNew()
                 .withApiVersion(API_VERSION)
@@ -114,4 +182,78 @@ public class TestHelper {
                 .withStringData(Collections.singletonMap(CONFIG_YAML, YamlUtils.toYaml(configDto)))
                 .done();
     }
+
+    /**
+     * Builds a {@link ConnectionConfigService} for {@link #ENTANDO_PLUGIN_NAME} with its caches, write-behind, shards,
+     * compression and circuit breaker disabled, for tests to set only what they exercise.
+     */
+    public static ConnectionConfigServiceBuilder connectionConfigService(KubernetesClient client) {
+        return new ConnectionConfigServiceBuilder(client);
+    }
+
+    public static final class ConnectionConfigServiceBuilder {
+
+        private final KubernetesClient client;
+        private ConnectionConfigCache cache = ConnectionConfigCache.disabled();
+        private SecretFetcher secretFetcher;
+        private EntandoPluginWriteBehind pluginWriter;
+        private ConnectionConfigShards shards = ConnectionConfigShards.disabled();
+        private ConfigYamlCompression compression = ConfigYamlCompression.disabled();
+        private ConnectionConfigMetrics metrics = new ConnectionConfigMetrics(new SimpleMeterRegistry());
+        private ApiServerCircuitBreaker circuitBreaker = ApiServerCircuitBreaker.disabled();
+        private int listPageSize = 100;
+
+        private ConnectionConfigServiceBuilder(KubernetesClient client) {
+            this.client = client;
+        }
+
+        public ConnectionConfigServiceBuilder cache(ConnectionConfigCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        public ConnectionConfigServiceBuilder secretFetcher(SecretFetcher secretFetcher) {
+            this.secretFetcher = secretFetcher;
+            return this;
+        }
+
+        public ConnectionConfigServiceBuilder pluginWriter(EntandoPluginWriteBehind pluginWriter) {
+            this.pluginWriter = pluginWriter;
+            return this;
+        }
+
+        public ConnectionConfigServiceBuilder shards(ConnectionConfigShards shards) {
+            this.shards = shards;
+            return this;
+        }
+
+        public ConnectionConfigServiceBuilder compression(ConfigYamlCompression compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        public ConnectionConfigServiceBuilder metrics(ConnectionConfigMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public ConnectionConfigServiceBuilder circuitBreaker(ApiServerCircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        public ConnectionConfigServiceBuilder listPageSize(int listPageSize) {
+            this.listPageSize = listPageSize;
+            return this;
+        }
+
+        public ConnectionConfigService build() {
+            return new ConnectionConfigService(client, ENTANDO_PLUGIN_NAME, cache,
+                    secretFetcher != null ? secretFetcher : SecretFetcher.withDefaults(client),
+                    ConnectionConfigDtoCache.disabled(),
+                    pluginWriter != null ? pluginWriter
+                            : EntandoPluginWriteBehind.disabled(new EntandoPluginPatcher(client, ENTANDO_PLUGIN_NAME)),
+                    shards, compression, metrics, circuitBreaker, listPageSize);
+        }
+    }
 }
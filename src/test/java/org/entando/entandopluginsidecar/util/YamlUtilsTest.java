@@ -0,0 +1,44 @@
+package org.entando.entandopluginsidecar.util;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.entando.entandopluginsidecar.dto.ConnectionConfigDto;
+import org.junit.Test;
+
+public class YamlUtilsTest {
+
+    @Test
+    public void shouldRoundTripConnectionConfig() {
+        ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+
+        String yaml = YamlUtils.toYaml(configDto);
+
+        assertThat(yaml).doesNotContain("!!");
+        assertThat(YamlUtils.fromYaml(yaml)).isEqualTo(configDto);
+    }
+
+    @Test
+    public void shouldRoundTripConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> tasks = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                tasks.add(() -> {
+                    ConnectionConfigDto configDto = TestHelper.getRandomConnectionConfigDto();
+                    return configDto.equals(YamlUtils.fromYaml(YamlUtils.toYaml(configDto)));
+                });
+            }
+            for (Future<Boolean> result : executor.invokeAll(tasks)) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}